@@ -40,11 +40,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.Future;
 import javax.swing.ImageIcon;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
@@ -59,6 +67,10 @@ import org.purnamaproject.xui.binding.BindingFactory;
 import org.purnamaproject.xui.binding.XUIEventSource;
 import org.purnamaproject.xui.component.XUIComponent;
 import org.purnamaproject.xui.helpers.IDFactory;
+import org.purnamaproject.xui.impl.XUIBinaryWriter;
+import org.purnamaproject.xui.impl.XUIDocumentIndex;
+import org.purnamaproject.xui.impl.XUIMarshalCache;
+import org.purnamaproject.xui.impl.XUIMarshaller;
 import org.purnamaproject.xui.impl.XUINodeImpl;
 import org.purnamaproject.xui.component.container.toplevel.XUIWindow;
 import org.purnamaproject.xui.binding.XUIBindingException;
@@ -85,6 +97,28 @@ public class XUI
      */
     private XUINode root = null;
 
+    /**
+     * The index of the nodes within this document used for looking up nodes by id.
+     */
+    private XUIDocumentIndex index = null;
+
+    /**
+     * The bytes of the last marshal, kept when incremental marshalling is turned on.
+     */
+    private XUIMarshalCache marshalCache = null;
+
+    /**
+     * The realizer that builds the user interface of this document. Created the first time the
+     * document is visualized.
+     */
+    private Realizer realizer = null;
+
+    /**
+     * Whether parts of the user interface that are not showing are built the first time they
+     * are needed.
+     */
+    private boolean lazyRealization = false;
+
     /**
      * Default constructor. By calling this default constructor.
      */
@@ -95,16 +129,11 @@ public class XUI
         root.addNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
         root.addAttribute("", "xsi:schemaLocation", "", "CDATA", "http://xml.bcit.ca/PurnamaProject/2003/xui xui.xsd");
         root.addAttribute("", "id", "", "xs:ID", "http://xml.bcit.ca/PurnamaProject/components");
-        List list = getFlattenedView();
         root.setLevel(0);
         root.setToRoot(true);
         root.setIsBeginOfNamespace(true);
-        for(int i = 0; i < list.size(); i++)
-        {
-            XUINode node = (XUINode) list.get(i);
-            String id = node.getAttributeID();
-            IDFactory.getInstance().addID(id);
-        }
+        index = new XUIDocumentIndex(root);
+        addIDs();
     }
 
     /**
@@ -123,14 +152,22 @@ public class XUI
         {
             root = null;
             root = node;
+            index = new XUIDocumentIndex(root);
         }
-        List list = getFlattenedView();
-        for(int i = 0; i < list.size(); i++)
-        {
-            XUINode n = (XUINode) list.get(i);
-            String id = n.getAttributeID();
-            IDFactory.getInstance().addID(id);
-        }
+        addIDs();
+    }
+
+    /**
+     * Adds the ids of all the nodes in this document to the IDFactory so that ids generated
+     * later on do not clash with them.
+     */
+    private void addIDs()
+    {
+        // the ids come from the index so that deferred content is not parsed
+        IDFactory factory = IDFactory.getInstance();
+        Iterator it = index.getIDs().iterator();
+        while(it.hasNext())
+            factory.addID((String)it.next());
     }
 
     /**
@@ -145,11 +182,36 @@ public class XUI
             throw new XUIValidationException("Root node must be an instantiated XUI element");
         else
         {
+            boolean indexing = index.isNameAndLevelIndexing();
             root = null;
             root = node;
+            index = new XUIDocumentIndex(root);
+            index.setNameAndLevelIndexing(indexing);
         }
     }
 
+    /**
+     * Turns indexing of nodes by name and level on or off. With indexing on, <code>getNodesByName</code>,
+     * <code>getNodesByLevel</code> and <code>getElementsByLevel</code> no longer walk the whole
+     * document which is worthwhile for large documents. Indexing is off by default.
+     *
+     * @param enabled true to index nodes by name and level, false otherwise.
+     */
+    public void setNameAndLevelIndexing(boolean enabled)
+    {
+        index.setNameAndLevelIndexing(enabled);
+    }
+
+    /**
+     * Returns whether or not nodes are indexed by name and level.
+     *
+     * @return true if nodes are indexed by name and level.
+     */
+    public boolean isNameAndLevelIndexing()
+    {
+        return index.isNameAndLevelIndexing();
+    }
+
     /**
      * Returns whether or not the sought after ID exists. This is required for ID references using the
      * xs:IDREF attribute type within the XML Schema. XUI needs to check these in order to adhere to the
@@ -216,22 +278,24 @@ public class XUI
     }
 
     /**
-     * Returns a list of XUIComponents.
+     * Returns a list of XUIComponents. Components left to be realized later are not realized and
+     * are not listed.
      *
      * @return list of XUIComponents.
      */
     public List getXUIComponents()
     {
-        List componentNodes = root.getAllChildNodes();
-        List components = new LinkedList();
-        int size = componentNodes.size();
-        for(int i = 0; i < size; i++)
-        {
-            XUINode node = (XUINode)componentNodes.get(i);
-            XUIComponent c = node.getXUIComponent();
-            if(c != null && c instanceof XUIComponent)
-                components.add(c);
-        }
+        final List components = new LinkedList();
+        root.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    XUIComponent c = XUINodeImpl.peekXUIComponent(node);
+                    if(c != null)
+                        components.add(c);
+                    return true;
+                }
+        });
         return components;
     }
 
@@ -246,16 +310,21 @@ public class XUI
      */
     public XUIEventSource getXUIEventSource(String id)
     {
-        List eventSources = root.getAllChildNodes();
-        int size = eventSources.size();
-        for(int i = 0; i < size; i++)
+        XUINode node = index.getNodeByID(id);
+        if(node == null)
+            return null;
+        XUIComponent component = node.getXUIComponent();
+        if(component instanceof XUIEventSource)
+            return (XUIEventSource)component;
+
+        // ids should be unique but if not, check the other nodes sharing this id
+        List nodes = index.getNodesByID(id);
+        int size = nodes.size();
+        for(int i = 1; i < size; i++)
         {
-            XUINode node = (XUINode)eventSources.get(i);
-            XUIComponent component = node.getXUIComponent();
-            if(component != null)
-                if(component instanceof XUIEventSource)
-                    if(node.getAttributeID().equals(id))
-                        return (XUIEventSource)component;
+            component = ((XUINode)nodes.get(i)).getXUIComponent();
+            if(component instanceof XUIEventSource)
+                return (XUIEventSource)component;
         }
         return null;
     }
@@ -269,17 +338,9 @@ public class XUI
      */
     public XUIComponent getXUIComponent(String id)
     {
-        List components = root.getAllChildNodes();
-        int number = components.size();
-
-        for(int i = 0; i < number; i++)
-        {
-            XUINode node = (XUINode)components.get(i);
-            if(node.getAttributeID() != null)
-                if(node.getAttributeID().equals(id))
-                    return node.getXUIComponent();
-
-        }
+        XUINode node = index.getNodeByID(id);
+        if(node != null)
+            return node.getXUIComponent();
         return null;
     }
 
@@ -322,7 +383,86 @@ public class XUI
     public void visualize() throws XUIDisplayException
     {
         // call realizer to build the gui
-        Realizer.getInstance(this).realize();
+        getRealizer().realize();
+    }
+
+    /**
+     * <p>Sets whether the parts of the user interface that are not showing are built the first
+     * time they are needed rather than when the document is visualized. Off by default.</p>
+     *
+     * <p>When on, the components within a tab of a tabbed panel are built when the tab is first
+     * selected, and a dialog that is not visible is built when it is first shown. Until then,
+     * <code>getXUIComponent</code> still returns a component for them: looking up a component
+     * within a tab builds the tab, and a dialog is returned as a stand-in. The stand-in keeps the
+     * models added to it without building the dialog, and builds it when it is shown, when its
+     * peer is asked for or when a method needing its state is called. The stand-in remains the
+     * dialog's component afterwards and is what its models are handed. Components are built on
+     * the thread that first needs them, which should be the event dispatch thread.</p>
+     *
+     * @param lazy true to build parts that are not showing when they are first needed.
+     * @see #visualize()
+     */
+    public void setLazyRealization(boolean lazy)
+    {
+        lazyRealization = lazy;
+    }
+
+    /**
+     * Returns whether the parts of the user interface that are not showing are built the first
+     * time they are needed.
+     *
+     * @return true if lazy realization is on.
+     * @see #setLazyRealization(boolean)
+     */
+    public boolean isLazyRealization()
+    {
+        return lazyRealization;
+    }
+
+    /**
+     * Returns the realizer of this document, creating it the first time.
+     *
+     * @return the realizer of this document.
+     */
+    private synchronized Realizer getRealizer()
+    {
+        if(realizer == null)
+            realizer = Realizer.getInstance(this);
+        return realizer;
+    }
+
+    /**
+     * <p>Displays the GUI on the desktop without blocking the caller. The document is prepared
+     * on background threads, parsing deferred content and decoding images, and the user interface
+     * is then built and shown in one go on the event dispatch thread.</p>
+     *
+     * <p>The document must not be changed until the returned future is done.</p>
+     *
+     * @return a future whose value is this document once its windows are showing.
+     * @see #visualize()
+     */
+    public Future visualizeLater()
+    {
+        return visualizeLater(null);
+    }
+
+    /**
+     * <p>Displays the GUI on the desktop without blocking the caller. The document is prepared
+     * on background threads, parsing deferred content and decoding images, and the user interface
+     * is then built and shown in one go on the event dispatch thread.</p>
+     *
+     * <p>The document must not be changed until the returned future is done.</p>
+     *
+     * @param whenVisible run on the event dispatch thread once the windows are showing. May be
+     * null.
+     * @return a future whose value is this document once its windows are showing. If the user
+     * interface could not be displayed, <code>get</code> throws an <code>ExecutionException</code>
+     * whose cause is the <code>XUIDisplayException</code>.
+     * @see #visualize()
+     */
+    public Future visualizeLater(Runnable whenVisible)
+    {
+        return getRealizer().realizeLater(whenVisible);
     }
 
     /**
@@ -336,8 +476,13 @@ public class XUI
     public void marshalXUI(String fileName) throws FileNotFoundException, IOException
     {
         FileOutputStream fos = new FileOutputStream(fileName);
-        fos.write(root.toString().getBytes());
-        fos.flush();
+        try
+        {
+            marshal(fos);
+        } finally
+        {
+            fos.close();
+        }
     }
 
     /**
@@ -351,8 +496,13 @@ public class XUI
     public void marshalXUI(File fileName) throws FileNotFoundException, IOException
     {
         FileOutputStream fos = new FileOutputStream(fileName);
-        fos.write(root.toString().getBytes());
-        fos.flush();
+        try
+        {
+            marshal(fos);
+        } finally
+        {
+            fos.close();
+        }
     }
 
     /**
@@ -365,8 +515,128 @@ public class XUI
      */
     public void marshalXUI(FileOutputStream stream) throws IOException
     {
-        stream.write(root.toString().getBytes());
-        stream.flush();
+        marshal(stream);
+    }
+
+    /**
+     * Marshals the XUI DOM to the output stream specified. The document is written as UTF-8
+     * and the stream is flushed but not closed.
+     *
+     * @param stream the output stream to marshal to.
+     * @throws IOException if the stream cannot be written to.
+     */
+    public void marshalXUI(OutputStream stream) throws IOException
+    {
+        marshal(stream);
+    }
+
+    /**
+     * Marshals the XUI DOM to the writer specified. The writer is flushed but not closed.
+     *
+     * @param writer the writer to marshal to.
+     * @throws IOException if the writer cannot be written to.
+     */
+    public void marshalXUI(Writer writer) throws IOException
+    {
+        XUIMarshaller.marshal(root, writer);
+        writer.flush();
+    }
+
+    /**
+     * Marshals the XUI DOM to the file specified. The document is written as UTF-8.
+     *
+     * @param path the file to marshal to. Any existing file is replaced.
+     * @throws IOException if the file cannot be written.
+     */
+    public void marshalXUI(Path path) throws IOException
+    {
+        OutputStream out = Files.newOutputStream(path);
+        try
+        {
+            marshal(out);
+        } finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Marshals the XUI DOM to the channel specified. The document is written as UTF-8 and
+     * the channel is not closed.
+     *
+     * @param channel the channel to marshal to.
+     * @throws IOException if the channel cannot be written to.
+     */
+    public void marshalXUI(WritableByteChannel channel) throws IOException
+    {
+        marshal(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Marshals the XUI DOM to the output stream specified using the XUI binary format. The
+     * stream is flushed but not closed.
+     *
+     * @see org.purnamaproject.xui.impl.XUIBinaryReader
+     * @param stream the output stream to marshal to.
+     * @throws IOException if the stream cannot be written to.
+     */
+    public void marshalXUIBinary(OutputStream stream) throws IOException
+    {
+        XUIBinaryWriter.write(root, stream);
+    }
+
+    /**
+     * Marshals the XUI DOM to the file specified using the XUI binary format.
+     *
+     * @see org.purnamaproject.xui.impl.XUIBinaryReader
+     * @param path the file to marshal to. Any existing file is replaced.
+     * @throws IOException if the file cannot be written.
+     */
+    public void marshalXUIBinary(Path path) throws IOException
+    {
+        XUIBinaryWriter.write(root, path);
+    }
+
+    /**
+     * Marshals the XUI DOM to a stream as UTF-8, going through the marshal cache if
+     * incremental marshalling is turned on.
+     *
+     * @param out the stream to marshal to.
+     * @throws IOException if the stream cannot be written to.
+     */
+    private void marshal(OutputStream out) throws IOException
+    {
+        if(marshalCache != null)
+            marshalCache.marshal(root, out);
+        else
+            XUIMarshaller.marshal(root, out);
+    }
+
+    /**
+     * Turns incremental marshalling on or off. With it on, the bytes of the last marshal are
+     * kept in memory and the parts of the document that have not changed since are copied
+     * from them rather than being marshalled again. This is worthwhile for documents that are
+     * saved often. It applies to all of the <code>marshalXUI</code> methods except the one
+     * taking a <code>Writer</code>. Incremental marshalling is off by default.
+     *
+     * @param enabled true to keep the bytes of the last marshal around, false to drop them.
+     */
+    public void setIncrementalMarshalling(boolean enabled)
+    {
+        if(!enabled)
+            marshalCache = null;
+        else if(marshalCache == null)
+            marshalCache = new XUIMarshalCache();
+    }
+
+    /**
+     * Returns whether or not incremental marshalling is turned on.
+     *
+     * @return true if the bytes of the last marshal are being kept.
+     */
+    public boolean isIncrementalMarshalling()
+    {
+        return marshalCache != null;
     }
 
     /**
@@ -382,8 +652,13 @@ public class XUI
         IOException
     {
         FileOutputStream fos = new FileOutputStream(fileName.toString());
-        fos.write(root.toString().getBytes());
-        fos.flush();
+        try
+        {
+            marshal(fos);
+        } finally
+        {
+            fos.close();
+        }
     }
 
     /**
@@ -398,20 +673,23 @@ public class XUI
      * @param searchName the node name used to determine which nodes are required.
      * @return a <code>java.util.List</code> of nodes from the specified level.
      */
-    public List getNodesByName(String searchName)
+    public List getNodesByName(final String searchName)
     {
-        List levelView = new LinkedList();
-        List all = (List)root.getAllChildNodes();
-        all.add(root);
-        int number = all.size();
-        for(int i = 0; i < number; i++)
-        {
-            XUINode node = (XUINode)all.get(i);
-            if(node.getName().equals(searchName))
+        if(index.isNameAndLevelIndexing())
+            return index.getNodesByName(searchName);
+        final List levelView = new LinkedList();
+        // the root comes first, as it does in the index
+        if(root.getName().equals(searchName))
+            levelView.add(root);
+        root.visitAllChildNodes(new XUINodeVisitor()
             {
-                levelView.add(node);
-            }
-        }
+                public boolean visit(XUINode node)
+                {
+                    if(node.getName().equals(searchName))
+                        levelView.add(node);
+                    return true;
+                }
+        });
         return levelView;
     }
 
@@ -427,20 +705,23 @@ public class XUI
      * @param level the node level used to determine which nodes are required.
      * @return a <code>java.util.List</code> of nodes from the specified level.
      */
-    public List getNodesByLevel(int level)
+    public List getNodesByLevel(final int level)
     {
-        List levelView = new LinkedList();
-        List all = (List)root.getAllChildNodes();
-        all.add(root);
-        int number = all.size();
-        for(int i = 0; i < number; i++)
-        {
-            XUINode node = (XUINode)all.get(i);
-            if(node.getLevel() == level)
+        if(index.isNameAndLevelIndexing())
+            return index.getNodesByLevel(level);
+        final List levelView = new LinkedList();
+        // the root comes first, as it does in the index
+        if(root.getLevel() == level)
+            levelView.add(root);
+        root.visitAllChildNodes(new XUINodeVisitor()
             {
-                levelView.add(node);
-            }
-        }
+                public boolean visit(XUINode node)
+                {
+                    if(node.getLevel() == level)
+                        levelView.add(node);
+                    return true;
+                }
+        });
         return levelView;
     }
 
@@ -459,19 +740,7 @@ public class XUI
      */
     public List getNodeByID(String id)
     {
-        List levelView = new LinkedList();
-        List all = (LinkedList)root.getAllChildNodes();
-        all.add(root);
-        int number = all.size();
-        for(int i = 0; i < number; i++)
-        {
-            XUINode node = (XUINode)all.get(i);
-            if(node.getAttributeID().equals(id))
-            {
-                levelView.add(node);
-            }
-        }
-        return levelView;
+        return index.getNodesByID(id);
     }
 
     /**
@@ -497,20 +766,23 @@ public class XUI
      * @param level the element level used to determine which elements are required.
      * @return a <code>java.util.Vector</code> of elements from the specified level.
      */
-    public List getElementsByLevel(int level)
+    public List getElementsByLevel(final int level)
     {
-        List levelView = new LinkedList();
-        List all = (List)root.getAllChildNodes();
-        all.add(root);
-        int number = all.size();
-        for(int i = 0; i < number; i++)
-        {
-            XUINode node = (XUINode)all.get(i);
-            if(node.getLevel() == level)
+        if(index.isNameAndLevelIndexing())
+            return index.getNodesByLevel(level);
+        final List levelView = new LinkedList();
+        // the root comes first, as it does in the index
+        if(root.getLevel() == level)
+            levelView.add(root);
+        root.visitAllChildNodes(new XUINodeVisitor()
             {
-                levelView.add(node);
-            }
-        }
+                public boolean visit(XUINode node)
+                {
+                    if(node.getLevel() == level)
+                        levelView.add(node);
+                    return true;
+                }
+        });
         return levelView;
     }
 
@@ -34,10 +34,15 @@ package org.purnamaproject.xui;
  *
  */
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * The type responsible for parsing a XUI document. Any classes that implement this interface
@@ -53,11 +58,87 @@ import java.net.URL;
  * because it does not build a DOM. The W3C DOM would not be the best choice for this as it already builds
  * a DOM which may not be best suited for building a custom DOM structure in memory.
  *
+ * <p>The methods beyond parsing from a file name, <code>File</code> or <code>URL</code> have default
+ * implementations so that builders written against earlier versions of this interface still work.
+ * Those defaults only validate in full, do not parse lazily and pass documents held in memory on
+ * to <code>parse(InputStream, String)</code>, which by default is not supported.</p>
+ *
  * @version    0.1 18/08/2003
  * @author     Arron Ferguson
  */
 public interface XUIBuilder
 {
+    /**
+     * Validation mode where documents are validated against the XUI schema. This is the default.
+     */
+    public final static int VALIDATION_FULL = 0;
+
+    /**
+     * Validation mode where documents are only checked to be well formed, to have a XUI root
+     * element and to have all of their elements in the XUI namespace.
+     */
+    public final static int VALIDATION_STRUCTURAL = 1;
+
+    /**
+     * Validation mode where documents are only checked to be well formed. Meant for trusted
+     * documents only.
+     */
+    public final static int VALIDATION_NONE = 2;
+
+    /**
+     * Sets how thoroughly documents are checked as they are parsed.
+     *
+     * @param mode one of <code>VALIDATION_FULL</code>, <code>VALIDATION_STRUCTURAL</code> or
+     * <code>VALIDATION_NONE</code>.
+     * @throws IllegalArgumentException if the mode is not one of the above.
+     * @throws UnsupportedOperationException if the builder does not support the mode.
+     */
+    public default void setValidationMode(int mode)
+    {
+        if(mode != VALIDATION_FULL && mode != VALIDATION_STRUCTURAL && mode != VALIDATION_NONE)
+            throw new IllegalArgumentException("Unknown validation mode: " + mode);
+        if(mode != VALIDATION_FULL)
+            throw new UnsupportedOperationException(getClass().getName() + " only validates in full");
+    }
+
+    /**
+     * Returns how thoroughly documents are checked as they are parsed.
+     *
+     * @return the validation mode.
+     */
+    public default int getValidationMode()
+    {
+        return VALIDATION_FULL;
+    }
+
+    /**
+     * Turns lazy parsing on or off. With lazy parsing on, the content of custom dialogs, tables,
+     * trees and windows that are not visible is not built into nodes. Only where the content lies
+     * within the document is kept, and the content is parsed the first time it is asked for.
+     * Documents are still checked in full according to the validation mode. Lazy parsing only
+     * applies to documents parsed from a file name, <code>File</code>, <code>URL</code> or
+     * <code>Path</code> since the document must be read again later. It is off by default.
+     *
+     * @param lazy true to parse lazily, false otherwise.
+     * @throws UnsupportedOperationException if lazy parsing is asked for and the builder does not
+     * support it.
+     */
+    public default void setLazyParsing(boolean lazy)
+    {
+        if(lazy)
+            throw new UnsupportedOperationException(getClass().getName() + " does not parse lazily");
+    }
+
+    /**
+     * Returns whether or not documents are parsed lazily.
+     *
+     * @return true if documents are parsed lazily.
+     */
+    public default boolean isLazyParsing()
+    {
+        return false;
+    }
+
     /**
      * Returns the XUI document object which represents the document itself
      * with all of its nodes. If the document has not been completely built
@@ -107,4 +188,129 @@ public interface XUIBuilder
      */
     public void parse(URL fileName) throws XUIParseException;
 
+    /**
+     * Parses a document from an input stream. The stream is read to the end but not closed.
+     *
+     * @param in the stream to parse.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(InputStream in) throws XUIParseException
+    {
+        parse(in, null);
+    }
+
+    /**
+     * Parses a document from an input stream. The stream is read to the end but not closed.
+     *
+     * @param in the stream to parse.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     * @throws UnsupportedOperationException if the builder does not parse from streams.
+     */
+    public default void parse(InputStream in, String systemId) throws XUIParseException
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " does not parse from streams");
+    }
+
+    /**
+     * Parses a document from a reader. The reader is read to the end but not closed.
+     *
+     * @param in the reader to parse.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(Reader in) throws XUIParseException
+    {
+        parse(in, null);
+    }
+
+    /**
+     * Parses a document from a reader. The reader is read to the end but not closed.
+     *
+     * @param in the reader to parse.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     * @throws UnsupportedOperationException if the builder does not parse from readers.
+     */
+    public default void parse(Reader in, String systemId) throws XUIParseException
+    {
+        throw new UnsupportedOperationException(getClass().getName() + " does not parse from readers");
+    }
+
+    /**
+     * Parses a document from memory.
+     *
+     * @param data the bytes of the document.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(byte[] data) throws XUIParseException
+    {
+        parse(data, null);
+    }
+
+    /**
+     * Parses a document from a buffer, from its position up to its limit. The position of the buffer
+     * is left unchanged.
+     *
+     * @param data the buffer holding the document.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(ByteBuffer data) throws XUIParseException
+    {
+        parse(data, null);
+    }
+
+    /**
+     * Parses a document from memory.
+     *
+     * @param data the bytes of the document.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(byte[] data, String systemId) throws XUIParseException
+    {
+        parse(new ByteArrayInputStream(data), systemId);
+    }
+
+    /**
+     * Parses a document from a buffer, from its position up to its limit. The position of the buffer
+     * is left unchanged.
+     *
+     * @param data the buffer holding the document.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(ByteBuffer data, String systemId) throws XUIParseException
+    {
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        parse(bytes, systemId);
+    }
+
+    /**
+     * Parses a document from a file. Large files are mapped into memory rather than read through
+     * buffers on the Java heap.
+     *
+     * @param path the file to parse.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public default void parse(Path path) throws XUIParseException
+    {
+        try
+        {
+            parse(path.toUri().toURL());
+        } catch(MalformedURLException mue)
+        {
+            throw new XUIParseException(mue.getMessage());
+        }
+    }
+
 }
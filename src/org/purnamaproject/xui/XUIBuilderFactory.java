@@ -67,7 +67,7 @@ public class XUIBuilderFactory
      *
      * @return a handle to the XUIBuilderFactory.
      */
-    public static XUIBuilderFactory getInstance()
+    public static synchronized XUIBuilderFactory getInstance()
     {
         if(xuibuilderfactory == null)
             xuibuilderfactory = new XUIBuilderFactory();
@@ -0,0 +1,188 @@
+package org.purnamaproject.xui;
+
+/**
+ * @(#)XUIBuilderService.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads XUI documents concurrently. Documents are parsed on a fixed pool of threads and each
+ * thread keeps its own XUIBuilder, so the parser and validator a thread sets up are reused
+ * for every document it loads. The schema itself is shared by all of the threads.
+ *
+ * <p>The threads of the service are daemon threads so an application does not have to shut
+ * the service down before exiting, but <code>shutdown</code> should be called once the service
+ * is no longer needed.</p>
+ *
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIBuilderService
+{
+    /**
+     * The threads the documents are parsed on.
+     */
+    private ExecutorService executor;
+
+    /**
+     * The builder belonging to each thread of the service.
+     */
+    private ThreadLocal builders;
+
+    /**
+     * How thoroughly documents are checked as they are parsed.
+     */
+    private volatile int validationMode = XUIBuilder.VALIDATION_FULL;
+
+    /**
+     * Creates a service with one thread for each processor available to the JVM.
+     */
+    public XUIBuilderService()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a service with the given number of threads.
+     *
+     * @param threads the number of documents that may be parsed at once.
+     * @throws IllegalArgumentException if the number of threads is less than one.
+     */
+    public XUIBuilderService(int threads)
+    {
+        if(threads < 1)
+            throw new IllegalArgumentException("A XUIBuilderService needs at least one thread");
+        builders = new ThreadLocal()
+        {
+            protected Object initialValue()
+            {
+                return XUIBuilderFactory.getInstance().getXUIBuilder();
+            }
+        };
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private int count = 0;
+
+            public synchronized Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "XUIBuilderService-" + count++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Sets how thoroughly documents are checked as they are parsed. The mode applies to
+     * documents parsed after it has been set.
+     *
+     * @param mode one of <code>XUIBuilder.VALIDATION_FULL</code>,
+     * <code>XUIBuilder.VALIDATION_STRUCTURAL</code> or <code>XUIBuilder.VALIDATION_NONE</code>.
+     * @throws IllegalArgumentException if the mode is not one of the above.
+     */
+    public void setValidationMode(int mode)
+    {
+        if(mode != XUIBuilder.VALIDATION_FULL && mode != XUIBuilder.VALIDATION_STRUCTURAL
+            && mode != XUIBuilder.VALIDATION_NONE)
+            throw new IllegalArgumentException("Unknown validation mode: " + mode);
+        validationMode = mode;
+    }
+
+    /**
+     * Returns how thoroughly documents are checked as they are parsed.
+     *
+     * @return the validation mode.
+     */
+    public int getValidationMode()
+    {
+        return validationMode;
+    }
+
+    /**
+     * Parses a document on one of the threads of this service.
+     *
+     * @param path the path of the document.
+     * @return a future whose value is the <code>XUI</code> document. If the document could not
+     * be parsed, <code>get</code> throws an <code>ExecutionException</code> whose cause is the
+     * <code>XUIParseException</code>.
+     */
+    public Future parse(final Path path)
+    {
+        return executor.submit(new Callable()
+        {
+            public Object call() throws XUIParseException
+            {
+                XUIBuilder builder = (XUIBuilder)builders.get();
+                builder.setValidationMode(validationMode);
+                builder.parse(path);
+                return builder.getXUIDocument();
+            }
+        });
+    }
+
+    /**
+     * Parses many documents at once on the threads of this service.
+     *
+     * @param paths the paths of the documents, given as <code>Path</code> objects.
+     * @return a list of futures whose values are the <code>XUI</code> documents, in the same
+     * order as the paths.
+     */
+    public List parseAll(Collection paths)
+    {
+        List futures = new ArrayList(paths.size());
+        Iterator it = paths.iterator();
+        while(it.hasNext())
+            futures.add(parse((Path)it.next()));
+        return futures;
+    }
+
+    /**
+     * Stops the service. Documents already handed to the service are still parsed but no
+     * new ones are accepted.
+     */
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+}
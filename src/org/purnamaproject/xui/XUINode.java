@@ -165,6 +165,27 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public List getAllChildNodes();
 
+    /**
+     * Visits all direct and indirect child nodes depth first, in the same order as they would
+     * appear in the list returned by {@link #getAllChildNodes()}. The tree is walked in place,
+     * no list of the nodes is built. The visitor may stop the traversal early by returning
+     * false.
+     *
+     * @param visitor the visitor that is handed each node in turn.
+     * @return the node at which the visitor stopped the traversal or null if every node was
+     * visited.
+     */
+    public XUINode visitAllChildNodes(XUINodeVisitor visitor);
+
+    /**
+     * Searches the direct and indirect child nodes for the first node that has the given id
+     * attribute value. The search stops as soon as a node is found.
+     *
+     * @param id the value of the id attribute to search for.
+     * @return the node found or null if no child node has that id.
+     */
+    public XUINode getChildNodeByID(String id);
+
     /**
      * Returns a list of child nodes based on a particular element name.
      *
@@ -186,7 +207,9 @@ import org.purnamaproject.xui.component.XUIComponent;
     public void deleteChildren();
 
     /**
-     * Returns the namespaces of this node as a hashtable.
+     * Returns the namespaces of this node as a hashtable, using the URI as the key. The table
+     * may be shared with other nodes and cannot be modified, use <code>addNamespace</code> to
+     * add a namespace to this node.
      *
      * @return the namespace of this node.
      */
@@ -252,6 +275,26 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public String getAttributeValue(String attributeName);
 
+    /**
+     * Returns the value of an attribute as an integer. The value is parsed once and kept
+     * until the attribute changes.
+     *
+     * @param attributeName the name of the attribute to use to retrieve its value.
+     * @return the value of the attribute as an integer.
+     * @throws NumberFormatException if the attribute does not exist or is not an integer.
+     */
+    public int getAttributeIntValue(String attributeName);
+
+    /**
+     * Returns the value of an attribute as a boolean. The value is parsed once and kept
+     * until the attribute changes.
+     *
+     * @param attributeName the name of the attribute to use to retrieve its value.
+     * @return true if the attribute's value is "true", false otherwise or if the attribute
+     * does not exist.
+     */
+    public boolean getAttributeBooleanValue(String attributeName);
+
     /**
      * Sets the attributes for this node. If attributes is null, then no change is made.
      *
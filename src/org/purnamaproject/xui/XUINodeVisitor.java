@@ -0,0 +1,60 @@
+package org.purnamaproject.xui;
+
+/**
+ * @(#)XUINodeVisitor.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+/**
+ * A visitor that is handed each node of a XUI document tree in turn. Used with
+ * {@link XUINode#visitAllChildNodes(XUINodeVisitor)} to walk the tree in place rather than
+ * building a flattened list of the nodes first.
+ *
+ * <p>The tree must not be structurally changed (nodes added or removed) while it is being
+ * visited. If nodes need to be removed, find them first and remove them once the visit
+ * has finished.</p>
+ *
+ * @see org.purnamaproject.xui.XUINode#visitAllChildNodes(XUINodeVisitor)
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public interface XUINodeVisitor
+{
+    /**
+     * Called once for each node visited.
+     *
+     * @param node the node being visited.
+     * @return true to carry on visiting the remaining nodes, false to stop the traversal at
+     * this node.
+     */
+    public boolean visit(XUINode node);
+}
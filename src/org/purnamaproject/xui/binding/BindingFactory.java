@@ -34,19 +34,17 @@ package org.purnamaproject.xui.binding;
  *
  */
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.InputStream;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.Enumeration;
+import java.util.Hashtable;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.StringTokenizer;
 import org.purnamaproject.xui.XUINode;
 import org.purnamaproject.xui.XUI;
 
@@ -73,6 +71,11 @@ public class BindingFactory
 
     private static BindingFactory bindingfactory = null;
 
+    /**
+     * The jar files bound to so far, by the URL of the jar file.
+     */
+    private Hashtable bindings = new Hashtable();
+
     /**
      * Default constructor.
      */
@@ -86,20 +89,49 @@ public class BindingFactory
      *
      * @return BindingFactory.
      */
-    public static BindingFactory getInstance()
+    public static synchronized BindingFactory getInstance()
     {
         if(bindingfactory == null)
             bindingfactory = new BindingFactory();
         return bindingfactory;
     }
 
+    /**
+     * Forgets the jar file at the uri and closes it, so that the next binding to it reads it again
+     * and the file is no longer held open. Models already bound to it carry on using the classes
+     * they have loaded, but classes of theirs that have not been loaded yet can no longer be found.
+     *
+     * @param uri the uri of the jar file, as given in the resource element.
+     * @throws MalformedURLException if the URL is malformed.
+     */
+    public synchronized void invalidateBinding(String uri) throws MalformedURLException
+    {
+        Binding binding = (Binding)bindings.remove(getJarURL(uri).toString());
+        if(binding != null)
+            binding.close();
+    }
+
+    /**
+     * Forgets all jar files bound to so far and closes them, so that the next binding to each reads
+     * it again. Models already bound carry on using the classes they have loaded, but classes of
+     * theirs that have not been loaded yet can no longer be found.
+     */
+    public synchronized void invalidateBindings()
+    {
+        Enumeration e = bindings.elements();
+        while(e.hasMoreElements())
+            ((Binding)e.nextElement()).close();
+        bindings.clear();
+    }
+
     /**
      * Accepts the node that is contains the resource.
      *
      * @param resource the XUINode that contains the resource information (uri, type).
      * @param xui the reference to the XUI document. This is required for linking to the event handling.
      * @throws XUIBindingException if the binding could not take place. (i.e. the resource does not conform to
-     * the API requirement of having a class that answers to the name of 'Model').
+     * the API requirement of having a class that answers to the name of 'Model', or the model could not be
+     * created or initialised).
      * @throws MalformedURLException if the URL is malformed.
      * @throws IOException if there is a network error, the file is not found or there is a security restriction
      * placed on the access to the file.
@@ -110,143 +142,193 @@ public class BindingFactory
         {
             String className = resource.getAttributeValue("class");
             String aURLString = resource.getAttributeValue("uri");
-            URL url = null;
-            // get the url ... if it's not a valid URL, then try and grab
-            // it as a relative URL (i.e. java.io.File). If that fails
-            // re-throw the exception, it's toast
+            // the jar file, its class loader and its images are shared by every binding to it
+            XUIClassLoader xuiLoader = getBinding(getJarURL(aURLString)).loader;
+
+            // the class that will be the entry point into the model. The name may be given with
+            // periods or slashes between packages.
+            String nameOfClassToLoad = className.replace('/', '.');
+            if(nameOfClassToLoad.endsWith(".class"))
+                nameOfClassToLoad = nameOfClassToLoad.substring(0, nameOfClassToLoad.length() - 6);
+            Class modelClass = null;
             try
             {
-                url = new URL("jar:" + aURLString + "!/");
-
-            } catch (MalformedURLException mue)
+                modelClass = Class.forName(nameOfClassToLoad, false, xuiLoader);
+            } catch(ClassNotFoundException cnfe)
+            {
+                throw new XUIBindingException("The model class " + className + " could not be found in "
+                    + aURLString);
+            } catch(LinkageError le)
             {
-                // total schmozzle but it works
-                String s = "jar:file://" + new File(aURLString)
-                    .getAbsolutePath().replace("\\", "/") + "!/";
-                url = new URL(s);
-
-                if(url == null)
-                {
-                    // it really was malformed after all
-                    throw new
-                        MalformedURLException("Couldn't bind to: "
-                        + aURLString);
-                }
+                throw new XUIBindingException("The model class " + className + " could not be loaded: "
+                    + le.getMessage());
             }
 
-            // get a jar connection
-            JarURLConnection jarConnection = (JarURLConnection)url.openConnection();
-            // get the jar file
-            JarFile jarFile = jarConnection.getJarFile();
-            // jar files have entries. Cycle through the entries until we find the class that we are looking for.
-            Enumeration entries = jarFile.entries();
+            // create the model, tie its handlers to the components and call its init method. What
+            // is needed of the model class is only looked up the first time it is bound.
+            XUIModelBinder.getBinder(modelClass).bind(xui);
 
-            // the class that will be the entry point into the model
-            JarEntry modelClassEntry = null;
-            Class modelClass = null;
+        } else
+        {
+            throw new XUIBindingException("This platform/API requires Java libraries.");
+        }
+    }
 
-            XUIClassLoader xuiLoader = new XUIClassLoader(this.getClass().getClassLoader());
+    /**
+     * Returns the jar URL of the uri given in a resource element.
+     *
+     * @param aURLString the uri of the jar file. May be a URL or a file path.
+     * @return the jar URL of the root of the jar file.
+     * @throws MalformedURLException if the URL is malformed.
+     */
+    private URL getJarURL(String aURLString) throws MalformedURLException
+    {
+        // get the url ... if it's not a valid URL, then try and grab
+        // it as a relative URL (i.e. java.io.File). If that fails
+        // re-throw the exception, it's toast
+        try
+        {
+            return new URL("jar:" + aURLString + "!/");
+
+        } catch (MalformedURLException mue)
+        {
+            // total schmozzle but it works
+            String s = "jar:file://" + new File(aURLString)
+                .getAbsolutePath().replace("\\", "/") + "!/";
+            return new URL(s);
+        }
+    }
 
-            while(entries.hasMoreElements())
+    /**
+     * Returns the binding to a jar file. The jar file is opened, and its images added as resources,
+     * the first time it is bound to and again whenever it has been modified since. The jar file it
+     * replaces is then closed.
+     *
+     * @param url the jar URL of the jar file.
+     * @return the binding.
+     * @throws IOException if there is a network error, the file is not found or there is a security
+     * restriction placed on the access to the file.
+     */
+    private synchronized Binding getBinding(URL url) throws IOException
+    {
+        // get a jar connection. Nothing is read until the jar file is asked for.
+        JarURLConnection jarConnection = (JarURLConnection)url.openConnection();
+        long lastModified = getLastModified(jarConnection.getJarFileURL());
+        String key = url.toString();
+
+        Binding binding = (Binding)bindings.get(key);
+        if(binding != null && binding.lastModified == lastModified)
+            return binding;
+
+        // a jar file of our own, rather than one shared with others that may be out of date
+        jarConnection.setUseCaches(false);
+        JarFile jarFile = jarConnection.getJarFile();
+        Binding replaced = binding;
+        binding = new Binding(lastModified, jarFile, new XUIClassLoader(jarFile, this.getClass().getClassLoader()));
+
+        // jar files have entries. Cycle through them for the images, which are resources.
+        Enumeration entries = jarFile.entries();
+        while(entries.hasMoreElements())
+        {
+            JarEntry entry = (JarEntry)entries.nextElement();
+            String imageNameLowerCase = entry.getName().toLowerCase();
+            if(imageNameLowerCase.endsWith(".jpeg") || imageNameLowerCase.endsWith(".jpg") ||
+                imageNameLowerCase.endsWith(".gif") || imageNameLowerCase.endsWith(".png"))
             {
-                JarEntry remoteClass = (JarEntry)entries.nextElement();
-
-                // load the classes
-                if(remoteClass.getName().endsWith(".class"))
-                {
-                    // have to get the second last word between period marks. This is
-                    // because the convention allows for org.purnamaproject.xui.XUI
-                    // that is, the periods can represent packages.
-
-                    StringTokenizer st = new StringTokenizer(remoteClass.getName(), ".");
-                    String previousToken = st.nextToken();
-                    String currentToken = "";
-                    String nameOfClassToLoad = previousToken;
-
-                    while(st.hasMoreTokens())
-                    {
-                        currentToken = st.nextToken();
-                        if(currentToken.equals("class"))
-                            nameOfClassToLoad = previousToken;
-                        else
-                        {
-                            nameOfClassToLoad += currentToken;
-                        }
-                    }
-
-                    // get an ouput stream (byte based) attach it to the inputstream
-                    // from the jar file based on the jar entry.
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    InputStream is = jarFile.getInputStream(remoteClass);
-                    final byte[] bytes = new byte[1024];
-                    int read = 0;
-                    while ((read = is.read(bytes)) >= 0)
-                    {
-                        baos.write(bytes, 0, read);
-                    }
-
-                    Class c = xuiLoader.getXUIClass(nameOfClassToLoad, baos);
-
-                    // check for the class that has the init method.
-
-                    if(remoteClass.getName().equals(className + ".class"))
-                    {
-
-                        modelClassEntry = remoteClass;
-                        modelClass = c;
-                    }
-
-                } else
-                {
-
-                    String imageNameLowerCase = remoteClass.getName().toLowerCase();
-                    if(imageNameLowerCase.endsWith(".jpeg") || imageNameLowerCase.endsWith(".jpg") ||
-                        imageNameLowerCase.endsWith(".gif") || imageNameLowerCase.endsWith(".png"))
-                    {
-
-                        // add resources (images)
-                        XUIResources.getInstance().addResource(remoteClass, jarFile);
-                    }
-                }
 
+                // add resources (images)
+                XUIResources.getInstance().addResource(entry, jarFile);
             }
+        }
 
-            // now instantiate the model.
+        bindings.put(key, binding);
+        if(replaced != null)
+            replaced.close();
+        return binding;
+    }
+
+    /**
+     * Returns when a file was last modified.
+     *
+     * @param fileURL the URL of the file.
+     * @return the time the file was last modified, or 0 if it is not known.
+     * @throws IOException if there is a network error.
+     */
+    private static long getLastModified(URL fileURL) throws IOException
+    {
+        if(fileURL.getProtocol().equals("file"))
+        {
             try
             {
-                // create a new instance of this class
-                Object o = modelClass.newInstance();
-                // get the method called 'init'. Again this is part of the API requirement
-                Method m = modelClass.getMethod("init", new Class[] {XUI.class});
-                // at last, call the method up.
-                m.invoke(o, new Object[] {xui});
-
-            } catch(InstantiationException ie)
+                return new File(fileURL.toURI()).lastModified();
+            } catch(Exception e)
             {
+                return new File(fileURL.getPath()).lastModified();
+            }
+        }
+        URLConnection connection = fileURL.openConnection();
+        if(!(connection instanceof HttpURLConnection))
+            return connection.getLastModified();
 
-                ie.printStackTrace();
-
-            } catch(IllegalAccessException iae)
-            {
+        HttpURLConnection httpConnection = (HttpURLConnection)connection;
+        try
+        {
+            httpConnection.setRequestMethod("HEAD");
+            return httpConnection.getLastModified();
+        } finally
+        {
+            httpConnection.disconnect();
+        }
+    }
 
-                iae.printStackTrace();
+    /**
+     * A jar file that has been bound to. The jar file is kept open for the class loader of its
+     * classes until the binding is closed.
+     */
+    private static class Binding
+    {
+        /**
+         * The time the jar file was last modified when it was opened.
+         */
+        private long lastModified;
+
+        /**
+         * The jar file.
+         */
+        private JarFile jarFile;
+
+        /**
+         * The class loader of the classes within the jar file.
+         */
+        private XUIClassLoader loader;
+
+        /**
+         * Creates the binding.
+         *
+         * @param lastModified the time the jar file was last modified.
+         * @param jarFile the jar file.
+         * @param loader the class loader of the classes within the jar file.
+         */
+        Binding(long lastModified, JarFile jarFile, XUIClassLoader loader)
+        {
+            this.lastModified = lastModified;
+            this.jarFile = jarFile;
+            this.loader = loader;
+        }
 
-            } catch(NoSuchMethodException nsm)
+        /**
+         * Closes the jar file. Classes not loaded from it by then can no longer be found.
+         */
+        void close()
+        {
+            try
             {
-
-                nsm.printStackTrace();
-
-            } catch(InvocationTargetException ite)
+                jarFile.close();
+            } catch(IOException ioe)
             {
-                System.out.println(ite.getTargetException());
-                ite.printStackTrace();
+                // nothing more can be done with it
             }
-
-        } else
-        {
-            throw new XUIBindingException("This platform/API requires Java libraries.");
         }
     }
 
-
 }
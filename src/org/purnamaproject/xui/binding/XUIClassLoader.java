@@ -35,17 +35,37 @@ package org.purnamaproject.xui.binding;
  */
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
- * Uses as a class loader that accepts classes as a stream of bytes within an array.
- * This allows streams from sockets to retreive the actual class file and ultimately,
- * to load classes from remote sites.
+ * <p>The class loader of the classes of a model. Classes are found within the jar file of the model
+ * and are only read and defined the first time they are used, so the cost of binding to a model
+ * depends on the classes it uses rather than on the size of its jar file. As usual, classes are
+ * looked for in the parent class loader first.</p>
+ *
+ * <p>The loader is parallel capable: classes of different names may be loaded by several threads
+ * at once.</p>
+ *
+ * <p>Classes may also be handed over as a stream of bytes within an array. This allows streams from
+ * sockets to retreive the actual class file and ultimately, to load classes from remote sites.</p>
  *
  * @version    0.1 18/08/2003
  * @author     Arron Ferguson
  */
 public class XUIClassLoader extends ClassLoader
 {
+    static
+    {
+        registerAsParallelCapable();
+    }
+
+    /**
+     * The jar file the classes are found in, or null if classes are only handed over as bytes.
+     */
+    private JarFile jarFile = null;
 
     /**
      * Creates an instance of the XUIClassLoader and accepts the base class loader.
@@ -57,6 +77,18 @@ public class XUIClassLoader extends ClassLoader
         super(loader);
     }
 
+    /**
+     * Creates an instance of the XUIClassLoader that finds classes within a jar file.
+     *
+     * @param jarFile the jar file of the model. It must stay open while classes are loaded.
+     * @param loader the class loader parent.
+     */
+    public XUIClassLoader(JarFile jarFile, ClassLoader loader)
+    {
+        super(loader);
+        this.jarFile = jarFile;
+    }
+
     /**
      * Returns the XUI class that is being used for the model portion of the program.
      *
@@ -69,4 +101,58 @@ public class XUIClassLoader extends ClassLoader
     {
         return defineClass(className, baos.toByteArray(), 0, baos.size());
     }
+
+    /**
+     * Finds a class within the jar file and defines it. Called the first time the class is used
+     * and the parent class loader does not know of it.
+     *
+     * @param name the binary name of the class (e.g. <code>org.example.Model</code>).
+     * @return the class.
+     * @throws ClassNotFoundException if the jar file does not have the class or it cannot be read.
+     */
+    protected Class findClass(String name) throws ClassNotFoundException
+    {
+        if(jarFile == null)
+            throw new ClassNotFoundException(name);
+
+        JarEntry entry = jarFile.getJarEntry(name.replace('.', '/') + ".class");
+        if(entry == null)
+            throw new ClassNotFoundException(name);
+
+        byte[] bytes;
+        int length;
+        try
+        {
+            InputStream is = jarFile.getInputStream(entry);
+            try
+            {
+                // the size of the entry is usually known so the class is read in one go
+                long size = entry.getSize();
+                bytes = new byte[size >= 0 && size < Integer.MAX_VALUE ? (int)size : 8192];
+                length = 0;
+                int read = 0;
+                while((read = is.read(bytes, length, bytes.length - length)) >= 0)
+                {
+                    length += read;
+                    if(length == bytes.length)
+                    {
+                        int next = is.read();
+                        if(next < 0)
+                            break;
+                        byte[] larger = new byte[bytes.length * 2];
+                        System.arraycopy(bytes, 0, larger, 0, length);
+                        bytes = larger;
+                        bytes[length++] = (byte)next;
+                    }
+                }
+            } finally
+            {
+                is.close();
+            }
+        } catch(IOException ioe)
+        {
+            throw new ClassNotFoundException(name, ioe);
+        }
+        return defineClass(name, bytes, 0, length);
+    }
 }
@@ -0,0 +1,136 @@
+package org.purnamaproject.xui.binding;
+
+/**
+ * @(#)XUIHandler.java    0.1 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Marks a method of a model as the handler of an event of one or more components. When the model
+ * is bound, the method is tied to the components of the given ids so that the model need not look the
+ * components up and listen to them itself within its init method. A model with handler methods may leave
+ * out the init method altogether.</p>
+ *
+ * <p>The handler is called with the same arguments as the method of the model interface for the event,
+ * or with as many of the first of them as it takes. The following handles the closing of a window and
+ * the pressing of two buttons:</p>
+ *
+ * <pre>
+ *  &#64;XUIHandler(id = "window_0", event = XUIHandler.WINDOW)
+ *  public void close()
+ *  {
+ *      System.exit(0);
+ *  }
+ *
+ *  &#64;XUIHandler(id = {"button_0", "button_1"})
+ *  public void pressed(XUIButton button)
+ *  {
+ *      ...
+ *  }
+ * </pre>
+ *
+ * <p>Handler methods may be of any access and may be static. They are looked up once for each model class
+ * and are called without reflection when an event occurs.</p>
+ *
+ * @version    0.1 18/08/2003
+ * @author     Arron Ferguson
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface XUIHandler
+{
+    /**
+     * A component has been chosen. The handler takes the arguments of <code>ActionModel.action</code>.
+     */
+    public static final String ACTION = "action";
+
+    /**
+     * The text of a component has changed. The handler takes the arguments of
+     * <code>TextModel.textAction</code>.
+     */
+    public static final String TEXT = "text";
+
+    /**
+     * An item of a list has been chosen, edited or deleted. The handler takes the arguments of
+     * <code>ListActionModel.listAction</code>.
+     */
+    public static final String LIST = "list";
+
+    /**
+     * A table cell is being edited. The handler takes the arguments of
+     * <code>XUITableModel.tableCellEditingAction</code>.
+     */
+    public static final String TABLE_CELL_EDITING = "tableCellEditing";
+
+    /**
+     * A table cell has been selected. The handler takes the arguments of
+     * <code>XUITableModel.tableCellSelectedAction</code>.
+     */
+    public static final String TABLE_CELL_SELECTED = "tableCellSelected";
+
+    /**
+     * A table cell has been edited. The handler takes the arguments of
+     * <code>XUITableModel.tableCellEditedAction</code>.
+     */
+    public static final String TABLE_CELL_EDITED = "tableCellEdited";
+
+    /**
+     * A node of a tree has been chosen. The handler takes the arguments of
+     * <code>XUITreeModel.treeAction</code>.
+     */
+    public static final String TREE = "tree";
+
+    /**
+     * A window or dialog is closing. The handler takes the arguments of
+     * <code>WindowModel.windowAction</code>.
+     */
+    public static final String WINDOW = "window";
+
+    /**
+     * The ids of the components whose events are handled.
+     *
+     * @return the ids of the components.
+     */
+    String[] id();
+
+    /**
+     * The event that is handled. One of the constants of this type.
+     *
+     * @return the event.
+     */
+    String event() default ACTION;
+}
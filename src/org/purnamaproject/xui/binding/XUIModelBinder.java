@@ -0,0 +1,754 @@
+package org.purnamaproject.xui.binding;
+
+/**
+ * @(#)XUIModelBinder.java    0.1 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.component.XUIComponent;
+import org.purnamaproject.xui.component.atomic.XUIButton;
+import org.purnamaproject.xui.component.atomic.XUIComboBox;
+import org.purnamaproject.xui.component.atomic.XUIList;
+import org.purnamaproject.xui.component.atomic.XUISliderBar;
+import org.purnamaproject.xui.component.atomic.XUITable;
+import org.purnamaproject.xui.component.atomic.XUITextField;
+import org.purnamaproject.xui.component.atomic.XUITree;
+import org.purnamaproject.xui.component.atomic.XUITreeNode;
+import org.purnamaproject.xui.component.composite.XUIHypertextPane;
+import org.purnamaproject.xui.component.container.toplevel.XUIOpenFileDialog;
+import org.purnamaproject.xui.component.container.toplevel.XUISaveFileDialog;
+import org.purnamaproject.xui.component.container.toplevel.XUIWindow;
+import org.purnamaproject.xui.component.menu.XUIMenuItem;
+
+/**
+ * <p>Creates the models of a model class and binds them to a XUI document. The constructor, the init
+ * method and the handler methods of the class are looked up once, the first time the class is bound,
+ * and kept as method handles. Each handler method is tied to its components through a listener that
+ * calls the method handle directly, so the handling of an event costs about the same as a model that
+ * implements the model interface itself.</p>
+ *
+ * @see XUIHandler
+ * @version    0.1 18/08/2003
+ * @author     Arron Ferguson
+ */
+final class XUIModelBinder
+{
+    /**
+     * The events a handler may handle.
+     */
+    private static final String[] EVENTS = {XUIHandler.ACTION, XUIHandler.TEXT, XUIHandler.LIST,
+        XUIHandler.TABLE_CELL_EDITING, XUIHandler.TABLE_CELL_SELECTED, XUIHandler.TABLE_CELL_EDITED,
+        XUIHandler.TREE, XUIHandler.WINDOW};
+
+    /**
+     * The type of the method handle of a handler of each event. The model comes first, followed by
+     * the arguments of the method of the model interface.
+     */
+    private static final MethodType[] EVENT_TYPES = {
+        MethodType.methodType(void.class, Object.class, XUIComponent.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class, byte.class, int.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class, int.class, int.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class, int.class, int.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class, int.class, int.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class, XUITreeNode.class),
+        MethodType.methodType(void.class, Object.class, XUIComponent.class)};
+
+    /**
+     * The listener that is used for each event, as an index into the listeners of a component.
+     */
+    private static final int[] LISTENERS = {0, 1, 2, 3, 3, 3, 4, 5};
+
+    /**
+     * The number of kinds of listener.
+     */
+    private static final int NUMBER_OF_LISTENERS = 6;
+
+    /**
+     * The components of the API that generate events. Each only takes the kind of listener given
+     * for it in <code>SOURCE_LISTENERS</code> and ignores any other.
+     */
+    private static final Class[] SOURCES = {XUIButton.class, XUIComboBox.class, XUIMenuItem.class,
+        XUISliderBar.class, XUIOpenFileDialog.class, XUISaveFileDialog.class, XUITextField.class,
+        XUIHypertextPane.class, XUIList.class, XUITable.class, XUITree.class, XUIWindow.class};
+
+    /**
+     * The kind of listener each of the components takes, as an index into the listeners of a
+     * component.
+     */
+    private static final int[] SOURCE_LISTENERS = {0, 0, 0, 0, 0, 0, 1, 1, 2, 3, 4, 5};
+
+    /**
+     * The binder of each model class, or the reason it cannot be bound. Held for as long as the
+     * class is, so that the classes of a jar that is bound to again can be let go of.
+     */
+    private static final ClassValue binders = new ClassValue()
+        {
+            protected Object computeValue(Class type)
+            {
+                try
+                {
+                    return new XUIModelBinder(type);
+                } catch(XUIBindingException xbe)
+                {
+                    return xbe.getMessage();
+                }
+            }
+    };
+
+    /**
+     * The name of the model class.
+     */
+    private String className;
+
+    /**
+     * Creates a model. Takes no arguments and returns the model.
+     */
+    private MethodHandle constructor;
+
+    /**
+     * The init method of the model, or null if it has none. Takes the model and the XUI document.
+     */
+    private MethodHandle init = null;
+
+    /**
+     * The handler methods of the model class.
+     */
+    private Handler[] handlers;
+
+    /**
+     * Returns the binder of a model class.
+     *
+     * @param modelClass the model class.
+     * @return the binder.
+     * @throws XUIBindingException if the class cannot be a model.
+     */
+    static XUIModelBinder getBinder(Class modelClass) throws XUIBindingException
+    {
+        Object binder = binders.get(modelClass);
+        if(binder instanceof String)
+            throw new XUIBindingException((String)binder);
+        return (XUIModelBinder)binder;
+    }
+
+    /**
+     * Looks up the constructor, init method and handler methods of a model class.
+     *
+     * @param modelClass the model class.
+     * @throws XUIBindingException if the class cannot be a model.
+     */
+    private XUIModelBinder(Class modelClass) throws XUIBindingException
+    {
+        className = modelClass.getName();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try
+        {
+            Constructor c = modelClass.getConstructor(new Class[0]);
+            c.setAccessible(true);
+            constructor = lookup.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+        } catch(NoSuchMethodException nsme)
+        {
+            throw new XUIBindingException("The model class " + className
+                + " has no public constructor without arguments");
+        } catch(IllegalAccessException iae)
+        {
+            throw new XUIBindingException("The model class " + className + " cannot be created: "
+                + iae.getMessage());
+        }
+
+        try
+        {
+            Method m = modelClass.getMethod("init", new Class[] {XUI.class});
+            m.setAccessible(true);
+            init = lookup.unreflect(m).asType(MethodType.methodType(void.class, Object.class, XUI.class));
+        } catch(NoSuchMethodException nsme)
+        {
+            init = null;
+        } catch(IllegalAccessException iae)
+        {
+            throw new XUIBindingException("The init method of " + className + " cannot be called: "
+                + iae.getMessage());
+        }
+
+        // handler methods are looked for in the superclasses as well. One that is overridden and
+        // annotated again is only found once, where it is overridden.
+        Vector found = new Vector();
+        Hashtable signatures = new Hashtable();
+        for(Class type = modelClass; type != null && type != Object.class; type = type.getSuperclass())
+        {
+            Method[] methods = type.getDeclaredMethods();
+            for(int i = 0; i < methods.length; i++)
+            {
+                XUIHandler annotation = (XUIHandler)methods[i].getAnnotation(XUIHandler.class);
+                if(annotation == null)
+                    continue;
+                int modifiers = methods[i].getModifiers();
+                if(!Modifier.isPrivate(modifiers) && !Modifier.isStatic(modifiers))
+                {
+                    // an override is called through the method it overrides, so the annotation may
+                    // be left off it
+                    String signature = methods[i].getName() + Arrays.asList(methods[i].getParameterTypes());
+                    if(signatures.containsKey(signature))
+                        continue;
+                    signatures.put(signature, signature);
+                }
+                found.add(new Handler(methods[i], annotation, lookup));
+            }
+        }
+        handlers = (Handler[])found.toArray(new Handler[found.size()]);
+
+        if(init == null && handlers.length == 0)
+            throw new XUIBindingException("The model class " + className
+                + " has neither an init(XUI) method nor any handler methods");
+    }
+
+    /**
+     * Creates a model, ties its handler methods to the components of a XUI document and then calls
+     * its init method.
+     *
+     * @param xui the XUI document.
+     * @return the model.
+     * @throws XUIBindingException if the model cannot be created or initialised, or a component
+     * handled by the model cannot be found or does not generate the event handled.
+     */
+    Object bind(XUI xui) throws XUIBindingException
+    {
+        Object model;
+        try
+        {
+            model = (Object)constructor.invokeExact();
+        } catch(Throwable t)
+        {
+            throw failure("could not be created", t);
+        }
+
+        // find every component before listening to any
+        Hashtable sources = new Hashtable();
+        Hashtable listeners = new Hashtable();
+        for(int i = 0; i < handlers.length; i++)
+        {
+            Handler handler = handlers[i];
+            for(int j = 0; j < handler.ids.length; j++)
+            {
+                String id = handler.ids[j];
+                XUIEventSource source = xui.getXUIEventSource(id);
+                if(source == null)
+                    throw new XUIBindingException("The component " + id + " handled by "
+                        + handler.name + " cannot be found or has no events");
+                int kind = LISTENERS[handler.event];
+                if(!accepts(source, kind))
+                    throw new XUIBindingException("The component " + id + " handled by " + handler.name
+                        + " has no " + EVENTS[handler.event] + " events");
+                Listener[] kinds = (Listener[])listeners.get(id);
+                if(kinds == null)
+                {
+                    kinds = new Listener[NUMBER_OF_LISTENERS];
+                    sources.put(id, source);
+                    listeners.put(id, kinds);
+                }
+                if(kinds[kind] == null)
+                    kinds[kind] = Listener.create(kind, model);
+                kinds[kind].add(handler.event, handler.handle);
+            }
+        }
+
+        Enumeration ids = listeners.keys();
+        while(ids.hasMoreElements())
+        {
+            String id = (String)ids.nextElement();
+            XUIEventSource source = (XUIEventSource)sources.get(id);
+            Listener[] kinds = (Listener[])listeners.get(id);
+            for(int i = 0; i < kinds.length; i++)
+                if(kinds[i] != null)
+                    source.addEventListener((XUIModel)kinds[i]);
+        }
+
+        if(init != null)
+        {
+            try
+            {
+                init.invokeExact(model, xui);
+            } catch(Throwable t)
+            {
+                throw failure("could not be initialised", t);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Returns whether a component takes a kind of listener. Components that are not of the API are
+     * taken to accept any kind.
+     *
+     * @param source the component.
+     * @param kind the kind of listener, as an index into the listeners of a component.
+     * @return false if the component would ignore the listener.
+     */
+    private static boolean accepts(XUIEventSource source, int kind)
+    {
+        for(int i = 0; i < SOURCES.length; i++)
+            if(SOURCES[i].isInstance(source))
+                return SOURCE_LISTENERS[i] == kind;
+        return true;
+    }
+
+    /**
+     * Returns the exception for a model that has failed.
+     *
+     * @param what what went wrong.
+     * @param t the cause.
+     * @return the exception.
+     */
+    private XUIBindingException failure(String what, Throwable t)
+    {
+        XUIBindingException xbe = new XUIBindingException("The model class " + className + " " + what
+            + ": " + t);
+        xbe.initCause(t);
+        return xbe;
+    }
+
+    /**
+     * Returns an exception thrown by a handler method as one that may be thrown from a listener.
+     *
+     * @param t the exception thrown by the handler.
+     * @return the exception to throw.
+     */
+    private static RuntimeException rethrow(Throwable t)
+    {
+        if(t instanceof Error)
+            throw (Error)t;
+        if(t instanceof RuntimeException)
+            return (RuntimeException)t;
+        return new UndeclaredThrowableException(t);
+    }
+
+    /**
+     * A handler method of a model class.
+     */
+    private static class Handler
+    {
+        /**
+         * The name of the method, for messages.
+         */
+        private String name;
+
+        /**
+         * The ids of the components handled.
+         */
+        private String[] ids;
+
+        /**
+         * The event handled, as an index into the events.
+         */
+        private int event;
+
+        /**
+         * Calls the method. Of the type for the event.
+         */
+        private MethodHandle handle;
+
+        /**
+         * Looks up a handler method.
+         *
+         * @param method the method.
+         * @param annotation the annotation of the method.
+         * @param lookup the lookup to find the method with.
+         * @throws XUIBindingException if the method cannot handle the event.
+         */
+        Handler(Method method, XUIHandler annotation, MethodHandles.Lookup lookup) throws XUIBindingException
+        {
+            name = method.getDeclaringClass().getName() + "." + method.getName();
+            ids = annotation.id();
+            event = -1;
+            for(int i = 0; i < EVENTS.length; i++)
+                if(EVENTS[i].equals(annotation.event()))
+                    event = i;
+            if(event == -1)
+                throw new XUIBindingException("The handler " + name + " handles an unknown event: "
+                    + annotation.event());
+
+            // the handler takes the first of the arguments of the event, after the model
+            MethodType type = EVENT_TYPES[event];
+            Class[] parameters = method.getParameterTypes();
+            if(parameters.length > type.parameterCount() - 1)
+                throw new XUIBindingException("The handler " + name + " takes more arguments than the "
+                    + annotation.event() + " event has");
+            for(int i = 0; i < parameters.length; i++)
+            {
+                Class given = type.parameterType(i + 1);
+                if(!parameters[i].isPrimitive() && !parameters[i].isAssignableFrom(given)
+                    && !given.isAssignableFrom(parameters[i]))
+                    throw new XUIBindingException("Argument " + (i + 1) + " of the handler " + name + " is a "
+                        + parameters[i].getName() + " where the event gives a " + given.getName());
+            }
+
+            try
+            {
+                method.setAccessible(true);
+                MethodHandle h = lookup.unreflect(method);
+                if(Modifier.isStatic(method.getModifiers()))
+                    h = MethodHandles.dropArguments(h, 0, new Class[] {Object.class});
+                Class[] unused = new Class[type.parameterCount() - 1 - parameters.length];
+                System.arraycopy(type.parameterArray(), 1 + parameters.length, unused, 0, unused.length);
+                h = MethodHandles.dropArguments(h, 1 + parameters.length, unused);
+                handle = h.asType(type);
+            } catch(IllegalAccessException iae)
+            {
+                throw new XUIBindingException("The handler " + name + " cannot be called: " + iae.getMessage());
+            } catch(WrongMethodTypeException wmte)
+            {
+                throw new XUIBindingException("The handler " + name + " cannot take the arguments of the "
+                    + annotation.event() + " event");
+            }
+        }
+    }
+
+    /**
+     * Listens to a component on behalf of a model, calling the handler methods of the model.
+     */
+    private static abstract class Listener
+    {
+        /**
+         * The model.
+         */
+        protected final Object model;
+
+        /**
+         * The handlers of each event, as indexed by the events.
+         */
+        protected final MethodHandle[][] handles = new MethodHandle[EVENTS.length][0];
+
+        /**
+         * Creates a listener.
+         *
+         * @param model the model.
+         */
+        Listener(Object model)
+        {
+            this.model = model;
+        }
+
+        /**
+         * Creates a listener of a kind.
+         *
+         * @param kind the kind of listener.
+         * @param model the model.
+         * @return the listener.
+         */
+        static Listener create(int kind, Object model)
+        {
+            switch(kind)
+            {
+                case 0:
+                    return new Action(model);
+                case 1:
+                    return new Text(model);
+                case 2:
+                    return new ListAction(model);
+                case 3:
+                    return new Table(model);
+                case 4:
+                    return new Tree(model);
+                default:
+                    return new Window(model);
+            }
+        }
+
+        /**
+         * Adds a handler of an event.
+         *
+         * @param event the event, as an index into the events.
+         * @param handle the handler.
+         */
+        void add(int event, MethodHandle handle)
+        {
+            MethodHandle[] grown = new MethodHandle[handles[event].length + 1];
+            System.arraycopy(handles[event], 0, grown, 0, grown.length - 1);
+            grown[grown.length - 1] = handle;
+            handles[event] = grown;
+        }
+
+        /**
+         * Calls the handlers of an event that has the component as its only argument.
+         *
+         * @param event the event, as an index into the events.
+         * @param component the component that generated the event.
+         */
+        protected void handle(int event, XUIComponent component)
+        {
+            MethodHandle[] h = handles[event];
+            try
+            {
+                for(int i = 0; i < h.length; i++)
+                    h[i].invokeExact(model, component);
+            } catch(Throwable t)
+            {
+                throw rethrow(t);
+            }
+        }
+
+        /**
+         * Calls the handlers of a table event.
+         *
+         * @param event the event, as an index into the events.
+         * @param component the component that generated the event.
+         * @param row the row of the cell.
+         * @param column the column of the cell.
+         */
+        protected void handle(int event, XUIComponent component, int row, int column)
+        {
+            MethodHandle[] h = handles[event];
+            try
+            {
+                for(int i = 0; i < h.length; i++)
+                    h[i].invokeExact(model, component, row, column);
+            } catch(Throwable t)
+            {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    /**
+     * Listens for actions.
+     */
+    private static class Action extends Listener implements ActionModel
+    {
+        /**
+         * Creates the listener.
+         *
+         * @param model the model.
+         */
+        Action(Object model)
+        {
+            super(model);
+        }
+
+        /**
+         * Calls the action handlers.
+         *
+         * @param component the component that generated the event.
+         */
+        public void action(XUIComponent component)
+        {
+            handle(0, component);
+        }
+    }
+
+    /**
+     * Listens for changes of text.
+     */
+    private static class Text extends Listener implements TextModel
+    {
+        /**
+         * Creates the listener.
+         *
+         * @param model the model.
+         */
+        Text(Object model)
+        {
+            super(model);
+        }
+
+        /**
+         * Calls the text handlers.
+         *
+         * @param component the component that generated the event.
+         */
+        public void textAction(XUIComponent component)
+        {
+            handle(1, component);
+        }
+    }
+
+    /**
+     * Listens for list actions.
+     */
+    private static class ListAction extends Listener implements ListActionModel
+    {
+        /**
+         * Creates the listener.
+         *
+         * @param model the model.
+         */
+        ListAction(Object model)
+        {
+            super(model);
+        }
+
+        /**
+         * Calls the list handlers.
+         *
+         * @param component the component that generated the event.
+         * @param type the type of list action.
+         * @param index the index of the item in the list.
+         */
+        public void listAction(XUIComponent component, byte type, int index)
+        {
+            MethodHandle[] h = handles[2];
+            try
+            {
+                for(int i = 0; i < h.length; i++)
+                    h[i].invokeExact(model, component, type, index);
+            } catch(Throwable t)
+            {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    /**
+     * Listens for table cells being edited, selected or having been edited.
+     */
+    private static class Table extends Listener implements XUITableModel
+    {
+        /**
+         * Creates the listener.
+         *
+         * @param model the model.
+         */
+        Table(Object model)
+        {
+            super(model);
+        }
+
+        /**
+         * Calls the handlers of a cell being edited.
+         *
+         * @param component the component that generated the event.
+         * @param row the row of the cell.
+         * @param column the column of the cell.
+         */
+        public void tableCellEditingAction(XUIComponent component, int row, int column)
+        {
+            handle(3, component, row, column);
+        }
+
+        /**
+         * Calls the handlers of a cell being selected.
+         *
+         * @param component the component that generated the event.
+         * @param row the row of the cell.
+         * @param column the column of the cell.
+         */
+        public void tableCellSelectedAction(XUIComponent component, int row, int column)
+        {
+            handle(4, component, row, column);
+        }
+
+        /**
+         * Calls the handlers of a cell having been edited.
+         *
+         * @param component the component that generated the event.
+         * @param row the row of the cell.
+         * @param column the column of the cell.
+         */
+        public void tableCellEditedAction(XUIComponent component, int row, int column)
+        {
+            handle(5, component, row, column);
+        }
+    }
+
+    /**
+     * Listens for tree nodes being chosen.
+     */
+    private static class Tree extends Listener implements XUITreeModel
+    {
+        /**
+         * Creates the listener.
+         *
+         * @param model the model.
+         */
+        Tree(Object model)
+        {
+            super(model);
+        }
+
+        /**
+         * Calls the tree handlers.
+         *
+         * @param component the component that generated the event.
+         * @param selectedTreeNode the tree node chosen.
+         */
+        public void treeAction(XUIComponent component, XUITreeNode selectedTreeNode)
+        {
+            MethodHandle[] h = handles[6];
+            try
+            {
+                for(int i = 0; i < h.length; i++)
+                    h[i].invokeExact(model, component, selectedTreeNode);
+            } catch(Throwable t)
+            {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    /**
+     * Listens for windows closing.
+     */
+    private static class Window extends Listener implements WindowModel
+    {
+        /**
+         * Creates the listener.
+         *
+         * @param model the model.
+         */
+        Window(Object model)
+        {
+            super(model);
+        }
+
+        /**
+         * Calls the window handlers.
+         *
+         * @param component the component that generated the event.
+         */
+        public void windowAction(XUIComponent component)
+        {
+            handle(7, component);
+        }
+    }
+}
@@ -35,6 +35,7 @@ package org.purnamaproject.xui.component.container;
  */
 
 import java.awt.Dimension;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.List;
 import org.purnamaproject.xui.component.XUIComponent;
@@ -112,6 +113,49 @@ public interface XUIContainer extends XUIComponent
      */
     public void addComponent(XUIComponent component) throws XUITypeFormatException;
 
+    /**
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
+     *
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     */
+    public void addComponents(Collection components) throws XUITypeFormatException;
+
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components);
+
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate();
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate();
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating();
+
     /**
      * Removes the component based on its object reference. If no component found by that reference,
      * no action is taken.
@@ -136,6 +180,7 @@ public interface XUIContainer extends XUIComponent
 
     /**
      * Gets all the components in this container. If no components found, null is returned.
+     * Components left to be realized later are not realized by this call and are listed as null.
      *
      * @return a list of the components that are currently children of this container.
      */
@@ -34,7 +34,8 @@ package org.purnamaproject.xui.helpers;
  *
  */
 
-import java.util.Vector;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Handles ids within a system and makes sure that all ids made are unique and managed in a central
@@ -46,9 +47,10 @@ import java.util.Vector;
 public class IDFactory
 {
     /**
-     * The list of ids for all components.
+     * The set of ids for all components. Documents that are loaded more than once register
+     * the same ids again, which a set ignores.
      */
-    private static Vector IDs;
+    private static Set IDs;
 
     /**
      * Local instance of itself.
@@ -60,7 +62,7 @@ public class IDFactory
      */
     private IDFactory()
     {
-        IDs = new Vector();
+        IDs = new HashSet();
     }
 
     /**
@@ -68,7 +70,7 @@ public class IDFactory
      *
      * @return a reference to the factory.
      */
-    public static IDFactory getInstance()
+    public static synchronized IDFactory getInstance()
     {
         if(idFactory == null)
             idFactory = new IDFactory();
@@ -78,7 +80,7 @@ public class IDFactory
     /**
      * Generates an id.
      */
-    public String generateID(String elementName)
+    public synchronized String generateID(String elementName)
     {
         int IDCounter = 0;
         String id = elementName + "_" + IDCounter;
@@ -105,7 +107,7 @@ public class IDFactory
      *
      * @param id a new id to add to the collection of ids.
      */
-    public void addID(String id)
+    public synchronized void addID(String id)
     {
         IDs.add(id);
     }
@@ -116,7 +118,7 @@ public class IDFactory
      * @return true if the id is in the collection, false otherwise.
      * @param id the id to check.
      */
-    public boolean containsID(String id)
+    public synchronized boolean containsID(String id)
     {
         return IDs.contains(id);
     }
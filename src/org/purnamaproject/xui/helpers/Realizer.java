@@ -34,10 +34,31 @@ package org.purnamaproject.xui.helpers;
  *
  */
 
+import java.awt.Component;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JSplitPane;
+import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import org.purnamaproject.xui.component.atomic.XUIButton;
 import org.purnamaproject.xui.component.atomic.XUICheckBox;
 import org.purnamaproject.xui.component.atomic.XUIComboBox;
@@ -54,6 +75,7 @@ import org.purnamaproject.xui.component.atomic.XUITextField;
 import org.purnamaproject.xui.component.atomic.XUITree;
 import org.purnamaproject.xui.component.composite.XUICalendar;
 import org.purnamaproject.xui.component.composite.XUIHypertextPane;
+import org.purnamaproject.xui.component.XUIComponent;
 import org.purnamaproject.xui.component.container.XUIContainer;
 import org.purnamaproject.xui.component.container.intermediate.XUIPanel;
 import org.purnamaproject.xui.component.container.intermediate.XUISplitPanel;
@@ -96,35 +118,27 @@ import org.purnamaproject.xui.impl.XUITreeImpl;
 import org.purnamaproject.xui.impl.XUIWindowImpl;
 import org.purnamaproject.xui.XUIDisplayException;
 import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUINodeVisitor;
 import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.binding.XUIEventSource;
+import org.purnamaproject.xui.binding.XUIModel;
 
 
 /**
  * Realizer is a class that, using a XUI document, builds the user interface based on
- * the nodes of that xml document.
+ * the nodes of that xml document. A realizer only ever builds the user interface of the
+ * document it was made for, so several documents may be prepared and realized at the same
+ * time, each by its own realizer.
  *
  * @version    0.5 18/08/2003
  * @author     Arron Ferguson
  */
 public class Realizer
 {
-    /**
-     * The self-reference.
-     */
-    private static Realizer realizer = null;
-
     /**
      * Reference to the XUI document.
      */
-    private static XUI document;
-
-    /**
-     * Private constructor.
-     */
-    private Realizer()
-    {
-        ;
-    }
+    private final XUI document;
 
     /**
      * Builds a user interface based on the XUI document that is passed to it.
@@ -133,26 +147,26 @@ public class Realizer
      */
     private Realizer(XUI xui)
     {
-        if(xui == document)
-            ;
-        else
-            document = xui;
+        document = xui;
     }
 
     /**
-     * Returns the sole instance of this class Realizer.
+     * Returns a realizer for the XUI document. Realizers are not shared between documents: the
+     * realizer returned only ever builds the user interface of the document given.
+     *
+     * @param xui the XUI document that is used to build a user interface from.
+     * @return a realizer for the document.
      */
     public static Realizer getInstance(XUI xui)
     {
-        if(realizer == null)
-            realizer = new Realizer(xui);
-        return realizer;
+        return new Realizer(xui);
     }
 
     /**
-     * Based on the xui document, build the user interface ("realize it").
+     * Based on the xui document, build the user interface ("realize it"). A realizer builds on
+     * one thread at a time; the realizers of other documents are not held up.
      */
-    public void realize() throws XUIDisplayException
+    public synchronized void realize() throws XUIDisplayException
     {
         // build the GUI if not null
         if(document != null)
@@ -166,12 +180,19 @@ public class Realizer
                 // build node's native peer
                 XUIWindow window = new XUIWindowImpl(windowNode);
 
-                // get children and realize them as well
+                // get children and realize them as well, laying the window out once at the end
                 List containers = windowNode.getDirectChildren();
-                for(int z = 0; z < containers.size(); z++)
+                window.beginUpdate();
+                try
+                {
+                    for(int z = 0; z < containers.size(); z++)
+                    {
+                        XUINode container = (XUINode)containers.get(z);
+                        doContainer(container, window);
+                    }
+                } finally
                 {
-                    XUINode container = (XUINode)containers.get(z);
-                    doContainer(container, window);
+                    window.endUpdate();
                 }
 
                 // show the window now
@@ -184,332 +205,964 @@ public class Realizer
     }
 
     /**
-     * Takes a node and creates a GUI component based on its type. This method deals with
-     * containers and may be called recursively if a top level or intermediate container
-     * has another container within it.
+     * The threads that prepare documents for realization. Created the first time a document
+     * is realized in the background.
+     */
+    private static ExecutorService workers = null;
+
+    /**
+     * The realizers of the elements that may appear within a window, by element name.
+     */
+    private static Hashtable containers = new Hashtable();
+
+    /**
+     * The realizers of the elements that may appear within a menu bar or menu, by element name.
+     */
+    private static Hashtable menuComponents = new Hashtable();
+
+    /**
+     * The realizers of the elements that may appear within a panel, by element name.
+     */
+    private static Hashtable atomics = new Hashtable();
+
+    /**
+     * The realizer of elements that have no component of their own, such as layouts.
+     */
+    private static final XUIComponentRealizer IGNORE = new XUIComponentRealizer()
+    {
+        public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+        {
+            ;
+        }
+    };
+
+    static
+    {
+        registerContainers();
+        registerMenuComponents();
+        registerAtomics();
+    }
+
+    /**
+     * Registers the realizer of an element that may appear within a window. Any realizer
+     * already registered for the element is replaced.
      *
-     * @param containerNode the node which represents a type of container.
-     * @param window the XUIWindow which is the top-level container owning this container.
+     * @param name the name of the element.
+     * @param componentRealizer the realizer. Its parent is the <code>XUIWindow</code>.
      */
-    private void doContainer(XUINode containerNode, XUIWindow window)
+    public static void registerContainer(String name, XUIComponentRealizer componentRealizer)
     {
-        String type = containerNode.getName();
+        containers.put(name, componentRealizer);
+    }
 
-        if(type.equals("Panel"))
-        {
-            XUIPanel panel = new XUIPanelImpl(containerNode);
-            // add the panel to the window
-            window.addComponent(panel);
+    /**
+     * Registers the realizer of an element that may appear within a menu bar or menu. Any
+     * realizer already registered for the element is replaced.
+     *
+     * @param name the name of the element.
+     * @param componentRealizer the realizer. Its parent is the <code>XUIMenuBar</code> or
+     * <code>XUIMenu</code>.
+     */
+    public static void registerMenuComponent(String name, XUIComponentRealizer componentRealizer)
+    {
+        menuComponents.put(name, componentRealizer);
+    }
 
-            // go through the list for atomics and realize them
-            List atomics = containerNode.getDirectChildren();
-            for(int z = 0; z < atomics.size(); z++)
+    /**
+     * Registers the realizer of an element that may appear within a panel. Any realizer
+     * already registered for the element is replaced.
+     *
+     * @param name the name of the element.
+     * @param componentRealizer the realizer. Its parent is the <code>XUIContainer</code>.
+     */
+    public static void registerAtomic(String name, XUIComponentRealizer componentRealizer)
+    {
+        atomics.put(name, componentRealizer);
+    }
+
+    /**
+     * <p>Builds the user interface without blocking the caller. The document is first prepared
+     * on background threads: deferred content is parsed and image data is decoded. The
+     * components are then built and attached, and the windows shown, in one go on the event
+     * dispatch thread.</p>
+     *
+     * @param whenVisible run on the event dispatch thread once the windows are showing. May be
+     * null.
+     * @return a future whose value is the XUI document once its windows are showing. If the
+     * user interface could not be built, <code>get</code> throws an
+     * <code>ExecutionException</code> whose cause is the <code>XUIDisplayException</code>.
+     */
+    public Future realizeLater(final Runnable whenVisible)
+    {
+        final Throwable[] failure = new Throwable[1];
+        final FutureTask attach = new FutureTask(new Callable()
+        {
+            public Object call() throws Exception
             {
-                XUINode atomic = (XUINode)atomics.get(z);
-                doAtomic(atomic, panel);
+                if(failure[0] instanceof Exception)
+                    throw (Exception)failure[0];
+                else if(failure[0] != null)
+                    throw (Error)failure[0];
+                realize();
+                if(whenVisible != null)
+                    whenVisible.run();
+                return document;
             }
+        });
 
-        } else if(type.equals("BasicDialog"))
+        // the preparation waits on the worker threads so it is given a thread of its own
+        Thread preparation = new Thread(new Runnable()
         {
-            XUIBasicDialog dialog = new XUIBasicDialogImpl(containerNode);
+            public void run()
+            {
+                try
+                {
+                    prepare();
+                } catch(Throwable t)
+                {
+                    failure[0] = t;
+                }
+                SwingUtilities.invokeLater(attach);
+            }
+        }, "XUI Realizer");
+        preparation.setDaemon(true);
+        preparation.start();
+        return attach;
+    }
 
-            // add the dialog to the window
-            window.addComponent(dialog);
+    /**
+     * Prepares the document for realization without touching any components. Deferred content
+     * is parsed and the image data of all images is decoded, spread over several threads that are
+     * shared with the preparation of other documents. This may be called from any thread but must
+     * not be called while the document is being changed.
+     *
+     * @throws XUIDisplayException if the document cannot be prepared.
+     */
+    public synchronized void prepare() throws XUIDisplayException
+    {
+        if(document == null)
+            throw new XUIDisplayException("XUI document must not be null.");
 
-            // show the dialog
-            dialog.visualize();
+        // walking the whole tree parses any deferred content
+        final List images = new LinkedList();
+        document.getRoot().visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    if(node.getName().equals("Image") && node.getNumberOfChildren() > 0)
+                        images.add(node);
+                    return true;
+                }
+        });
 
-        } else if(type.equals("OpenFileDialog"))
+        List decoding = new LinkedList();
+        ExecutorService executor = getWorkers();
+        for(int i = 0; i < images.size(); i++)
+        {
+            final XUINode image = (XUINode)images.get(i);
+            decoding.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    XUINode data = (XUINode)image.getDirectChildren().get(0);
+                    XUIUtils.prepareImage(data.getCDATA(), image.getAttributeValue("type"));
+                }
+            }));
+        }
+        try
+        {
+            for(int i = 0; i < decoding.size(); i++)
+                ((Future)decoding.get(i)).get();
+        } catch(InterruptedException ie)
+        {
+            throw new XUIDisplayException("Interrupted while preparing the document.");
+        } catch(ExecutionException ee)
         {
-            XUIOpenFileDialog dialog = new XUIOpenFileDialogImpl(containerNode);
+            throw new XUIDisplayException("Could not decode image: " + ee.getCause().getMessage());
+        }
+    }
 
-            // add the dialog to the window
-            window.addComponent(dialog);
+    /**
+     * Returns the threads that prepare documents, creating them the first time.
+     *
+     * @return the worker threads.
+     */
+    private static synchronized ExecutorService getWorkers()
+    {
+        if(workers == null)
+            workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread thread = new Thread(r, "XUI Realizer worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        return workers;
+    }
 
-            // show the dialog
-            dialog.visualize();
+    /**
+     * Takes a node and creates a GUI component based on its type. This method deals with
+     * containers and may be called recursively if a top level or intermediate container
+     * has another container within it.
+     *
+     * @param containerNode the node which represents a type of container.
+     * @param window the XUIWindow which is the top-level container owning this container.
+     * @throws XUIDisplayException if no realizer is registered for the node.
+     */
+    public void doContainer(XUINode containerNode, XUIWindow window)
+    {
+        dispatch(containers, containerNode, window);
+    }
 
-        } else if(type.equals("SaveFileDialog"))
-        {
-            XUISaveFileDialog dialog = new XUISaveFileDialogImpl(containerNode);
+    /**
+     * Builds menus and menu items based on the menubar that is the start of the hierarchy.
+     *
+     * @param menuComponentNode the node representing a child component (i.e. XUIMenu, XUIMenuItem)
+     * that is to be added to the parent (menuBar).
+     * @param menuBar either the XUIMenuBar or XUIMenu that is a parent of the child component.
+     * @throws XUIDisplayException if no realizer is registered for the node.
+     */
+    public void doMenus(XUINode menuComponentNode, XUIMenuBar menuBar)
+    {
+        dispatch(menuComponents, menuComponentNode, menuBar);
+    }
 
-            // add the dialog to the window
-            window.addComponent(dialog);
+    /**
+     * Builds atomic components based on the container that is given.
+     *
+     * @param atomicNode the node representing an atomic component.
+     * @param container the container that owns this atomic component.
+     * @throws XUIDisplayException if no realizer is registered for the node.
+     */
+    public void doAtomic(XUINode atomicNode, XUIContainer container)
+    {
+        // this is required since the pipeline is different from
+        // this class (Realizer) than from creating the XUI from
+        // scratch within the API calls. We need to differentiate.
+        atomicNode.setFromRealizer(true);
 
-            // show the dialog
-            dialog.visualize();
+        dispatch(atomics, atomicNode, container);
+    }
 
-        } else if(type.equals("CustomDialog"))
+    /**
+     * Realizes the atomic components of a panel. The panel is laid out once, after all of them
+     * have been added.
+     *
+     * @param panelNode the node of the panel.
+     * @param panel the panel.
+     */
+    public void doPanelContents(XUINode panelNode, XUIPanel panel)
+    {
+        List panelAtomics = panelNode.getDirectChildren();
+        panel.beginUpdate();
+        try
+        {
+            for(int i = 0; i < panelAtomics.size(); i++)
+                doAtomic((XUINode)panelAtomics.get(i), panel);
+        } finally
         {
-            XUICustomDialog dialog = new XUICustomDialogImpl(containerNode);
+            panel.endUpdate();
+        }
+    }
 
-            // add the dialog to the window
-            window.addComponent(dialog);
+    /**
+     * Hands a node to the realizer registered for it.
+     *
+     * @param registry the realizers to choose from.
+     * @param node the node to realize.
+     * @param parent the component the node's component is added to.
+     * @throws XUIDisplayException if no realizer is registered for the node.
+     */
+    private void dispatch(Hashtable registry, XUINode node, XUIComponent parent)
+    {
+        XUIComponentRealizer componentRealizer = (XUIComponentRealizer)registry.get(node.getName());
+        if(componentRealizer == null)
+            throw new XUIDisplayException("No realizer is registered for the element " + node.getName()
+                + " within " + parent.getClass().getName());
+        componentRealizer.realize(node, parent, this);
+    }
 
-            // add panels to it
-            List panels = containerNode.getChildNodesByName("Panel");
-            for(int j = 0; j < panels.size(); j++)
-            {
+    /**
+     * Registers the realizers of the elements that may appear within a window.
+     */
+    private static void registerContainers()
+    {
+        registerContainer("GridLayout", IGNORE);
 
-                XUINode panelNode = (XUINode)panels.get(j);
-                XUIPanel panel = new XUIPanelImpl(panelNode);
-                dialog.addComponent(panel);
-                List panelAtomics = panelNode.getDirectChildren();
-                for(int i = 0; i < panelAtomics.size(); i++)
+        registerContainer("Panel", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
                 {
-                    XUINode atomic = (XUINode)panelAtomics.get(i);
-                    doAtomic(atomic, panel);
-                }
-            }
-            // show the dialog
-            dialog.visualize();
+                    XUIPanel panel = new XUIPanelImpl(node);
+                    // add the panel to the window
+                    ((XUIWindow)parent).addComponent(panel);
 
+                    // go through the list for atomics and realize them
+                    realizer.doPanelContents(node, panel);
+                }
+        });
 
-        } else if(type.equals("MenuBar"))
-        {
-            XUIMenuBar menuBar = new XUIMenuBarImpl(containerNode);
-            // add the menubar to the window
-            window.addComponent(menuBar);
-
-            // go through the list of menus and submenus and realize them
-            List menuComponents = containerNode.getDirectChildren();
-            for(int z = 0; z < menuComponents.size(); z++)
+        registerContainer("BasicDialog", deferrable(XUIBasicDialog.class, new XUIComponentRealizer()
             {
-                XUINode menuComponentNode = (XUINode)menuComponents.get(z);
-                doMenus(menuComponentNode, menuBar);
-            }
-
-        } else if(type.equals("SplitPanel"))
-        {
-            XUISplitPanel split = new XUISplitPanelImpl(containerNode);
-            // add the split panel to the window
-            window.addComponent(split);
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIBasicDialog dialog = new XUIBasicDialogImpl(node);
+                    // add the dialog to the window and show it
+                    ((XUIWindow)parent).addComponent(dialog);
+                    dialog.visualize();
+                }
+        }));
 
-            // add panels to it
-            List panels = containerNode.getChildNodesByName("Panel");
-            int size = panels.size();
-            if(size == 0)
-                ; // nothing to add
-            else if(size == 1)
+        registerContainer("OpenFileDialog", deferrable(XUIOpenFileDialog.class, new XUIComponentRealizer()
             {
-                // add the first and only panel to the split panel
-                XUIPanel panelOne = new XUIPanelImpl((XUINode)panels.get(0));
-                split.addComponent(panelOne, XUIUtils.PLACEMENT_LEFT_OR_TOP);
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIOpenFileDialog dialog = new XUIOpenFileDialogImpl(node);
+                    // add the dialog to the window and show it
+                    ((XUIWindow)parent).addComponent(dialog);
+                    dialog.visualize();
+                }
+        }));
 
-                // have to add the panel's components now ...
-                List atomics = ((XUINode)panels.get(0)).getDirectChildren();
-                for(int z = 0; z < atomics.size(); z++)
+        registerContainer("SaveFileDialog", deferrable(XUISaveFileDialog.class, new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
                 {
-                    XUINode atomic = (XUINode)atomics.get(z);
-                    doAtomic(atomic, panelOne);
+                    XUISaveFileDialog dialog = new XUISaveFileDialogImpl(node);
+                    // add the dialog to the window and show it
+                    ((XUIWindow)parent).addComponent(dialog);
+                    dialog.visualize();
                 }
+        }));
 
+        registerContainer("CustomDialog", deferrable(XUICustomDialog.class, new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUICustomDialog dialog = new XUICustomDialogImpl(node);
+                    // add the dialog to the window
+                    ((XUIWindow)parent).addComponent(dialog);
+
+                    // add panels to it
+                    List panels = node.getChildNodesByName("Panel");
+                    dialog.beginUpdate();
+                    try
+                    {
+                        for(int j = 0; j < panels.size(); j++)
+                        {
+                            XUINode panelNode = (XUINode)panels.get(j);
+                            XUIPanel panel = new XUIPanelImpl(panelNode);
+                            dialog.addComponent(panel);
+                            realizer.doPanelContents(panelNode, panel);
+                        }
+                    } finally
+                    {
+                        dialog.endUpdate();
+                    }
+                    // show the dialog
+                    dialog.visualize();
+                }
+        }));
 
-            } else if(size == 2)
+        registerContainer("MenuBar", new XUIComponentRealizer()
             {
-                // add both one top/left, the other right/bottom
-                XUIPanel panelOne = new XUIPanelImpl((XUINode)panels.get(0));
-                split.addComponent(panelOne, XUIUtils.PLACEMENT_LEFT_OR_TOP);
-                XUIPanel panelTwo = new XUIPanelImpl((XUINode)panels.get(1));
-                split.addComponent(panelTwo, XUIUtils.PLACEMENT_RIGHT_OR_BOTTOM);
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIMenuBar menuBar = new XUIMenuBarImpl(node);
+                    // add the menubar to the window
+                    ((XUIWindow)parent).addComponent(menuBar);
+
+                    // go through the list of menus and submenus and realize them
+                    List menuComponents = node.getDirectChildren();
+                    for(int z = 0; z < menuComponents.size(); z++)
+                        realizer.doMenus((XUINode)menuComponents.get(z), menuBar);
+                }
+        });
 
-                // panel one's children
-                List atomics1 = ((XUINode)panels.get(0)).getDirectChildren();
-                for(int z = 0; z < atomics1.size(); z++)
+        registerContainer("SplitPanel", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
                 {
-                    XUINode atomic = (XUINode)atomics1.get(z);
-                    doAtomic(atomic, panelOne);
+                    XUISplitPanel split = new XUISplitPanelImpl(node);
+                    // add the split panel to the window
+                    ((XUIWindow)parent).addComponent(split);
+
+                    // add the first panel top/left and the second one right/bottom
+                    List panels = node.getChildNodesByName("Panel");
+                    int size = Math.min(panels.size(), 2);
+                    XUIPanel[] splitPanels = new XUIPanel[size];
+                    for(int i = 0; i < size; i++)
+                    {
+                        splitPanels[i] = new XUIPanelImpl((XUINode)panels.get(i));
+                        split.addComponent(splitPanels[i], (i == 0) ? XUIUtils.PLACEMENT_LEFT_OR_TOP
+                            : XUIUtils.PLACEMENT_RIGHT_OR_BOTTOM);
+                    }
+
+                    // have to add the panels' components now ...
+                    for(int i = 0; i < size; i++)
+                        realizer.doPanelContents((XUINode)panels.get(i), splitPanels[i]);
                 }
+        });
 
-                // panel two's children
-                List atomics2 = ((XUINode)panels.get(1)).getDirectChildren();
-                for(int z = 0; z < atomics2.size(); z++)
+        registerContainer("TabbedPanel", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
                 {
-                    XUINode atomic = (XUINode)atomics2.get(z);
-                    doAtomic(atomic, panelTwo);
+                    XUITabbedPanel tabbed = new XUITabbedPanelImpl(node);
+                    // add the tabbed panel to the window
+                    ((XUIWindow)parent).addComponent(tabbed);
+
+                    // add panels to it, leaving their contents for later if asked to
+                    List panels = node.getChildNodesByName("Panel");
+                    Hashtable deferredTabs = new Hashtable();
+                    tabbed.beginUpdate();
+                    try
+                    {
+                        for(int j = 0; j < panels.size(); j++)
+                        {
+                            XUINode panelNode = (XUINode)panels.get(j);
+                            XUIPanel panel = new XUIPanelImpl(panelNode);
+                            tabbed.addComponent(panel);
+                            if(realizer.document.isLazyRealization())
+                                deferredTabs.put(panel.getPeer(), realizer.deferPanelContents(panelNode, panel));
+                            else
+                                realizer.doPanelContents(panelNode, panel);
+                        }
+                    } finally
+                    {
+                        tabbed.endUpdate();
+                    }
+                    if(!deferredTabs.isEmpty())
+                        realizeWhenSelected((JTabbedPane)tabbed.getPeer(), deferredTabs);
                 }
+        });
+    }
 
+    /**
+     * Leaves the atomic components of a panel to be realized the first time one of them is looked
+     * up or the returned realization is run, whichever comes first.
+     *
+     * @param panelNode the node of the panel.
+     * @param panel the panel.
+     * @return realizes the contents of the panel. Running it more than once does nothing more.
+     */
+    private Runnable deferPanelContents(final XUINode panelNode, final XUIPanel panel)
+    {
+        final List panelAtomics = panelNode.getDirectChildren();
+        Runnable contents = new Runnable()
+            {
+                private boolean realized = false;
 
-            }
+                public synchronized void run()
+                {
+                    if(realized)
+                        return;
+                    realized = true;
+                    setDeferredRealization(panelAtomics, null);
+                    doPanelContents(panelNode, panel);
+                }
+        };
+        setDeferredRealization(panelAtomics, contents);
+        return contents;
+    }
 
-        } else if(type.equals("TabbedPanel"))
+    /**
+     * Sets what builds the components of the nodes.
+     *
+     * @param nodes the nodes.
+     * @param realization builds the components, or null to build them in the usual way.
+     */
+    private static void setDeferredRealization(List nodes, Runnable realization)
+    {
+        for(int i = 0; i < nodes.size(); i++)
         {
-            XUITabbedPanel tabbed = new XUITabbedPanelImpl(containerNode);
-            // add the split panel to the window
-            window.addComponent(tabbed);
+            Object node = nodes.get(i);
+            if(node instanceof XUINodeImpl)
+                ((XUINodeImpl)node).setDeferredRealization(realization);
+        }
+    }
 
-            // add panels to it
-            List panels = containerNode.getChildNodesByName("Panel");
-            for(int j = 0; j < panels.size(); j++)
+    /**
+     * Realizes the contents of each tab the first time the tab is selected. The tab selected
+     * to begin with is realized straight away.
+     *
+     * @param tabs the tabbed pane.
+     * @param deferredTabs the realizations of the contents of the tabs, by the component of the tab.
+     */
+    private static void realizeWhenSelected(final JTabbedPane tabs, final Hashtable deferredTabs)
+    {
+        ChangeListener listener = new ChangeListener()
             {
-
-                XUINode panelNode = (XUINode)panels.get(j);
-                XUIPanel panel = new XUIPanelImpl(panelNode);
-                tabbed.addComponent(panel);
-                List panelAtomics = panelNode.getDirectChildren();
-                for(int i = 0; i < panelAtomics.size(); i++)
+                public void stateChanged(ChangeEvent event)
                 {
-
-                    XUINode atomic = (XUINode)panelAtomics.get(i);
-                    doAtomic(atomic, panel);
+                    Component selected = tabs.getSelectedComponent();
+                    Runnable contents = (selected == null) ? null : (Runnable)deferredTabs.remove(selected);
+                    if(contents != null)
+                        contents.run();
+                    if(deferredTabs.isEmpty())
+                        tabs.removeChangeListener(this);
                 }
-            }
-
-        }
+        };
+        tabs.addChangeListener(listener);
+        listener.stateChanged(new ChangeEvent(tabs));
     }
 
     /**
-     * Builds menus and menu items based on the menubar that is the start of the hierarchy.
+     * Wraps the realizer of a dialog so that, when lazy realization is on and the dialog is not
+     * visible, the dialog is only built the first time it is used. Until then its node holds a
+     * stand-in of the given type.
      *
-     * @param menuComponentNode the node representing a child component (i.e. XUIMenu, XUIMenuItem)
-     * that is to be added to the parent (menuBar).
-     * @param menuBar either the XUIMenuBar or XUIMenu that is a parent of the child component.
+     * @param type the interface of the dialog.
+     * @param componentRealizer the realizer that builds the dialog.
+     * @return the wrapped realizer.
      */
-    private void doMenus(XUINode menuComponentNode, XUIMenuBar menuBar)
+    private static XUIComponentRealizer deferrable(final Class type, final XUIComponentRealizer componentRealizer)
     {
+        return new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    if(realizer.document.isLazyRealization() && !node.getAttributeBooleanValue("visible"))
+                    {
+                        DeferredComponent handler = new DeferredComponent(componentRealizer, node, parent, realizer);
+                        node.setXUIComponent((XUIComponent)Proxy.newProxyInstance(type.getClassLoader(),
+                            new Class[] {type}, handler));
+                    } else
+                        componentRealizer.realize(node, parent, realizer);
+                }
+        };
+    }
 
-        String type = menuComponentNode.getName();
-        if(type.equals("Menu"))
+    /**
+     * <p>Stands in for a component that has not been built yet. The component is built by its
+     * realizer the first time it is shown through <code>visualize</code> or <code>setVisible</code>,
+     * its peer is asked for through <code>getPeer</code>, or a method is called that needs its
+     * state. The call is then passed on to it.</p>
+     *
+     * <p>Models added to the stand-in are kept until the component is built and then added to it.
+     * The stand-in stays the node's component once the component is built, and the models are
+     * handed the stand-in rather than the component, so that a component looked up before it is
+     * built is the same one that is passed to the models.</p>
+     */
+    private static class DeferredComponent implements InvocationHandler
+    {
+        /**
+         * The realizer that builds the component.
+         */
+        private XUIComponentRealizer componentRealizer;
+
+        /**
+         * The node of the component.
+         */
+        private XUINode node;
+
+        /**
+         * The component the component is added to.
+         */
+        private XUIComponent parent;
+
+        /**
+         * The realizer of the document.
+         */
+        private Realizer realizer;
+
+        /**
+         * The component once it has been built.
+         */
+        private XUIComponent component = null;
+
+        /**
+         * The models added to the stand-in before the component was built.
+         */
+        private Vector models = new Vector();
+
+        /**
+         * The models added to the stand-in, mapped to the models added to the component on their
+         * behalf.
+         */
+        private Hashtable forwarders = new Hashtable();
+
+        /**
+         * Creates the stand-in.
+         *
+         * @param componentRealizer the realizer that builds the component.
+         * @param node the node of the component.
+         * @param parent the component the component is added to.
+         * @param realizer the realizer of the document.
+         */
+        DeferredComponent(XUIComponentRealizer componentRealizer, XUINode node, XUIComponent parent,
+            Realizer realizer)
         {
-            XUIMenu menu = new XUIMenuImpl(menuComponentNode);
+            this.componentRealizer = componentRealizer;
+            this.node = node;
+            this.parent = parent;
+            this.realizer = realizer;
+        }
 
-            if(menuBar instanceof XUIMenu)
-                ((XUIMenu)menuBar).addMenuForRealizer(menu);
-            else
-                menuBar.addMenuForRealizer(menu);
+        /**
+         * Passes the call on to the component, building it first if need be. Calls that do not
+         * need the component are answered by the stand-in while the component is not built.
+         *
+         * @param proxy the stand-in.
+         * @param method the method called.
+         * @param args the arguments of the call.
+         * @return the result of the call.
+         * @throws Throwable whatever the component throws.
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+            if(method.getDeclaringClass() == Object.class)
+                return invokeObjectMethod(proxy, method, args, "Deferred " + node.getName()
+                    + " (id: " + node.getAttributeID() + ")");
+            else if(name.equals("getNodeRepresentation") && args == null)
+                return node;
+            else if(method.getDeclaringClass() == XUIEventSource.class)
+            {
+                synchronized(this)
+                {
+                    XUIModel model = (XUIModel)args[0];
+                    if(component == null)
+                    {
+                        if(name.equals("addEventListener"))
+                            models.add(model);
+                        else
+                            models.remove(model);
+                        return null;
+                    } else if(name.equals("removeEventListener"))
+                    {
+                        Object forwarder = forwarders.remove(model);
+                        if(forwarder == null)
+                            return null;
+                        args = new Object[] {forwarder};
+                    } else
+                        args = new Object[] {forwarder(proxy, model)};
+                }
+            } else if(name.equals("isVisible") && args == null)
+            {
+                synchronized(this)
+                {
+                    // a component is only deferred while it is not visible
+                    if(component == null)
+                        return Boolean.FALSE;
+                }
+            }
 
-            // go through the list of menus and submenus and realize them
-            List menuComponents = menuComponentNode.getDirectChildren();
-            for(int z = 0; z < menuComponents.size(); z++)
+            try
+            {
+                return method.invoke(getComponent(proxy), args);
+            } catch(InvocationTargetException ite)
             {
+                throw ite.getCause();
+            }
+        }
 
-                XUINode childNode = (XUINode)menuComponents.get(z);
-                doMenus(childNode, menu);
+        /**
+         * Returns the component, building it the first time. Once built, the node of the component
+         * is given the stand-in again and the models added to the stand-in are added to the
+         * component.
+         *
+         * @param proxy the stand-in.
+         * @return the component.
+         * @throws XUIDisplayException if the realizer did not give the node a component.
+         */
+        private synchronized XUIComponent getComponent(Object proxy)
+        {
+            if(component == null)
+            {
+                componentRealizer.realize(node, parent, realizer);
+                XUIComponent built = node.getXUIComponent();
+                if(built == proxy)
+                    throw new XUIDisplayException("No component was built for " + node.getName()
+                        + " (id: " + node.getAttributeID() + ")");
+                component = built;
+                node.setXUIComponent((XUIComponent)proxy);
+                for(int i = 0; i < models.size(); i++)
+                    ((XUIEventSource)component).addEventListener(forwarder(proxy, (XUIModel)models.get(i)));
+                // let go of what was only needed for building
+                models = null;
+                componentRealizer = null;
+                parent = null;
+                realizer = null;
             }
+            return component;
+        }
 
-        } else if(type.equals("MenuItem"))
+        /**
+         * Returns the model added to the component on behalf of a model added to the stand-in,
+         * creating it the first time. The model passes each call on with the component replaced
+         * by the stand-in.
+         *
+         * @param proxy the stand-in.
+         * @param model the model added to the stand-in.
+         * @return the model to add to the component.
+         */
+        private XUIModel forwarder(final Object proxy, final XUIModel model)
         {
-            if(menuBar instanceof XUIMenu)
+            XUIModel forwarder = (XUIModel)forwarders.get(model);
+            if(forwarder == null)
             {
-                XUIMenuItem menuItem = new XUIMenuItemImpl(menuComponentNode);
-                // add menu item to the menubar
-                ((XUIMenu)menuBar).addMenuItemForRealizer(menuItem);
+                Set interfaces = new HashSet();
+                for(Class c = model.getClass(); c != null; c = c.getSuperclass())
+                    addInterfaces(interfaces, c);
+                forwarder = (XUIModel)Proxy.newProxyInstance(model.getClass().getClassLoader(),
+                    (Class[])interfaces.toArray(new Class[interfaces.size()]), new InvocationHandler()
+                    {
+                        public Object invoke(Object forwardingProxy, Method method, Object[] args)
+                            throws Throwable
+                        {
+                            if(method.getDeclaringClass() == Object.class)
+                                return invokeObjectMethod(forwardingProxy, method, args,
+                                    "Forwarder to " + model);
+                            if(args != null)
+                            {
+                                for(int i = 0; i < args.length; i++)
+                                    if(args[i] == component)
+                                        args[i] = proxy;
+                            }
+                            try
+                            {
+                                return method.invoke(model, args);
+                            } catch(InvocationTargetException ite)
+                            {
+                                throw ite.getCause();
+                            }
+                        }
+                });
+                forwarders.put(model, forwarder);
             }
+            return forwarder;
         }
 
+        /**
+         * Adds an interface and the interfaces it extends, or the interfaces a class implements,
+         * to a set.
+         *
+         * @param interfaces the set.
+         * @param type the class or interface.
+         */
+        private static void addInterfaces(Set interfaces, Class type)
+        {
+            if(type.isInterface())
+                interfaces.add(type);
+            Class[] extended = type.getInterfaces();
+            for(int i = 0; i < extended.length; i++)
+                addInterfaces(interfaces, extended[i]);
+        }
+
+        /**
+         * Answers a call to a method of <code>Object</code> on a stand-in: objects are equal only to
+         * themselves.
+         *
+         * @param proxy the stand-in.
+         * @param method the method called.
+         * @param args the arguments of the call.
+         * @param description what <code>toString</code> returns.
+         * @return the result of the call.
+         */
+        private static Object invokeObjectMethod(Object proxy, Method method, Object[] args,
+            String description)
+        {
+            String name = method.getName();
+            if(name.equals("equals"))
+                return Boolean.valueOf(proxy == args[0]);
+            else if(name.equals("hashCode"))
+                return Integer.valueOf(System.identityHashCode(proxy));
+            else
+                return description;
+        }
     }
 
     /**
-     * Builds atomic components based on the container that is given.
-     *
-     * @param atomicNode the node representing an atomic component.
-     * @param container the container that owns this atomic component.
+     * Registers the realizers of the elements that may appear within a menu bar or menu.
      */
-    private void doAtomic(XUINode atomicNode, XUIContainer container)
+    private static void registerMenuComponents()
     {
-        // this is required since the pipeline is different from
-        // this class (Realizer) than from creating the XUI from
-        // scratch within the API calls. We need to differentiate.
-        atomicNode.setFromRealizer(true);
+        registerMenuComponent("Menu", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIMenu menu = new XUIMenuImpl(node);
 
-        String type = atomicNode.getName();
-        if(type.equals("Button"))
-        {
-            XUIButton button = new XUIButtonImpl(atomicNode);
-            // add the button to the container
-            container.addComponent(button);
+                    if(parent instanceof XUIMenu)
+                        ((XUIMenu)parent).addMenuForRealizer(menu);
+                    else
+                        ((XUIMenuBar)parent).addMenuForRealizer(menu);
 
-        } else if(type.equals("Image"))
-        {
-            XUIImage image = new XUIImageImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(image);
+                    // go through the list of menus and submenus and realize them
+                    List menuComponents = node.getDirectChildren();
+                    for(int z = 0; z < menuComponents.size(); z++)
+                        realizer.doMenus((XUINode)menuComponents.get(z), menu);
+                }
+        });
 
-        } else if(type.equals("Calendar"))
-        {
-            XUICalendar calendar = new XUICalendarImpl(atomicNode);
-            // add the Calendar to the container
-            container.addComponent(calendar);
+        registerMenuComponent("MenuItem", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    // menu items only go into menus, not directly into the menu bar
+                    if(parent instanceof XUIMenu)
+                    {
+                        XUIMenuItem menuItem = new XUIMenuItemImpl(node);
+                        ((XUIMenu)parent).addMenuItemForRealizer(menuItem);
+                    }
+                }
+        });
+    }
 
-        } else if(type.equals("CheckBox"))
-        {
-            XUICheckBox checkbox = new XUICheckBoxImpl(atomicNode);
-            // add the checkbox to the container
-            container.addComponent(checkbox);
+    /**
+     * Registers the realizers of the elements that may appear within a panel.
+     */
+    private static void registerAtomics()
+    {
+        registerAtomic("GridLayout", IGNORE);
 
-        } else if(type.equals("ComboBox"))
-        {
-            XUIComboBox combobox = new XUIComboBoxImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(combobox);
+        registerAtomic("Button", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIButton button = new XUIButtonImpl(node);
+                    ((XUIContainer)parent).addComponent(button);
+                }
+        });
 
-        } else if(type.equals("HypertextPane"))
-        {
-            XUIHypertextPane hyper = new XUIHypertextPaneImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(hyper);
+        registerAtomic("Image", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIImage image = new XUIImageImpl(node);
+                    ((XUIContainer)parent).addComponent(image);
+                }
+        });
 
-        } else if(type.equals("Label"))
-        {
-            XUILabel label = new XUILabelImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(label);
+        registerAtomic("Calendar", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUICalendar calendar = new XUICalendarImpl(node);
+                    ((XUIContainer)parent).addComponent(calendar);
+                }
+        });
 
-        } else if(type.equals("List"))
-        {
-            XUIList list = new XUIListImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(list);
+        registerAtomic("CheckBox", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUICheckBox checkbox = new XUICheckBoxImpl(node);
+                    ((XUIContainer)parent).addComponent(checkbox);
+                }
+        });
 
-        } else if(type.equals("PasswordField"))
-        {
-            XUIPasswordField pwdfield = new XUIPasswordFieldImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(pwdfield);
+        registerAtomic("ComboBox", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIComboBox combobox = new XUIComboBoxImpl(node);
+                    ((XUIContainer)parent).addComponent(combobox);
+                }
+        });
 
-        } else if(type.equals("ProgressBar"))
-        {
-            XUIProgressBar progress = new XUIProgressBarImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(progress);
+        registerAtomic("HypertextPane", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIHypertextPane hyper = new XUIHypertextPaneImpl(node);
+                    ((XUIContainer)parent).addComponent(hyper);
+                }
+        });
 
-        } else if(type.equals("RadioButton"))
-        {
-            XUIRadioButton radioButton = new XUIRadioButtonImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(radioButton);
+        registerAtomic("Label", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUILabel label = new XUILabelImpl(node);
+                    ((XUIContainer)parent).addComponent(label);
+                }
+        });
 
-        } else if(type.equals("SliderBar"))
-        {
-            XUISliderBar slider = new XUISliderBarImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(slider);
+        registerAtomic("List", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIList list = new XUIListImpl(node);
+                    ((XUIContainer)parent).addComponent(list);
+                }
+        });
 
-        } else if(type.equals("Table"))
-        {
-            XUITable table = new XUITableImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(table);
+        registerAtomic("PasswordField", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIPasswordField pwdfield = new XUIPasswordFieldImpl(node);
+                    ((XUIContainer)parent).addComponent(pwdfield);
+                }
+        });
 
-        } else if(type.equals("TextArea"))
-        {
-            XUITextArea textArea = new XUITextAreaImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(textArea);
+        registerAtomic("ProgressBar", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIProgressBar progress = new XUIProgressBarImpl(node);
+                    ((XUIContainer)parent).addComponent(progress);
+                }
+        });
 
-        } else if(type.equals("TextField"))
-        {
-            XUITextField textField = new XUITextFieldImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(textField);
+        registerAtomic("RadioButton", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUIRadioButton radioButton = new XUIRadioButtonImpl(node);
+                    ((XUIContainer)parent).addComponent(radioButton);
+                }
+        });
 
-        } else if(type.equals("Tree"))
-        {
-            XUITree tree = new XUITreeImpl(atomicNode);
-            // add the image to the container
-            container.addComponent(tree);
+        registerAtomic("SliderBar", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUISliderBar slider = new XUISliderBarImpl(node);
+                    ((XUIContainer)parent).addComponent(slider);
+                }
+        });
 
-        }
+        registerAtomic("Table", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUITable table = new XUITableImpl(node);
+                    ((XUIContainer)parent).addComponent(table);
+                }
+        });
+
+        registerAtomic("TextArea", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUITextArea textArea = new XUITextAreaImpl(node);
+                    ((XUIContainer)parent).addComponent(textArea);
+                }
+        });
+
+        registerAtomic("TextField", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUITextField textField = new XUITextFieldImpl(node);
+                    ((XUIContainer)parent).addComponent(textField);
+                }
+        });
+
+        registerAtomic("Tree", new XUIComponentRealizer()
+            {
+                public void realize(XUINode node, XUIComponent parent, Realizer realizer)
+                {
+                    XUITree tree = new XUITreeImpl(node);
+                    ((XUIContainer)parent).addComponent(tree);
+                }
+        });
     }
 
 }
@@ -0,0 +1,620 @@
+package org.purnamaproject.xui.helpers;
+
+/**
+ * @(#)XUIBenchmark.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.XUIBuilder;
+import org.purnamaproject.xui.XUIBuilderFactory;
+import org.purnamaproject.xui.XUIBuilderService;
+import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUINodeVisitor;
+import org.purnamaproject.xui.binding.ActionModel;
+import org.purnamaproject.xui.binding.BindingFactory;
+import org.purnamaproject.xui.binding.XUIHandler;
+import org.purnamaproject.xui.component.XUIComponent;
+import org.purnamaproject.xui.component.container.intermediate.XUIPanel;
+import org.purnamaproject.xui.impl.XUIBinaryReader;
+import org.purnamaproject.xui.impl.XUINodeImpl;
+import org.purnamaproject.xui.impl.XUIPanelImpl;
+import org.purnamaproject.xui.peer.GraphPaperLayout;
+
+/**
+ * This class is simply for measuring purposes. Each measurement is run from the command line and
+ * prints its results, much like <code>XUITest</code> loads a document as an application.
+ *
+ * <pre>
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark footprint &lt;filename&gt; [copies]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark binary &lt;filename&gt; [runs]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark compiled &lt;filename&gt; &lt;classname&gt; [runs]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark parse [elements] [runs]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark service [documents] [runs]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark realize [components] [runs]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark layout [components] [runs]
+ *  java org.purnamaproject.xui.helpers.XUIBenchmark dispatch [events]
+ * </pre>
+ *
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIBenchmark
+{
+    /**
+     * Parses many copies of a document and prints the heap they take up for each node.
+     *
+     * @param fileName the document.
+     * @param copies the number of copies to hold at once.
+     * @throws Exception if the document cannot be parsed.
+     */
+    public static void footprint(String fileName, int copies) throws Exception
+    {
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        builder.setValidationMode(XUIBuilder.VALIDATION_NONE);
+        // warm up so that classes and shared tables are not counted
+        builder.parse(fileName);
+        final int[] nodes = new int[1];
+        builder.getXUIDocument().getRoot().visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    nodes[0]++;
+                    return true;
+                }
+        });
+        nodes[0]++;
+
+        Vector documents = new Vector(copies);
+        long before = usedMemory();
+        for(int i = 0; i < copies; i++)
+        {
+            builder.parse(fileName);
+            documents.add(builder.getXUIDocument());
+        }
+        long after = usedMemory();
+        System.out.println(fileName + ": " + nodes[0] + " nodes, " + copies + " copies");
+        System.out.println("heap per document: " + (after - before) / copies + " bytes");
+        System.out.println("heap per node: " + (after - before) / ((long)copies * nodes[0]) + " bytes");
+        // keep the documents reachable until measured
+        if(documents.size() != copies)
+            throw new IllegalStateException();
+    }
+
+    /**
+     * Compares loading a document from XML, validated against the schema, with loading it from
+     * the binary format. Prints the size of each file and the average time to load it.
+     *
+     * @param fileName the XML document.
+     * @param runs the number of times each is loaded.
+     * @throws Exception if the document cannot be parsed or converted.
+     */
+    public static void binary(String fileName, int runs) throws Exception
+    {
+        File xmlFile = new File(fileName);
+        File binaryFile = File.createTempFile("xui", ".xuib");
+        binaryFile.deleteOnExit();
+        XUIBinaryConverter.xmlToBinary(xmlFile, binaryFile);
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+
+        long xml = 0;
+        long bin = 0;
+        // the first half of the runs warm up
+        for(int i = -runs; i < runs; i++)
+        {
+            long start = System.nanoTime();
+            builder.parse(xmlFile);
+            long middle = System.nanoTime();
+            XUIBinaryReader.read(binaryFile.toPath());
+            long end = System.nanoTime();
+            if(i >= 0)
+            {
+                xml += middle - start;
+                bin += end - middle;
+            }
+        }
+        System.out.println(fileName + ": " + runs + " runs");
+        System.out.println("XML:    " + xmlFile.length() + " bytes, " + xml / runs / 1000 + " us per load");
+        System.out.println("binary: " + binaryFile.length() + " bytes, " + bin / runs / 1000 + " us per load");
+    }
+
+    /**
+     * Compares loading a document the way <code>XUITest</code> does, parsed and validated against
+     * the schema, with building it from the class the <code>XUICompiler</code> generated from it.
+     * The generated class must be on the classpath. Prints the average time to load each.
+     *
+     * @param fileName the XML document.
+     * @param className the name of the class generated from the document.
+     * @param runs the number of times each is loaded.
+     * @throws Exception if the document cannot be parsed or the class cannot be found.
+     */
+    public static void compiled(String fileName, String className, int runs) throws Exception
+    {
+        Method createDocument = Class.forName(className).getMethod("createDocument", new Class[0]);
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+
+        long parsed = 0;
+        long built = 0;
+        // the first half of the runs warm up
+        for(int i = -runs; i < runs; i++)
+        {
+            long start = System.nanoTime();
+            builder.parse(fileName);
+            builder.getXUIDocument();
+            long middle = System.nanoTime();
+            createDocument.invoke(null, new Object[0]);
+            long end = System.nanoTime();
+            if(i >= 0)
+            {
+                parsed += middle - start;
+                built += end - middle;
+            }
+        }
+        System.out.println(fileName + ": " + runs + " runs");
+        System.out.println("parsed:   " + parsed / runs / 1000 + " us per load");
+        System.out.println("compiled: " + built / runs / 1000 + " us per load");
+    }
+
+    /**
+     * Parses a document of a large table, without validation so that only the SAX handler
+     * building the nodes is measured, and prints the elements parsed per second. Each cell holds
+     * a line of text and is indented on a line of its own, so the handler sees element and
+     * character events in about the numbers a hand written document gives it.
+     *
+     * @param elements the number of elements in the document, roughly.
+     * @param runs the number of times the document is parsed.
+     * @throws Exception if the document cannot be parsed.
+     */
+    public static void parse(int elements, int runs) throws Exception
+    {
+        byte[] document = tableDocument(elements);
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        // make sure the document is valid before it is measured
+        builder.parse(document);
+        int parsed = builder.getXUIDocument().getFlattenedView().size();
+        builder.setValidationMode(XUIBuilder.VALIDATION_NONE);
+        long total = 0;
+        // the first half of the runs warm up
+        for(int i = -runs; i < runs; i++)
+        {
+            long start = System.nanoTime();
+            builder.parse(document);
+            builder.getXUIDocument();
+            long end = System.nanoTime();
+            if(i >= 0)
+                total += end - start;
+        }
+        System.out.println(parsed + " elements, " + document.length + " bytes, " + runs + " runs");
+        System.out.println("parse: " + total / runs / 1000 + " us per document, "
+            + (long)(parsed * (double)runs * 1000000000L / total) + " elements per second");
+    }
+
+    /**
+     * Returns a document of a window holding a table with rows of ten cells each.
+     *
+     * @param elements the number of elements in the document, roughly.
+     * @return the document, encoded in UTF-8.
+     * @throws Exception if the document cannot be encoded.
+     */
+    private static byte[] tableDocument(int elements) throws Exception
+    {
+        int columns = 10;
+        int rows = Math.max(1, elements / (columns + 1));
+        StringBuffer sb = new StringBuffer();
+        sb.append("<xui:XUI xmlns:xui=\"http://xml.bcit.ca/PurnamaProject/2003/xui\" id=\"benchmark\">\n");
+        sb.append("<xui:Window id=\"window_0\" name=\"benchmark\" x=\"0\" y=\"0\" width=\"800\" ");
+        sb.append("height=\"600\" visible=\"false\">\n  <xui:GridLayout width=\"1\" height=\"1\"/>\n");
+        sb.append("  <xui:Panel id=\"panel_0\" name=\"panel\" x=\"0\" y=\"0\" width=\"1\" height=\"1\">\n");
+        sb.append("    <xui:GridLayout width=\"1\" height=\"1\"/>\n");
+        sb.append("    <xui:Table id=\"table_0\" x=\"0\" y=\"0\" width=\"1\" height=\"1\" isEditable=\"false\">\n");
+        sb.append("      <xui:ColumnHeader>\n");
+        for(int j = 0; j < columns; j++)
+            sb.append("        <xui:Cell justified=\"left\">Column " + j + "</xui:Cell>\n");
+        sb.append("      </xui:ColumnHeader>\n      <xui:RowHeader>\n");
+        for(int i = 0; i < rows; i++)
+            sb.append("        <xui:Cell justified=\"left\">Row " + i + "</xui:Cell>\n");
+        sb.append("      </xui:RowHeader>\n");
+        for(int i = 0; i < rows; i++)
+        {
+            sb.append("      <xui:Row>\n");
+            for(int j = 0; j < columns; j++)
+                sb.append("        <xui:Cell justified=\"right\">The value of cell " + i + ", " + j + "</xui:Cell>\n");
+            sb.append("      </xui:Row>\n");
+        }
+        sb.append("    </xui:Table>\n  </xui:Panel>\n</xui:Window>\n</xui:XUI>\n");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    /**
+     * Loads many documents at once through <code>XUIBuilderService.parseAll</code> with one
+     * thread, two threads and one thread for each processor, and prints the documents loaded
+     * per second with each. The documents are tables of about a thousand elements, validated
+     * against the schema as the service does by default.
+     *
+     * @param documents the number of documents loaded at once.
+     * @param runs the number of times they are loaded with each number of threads.
+     * @throws Exception if a document cannot be written or parsed.
+     */
+    public static void service(int documents, int runs) throws Exception
+    {
+        byte[] document = tableDocument(1000);
+        Vector paths = new Vector(documents);
+        for(int i = 0; i < documents; i++)
+        {
+            File file = File.createTempFile("xui", ".xml");
+            file.deleteOnExit();
+            Files.write(file.toPath(), document);
+            paths.add(file.toPath());
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int[] threads = {1, 2, processors};
+        System.out.println(documents + " documents of " + document.length + " bytes, " + runs + " runs, "
+            + processors + " processors");
+        for(int t = 0; t < threads.length; t++)
+        {
+            // one thread for each processor has already been measured on small machines
+            if(t == 2 && processors <= 2)
+                break;
+            XUIBuilderService service = new XUIBuilderService(threads[t]);
+            long total = 0;
+            // the first half of the runs warm up
+            for(int i = -runs; i < runs; i++)
+            {
+                long start = System.nanoTime();
+                List futures = service.parseAll(paths);
+                for(int j = 0; j < futures.size(); j++)
+                    ((Future)futures.get(j)).get();
+                long end = System.nanoTime();
+                if(i >= 0)
+                    total += end - start;
+            }
+            service.shutdown();
+            System.out.println(threads[t] + ((threads[t] == 1) ? " thread:  " : " threads: ")
+                + (long)(documents * (double)runs * 1000000000L / total) + " documents per second");
+        }
+    }
+
+    /**
+     * Realizes a panel holding many buttons and labels and prints the average time taken. The
+     * panel is realized within a plain Swing panel, through <code>Realizer.doPanelContents</code>,
+     * so that the measurement needs no display for a window.
+     *
+     * @param components the number of components in the panel.
+     * @param runs the number of times the panel is realized.
+     * @throws Exception if the document cannot be parsed or realized.
+     */
+    public static void realize(int components, int runs) throws Exception
+    {
+        byte[] document = panelDocument(components);
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        builder.setValidationMode(XUIBuilder.VALIDATION_NONE);
+        long total = 0;
+        // the first half of the runs warm up
+        for(int i = -runs; i < runs; i++)
+        {
+            builder.parse(document);
+            XUI xui = builder.getXUIDocument();
+            long start = System.nanoTime();
+            XUIPanel panel = realizePanel(xui);
+            long end = System.nanoTime();
+            if(i >= 0)
+                total += end - start;
+            if(panel.getGridMapping().size() != components)
+                throw new IllegalStateException("Only " + panel.getGridMapping().size() + " components realized");
+        }
+        System.out.println(components + " components, " + runs + " runs");
+        System.out.println("realize: " + total / runs / 1000 + " us per panel");
+    }
+
+    /**
+     * Returns a document of a window holding a panel of buttons and labels. The buttons have the
+     * ids <code>button_0</code>, <code>button_2</code> and so on, the labels <code>label_1</code>,
+     * <code>label_3</code> and so on, and the panel <code>panel_0</code>.
+     *
+     * @param components the number of components in the panel.
+     * @return the document, encoded in UTF-8.
+     * @throws Exception if the document cannot be encoded.
+     */
+    private static byte[] panelDocument(int components) throws Exception
+    {
+        int columns = 100;
+        int rows = (components + columns - 1) / columns;
+        StringBuffer sb = new StringBuffer();
+        sb.append("<xui:XUI xmlns:xui=\"http://xml.bcit.ca/PurnamaProject/2003/xui\" id=\"benchmark\">");
+        sb.append("<xui:Window id=\"window_0\" name=\"benchmark\" x=\"0\" y=\"0\" width=\"800\" ");
+        sb.append("height=\"600\" visible=\"false\"><xui:GridLayout width=\"1\" height=\"1\"/>");
+        sb.append("<xui:Panel id=\"panel_0\" name=\"panel\" x=\"0\" y=\"0\" width=\"1\" height=\"1\">");
+        sb.append("<xui:GridLayout width=\"" + columns + "\" height=\"" + rows + "\"/>");
+        for(int i = 0; i < components; i++)
+        {
+            // x is the row and y the column
+            String position = " x=\"" + (i / columns) + "\" y=\"" + (i % columns) + "\" width=\"1\" height=\"1\"";
+            if(i % 2 == 0)
+                sb.append("<xui:Button id=\"button_" + i + "\"" + position
+                    + " label=\"" + i + "\" enabled=\"true\" orientation=\"horizontal\"/>");
+            else
+                sb.append("<xui:Label id=\"label_" + i + "\"" + position
+                    + " justified=\"center\" text=\"" + i + "\"/>");
+        }
+        sb.append("</xui:Panel></xui:Window></xui:XUI>");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    /**
+     * Realizes the panel of a document returned by <code>panelDocument</code> within a plain Swing
+     * panel, which stands in for the window as that needs a display.
+     *
+     * @param xui the document.
+     * @return the panel.
+     */
+    private static XUIPanel realizePanel(XUI xui)
+    {
+        XUINode panelNode = (XUINode)xui.getNodeByID("panel_0").get(0);
+        XUIPanel panel = new XUIPanelImpl(panelNode);
+        new JPanel().add(panel.getPeer());
+        Realizer.getInstance(xui).doPanelContents(panelNode, panel);
+        return panel;
+    }
+
+    /**
+     * Lays out a panel holding many buttons and labels through a <code>GraphPaperLayout</code> while
+     * its width is dragged from 800 to 1600 pixels and back, and prints the average time taken per
+     * step. Each step resizes the panel, asks for its preferred size and lays it out, as the
+     * window holding it would.
+     *
+     * @param components the number of components in the panel.
+     * @param runs the number of drags.
+     */
+    public static void layout(int components, int runs)
+    {
+        int columns = 50;
+        int rows = (components + columns - 1) / columns;
+        GraphPaperLayout layout = new GraphPaperLayout(new Dimension(columns, rows));
+        JPanel panel = new JPanel(layout);
+        for(int i = 0; i < components; i++)
+        {
+            Rectangle cell = new Rectangle(i % columns, i / columns, 1, 1);
+            if(i % 2 == 0)
+                panel.add(new JButton(String.valueOf(i)), cell);
+            else
+                panel.add(new JLabel(String.valueOf(i)), cell);
+        }
+
+        int steps = 0;
+        long total = 0;
+        // the first half of the runs warm up
+        for(int i = -runs; i < runs; i++)
+        {
+            long start = System.nanoTime();
+            for(int width = 800; width < 2400; width += 4)
+            {
+                panel.setSize((width <= 1600) ? width : 3200 - width, 600);
+                layout.preferredLayoutSize(panel);
+                panel.doLayout();
+                if(i >= 0)
+                    steps++;
+            }
+            long end = System.nanoTime();
+            if(i >= 0)
+                total += end - start;
+        }
+        System.out.println(components + " components, " + runs + " drags of " + steps / runs + " steps");
+        System.out.println("layout: " + total / steps / 1000 + " us per step");
+    }
+
+    /**
+     * Fires action events at two buttons and prints the average time taken to deliver each to a
+     * model. One button is handled by an annotated method of a model bound through
+     * <code>BindingFactory</code>, the other by an <code>ActionModel</code> that calls the same
+     * method, as a model written against the interfaces would.
+     *
+     * @param events the number of events fired at each button.
+     * @throws Exception if the document cannot be parsed or the model cannot be bound.
+     */
+    public static void dispatch(int events) throws Exception
+    {
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        builder.setValidationMode(XUIBuilder.VALIDATION_NONE);
+        builder.parse(panelDocument(3));
+        XUI xui = builder.getXUIDocument();
+        realizePanel(xui);
+
+        // the binding factory binds to models within jar files
+        File jar = File.createTempFile("xuibenchmark", ".jar");
+        jar.deleteOnExit();
+        String entryName = DispatchModel.class.getName().replace('.', '/') + ".class";
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try
+        {
+            out.putNextEntry(new JarEntry(entryName));
+            InputStream in = XUIBenchmark.class.getResourceAsStream("/" + entryName);
+            byte[] buffer = new byte[4096];
+            int read = 0;
+            while((read = in.read(buffer)) >= 0)
+                out.write(buffer, 0, read);
+            in.close();
+        } finally
+        {
+            out.close();
+        }
+        XUINode resource = new XUINodeImpl("Resource");
+        resource.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "type", "type", "xs:token", "java");
+        resource.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "class", "class", "xs:token",
+            DispatchModel.class.getName());
+        resource.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "uri", "uri", "xs:anyURI",
+            jar.getAbsolutePath());
+        BindingFactory.getInstance().doBinding(resource, xui);
+
+        final DispatchModel model = new DispatchModel();
+        xui.getXUIEventSource("button_2").addEventListener(new ActionModel()
+            {
+                public void action(XUIComponent component)
+                {
+                    model.clicked(component);
+                }
+        });
+
+        XUIComponent annotated = xui.getXUIComponent("button_0");
+        XUIComponent implemented = xui.getXUIComponent("button_2");
+        // the first round warms up
+        for(int round = 0; round < 2; round++)
+        {
+            long annotatedTime = fire(annotated, events);
+            long implementedTime = fire(implemented, events);
+            if(round == 1)
+            {
+                System.out.println(events + " events per button");
+                System.out.println("annotated handler: " + annotatedTime / events + " ns per event");
+                System.out.println("action model:      " + implementedTime / events + " ns per event");
+            }
+        }
+        if(DispatchModel.calls != 4L * events)
+            throw new IllegalStateException(DispatchModel.calls + " events were handled");
+    }
+
+    /**
+     * Fires action events at a button and returns the time taken.
+     *
+     * @param button the button.
+     * @param events the number of events.
+     * @return the time taken in nanoseconds.
+     */
+    private static long fire(XUIComponent button, int events)
+    {
+        ActionListener listener = (ActionListener)button;
+        ActionEvent event = new ActionEvent(button.getPeer(), ActionEvent.ACTION_PERFORMED, "");
+        long start = System.nanoTime();
+        for(int i = 0; i < events; i++)
+            listener.actionPerformed(event);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The model that handles the buttons of the dispatch measurement.
+     */
+    public static class DispatchModel
+    {
+        /**
+         * The number of events handled by all models.
+         */
+        static long calls = 0;
+
+        /**
+         * Handles an action event.
+         *
+         * @param component the button.
+         */
+        @XUIHandler(id = "button_0")
+        public void clicked(XUIComponent component)
+        {
+            calls++;
+        }
+    }
+
+    /**
+     * Returns the heap in use once garbage has been collected.
+     *
+     * @return the heap in use, in bytes.
+     */
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 4; i++)
+        {
+            System.gc();
+            try
+            {
+                Thread.sleep(50);
+            } catch(InterruptedException ie)
+            {
+                ;
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs a measurement.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if(args.length >= 2 && args[0].equals("footprint"))
+            footprint(args[1], (args.length > 2) ? Integer.parseInt(args[2]) : 1000);
+        else if(args.length >= 2 && args[0].equals("binary"))
+            binary(args[1], (args.length > 2) ? Integer.parseInt(args[2]) : 200);
+        else if(args.length >= 3 && args[0].equals("compiled"))
+            compiled(args[1], args[2], (args.length > 3) ? Integer.parseInt(args[3]) : 200);
+        else if(args.length >= 1 && args[0].equals("parse"))
+            parse((args.length > 1) ? Integer.parseInt(args[1]) : 100000,
+                (args.length > 2) ? Integer.parseInt(args[2]) : 20);
+        else if(args.length >= 1 && args[0].equals("service"))
+            service((args.length > 1) ? Integer.parseInt(args[1]) : 200,
+                (args.length > 2) ? Integer.parseInt(args[2]) : 10);
+        else if(args.length >= 1 && args[0].equals("realize"))
+            realize((args.length > 1) ? Integer.parseInt(args[1]) : 10000,
+                (args.length > 2) ? Integer.parseInt(args[2]) : 10);
+        else if(args.length >= 1 && args[0].equals("layout"))
+            layout((args.length > 1) ? Integer.parseInt(args[1]) : 2000,
+                (args.length > 2) ? Integer.parseInt(args[2]) : 10);
+        else if(args.length >= 1 && args[0].equals("dispatch"))
+            dispatch((args.length > 1) ? Integer.parseInt(args[1]) : 10000000);
+        else
+        {
+            System.out.println("Usage: java XUIBenchmark footprint <filename> [copies]");
+            System.out.println("       java XUIBenchmark binary <filename> [runs]");
+            System.out.println("       java XUIBenchmark compiled <filename> <classname> [runs]");
+            System.out.println("       java XUIBenchmark parse [elements] [runs]");
+            System.out.println("       java XUIBenchmark service [documents] [runs]");
+            System.out.println("       java XUIBenchmark realize [components] [runs]");
+            System.out.println("       java XUIBenchmark layout [components] [runs]");
+            System.out.println("       java XUIBenchmark dispatch [events]");
+            System.exit(0);
+        }
+    }
+}
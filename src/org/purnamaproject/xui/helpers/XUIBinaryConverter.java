@@ -0,0 +1,115 @@
+package org.purnamaproject.xui.helpers;
+
+/**
+ * @(#)XUIBinaryConverter.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.XUIBuilder;
+import org.purnamaproject.xui.XUIBuilderFactory;
+import org.purnamaproject.xui.XUIParseException;
+import org.purnamaproject.xui.impl.XUIBinaryReader;
+import org.purnamaproject.xui.impl.XUIBinaryWriter;
+
+/**
+ * Converts XUI documents between their XML form and the XUI binary format. Documents going
+ * from XML to binary are parsed and validated as usual on the way in.
+ *
+ * @see org.purnamaproject.xui.impl.XUIBinaryWriter
+ * @see org.purnamaproject.xui.impl.XUIBinaryReader
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIBinaryConverter
+{
+    /**
+     * Not to be instantiated.
+     */
+    private XUIBinaryConverter()
+    {
+    }
+
+    /**
+     * Converts a XUI document from XML to the binary format.
+     *
+     * @param xmlFile the XML document to read.
+     * @param binaryFile the binary document to write. Any existing file is replaced.
+     * @throws XUIParseException if the XML document is not a valid XUI document.
+     * @throws IOException if the binary document cannot be written.
+     */
+    public static void xmlToBinary(File xmlFile, File binaryFile) throws XUIParseException, IOException
+    {
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        builder.parse(xmlFile);
+        XUIBinaryWriter.write(builder.getXUIDocument().getRoot(), binaryFile.toPath());
+    }
+
+    /**
+     * Converts a XUI document from the binary format to XML.
+     *
+     * @param binaryFile the binary document to read.
+     * @param xmlFile the XML document to write. Any existing file is replaced.
+     * @throws XUIParseException if the binary document is malformed.
+     * @throws IOException if either document cannot be read or written.
+     */
+    public static void binaryToXML(File binaryFile, File xmlFile) throws XUIParseException, IOException
+    {
+        XUI document = XUIBinaryReader.read(binaryFile.toPath());
+        document.marshalXUI(xmlFile);
+    }
+
+    /**
+     * Converts a document from the command line.
+     */
+    public static void main(String[] args)
+    {
+        if(args == null || args.length != 3 || !(args[0].equals("-toBinary") || args[0].equals("-toXML")))
+        {
+            System.out.println("Usage: java XUIBinaryConverter (-toBinary | -toXML) <input file> <output file>");
+            System.exit(0);
+        }
+        try
+        {
+            if(args[0].equals("-toBinary"))
+                xmlToBinary(new File(args[1]), new File(args[2]));
+            else
+                binaryToXML(new File(args[1]), new File(args[2]));
+        } catch(Exception e)
+        {
+            System.out.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package org.purnamaproject.xui.helpers;
+
+/**
+ * @(#)XUICompiler.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import org.apache.commons.codec.binary.Base64;
+import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.XUIBuilder;
+import org.purnamaproject.xui.XUIBuilderFactory;
+import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUIParseException;
+import org.purnamaproject.xui.impl.XUINodeImpl;
+import org.xml.sax.Attributes;
+
+/**
+ * <p>Compiles a XUI document into a Java class ahead of time. The class builds the very same
+ * tree of nodes as parsing the document would, but without any XML parsing or validation at
+ * run time. The document is validated once, when it is compiled.</p>
+ *
+ * <p>The generated class has a <code>createDocument</code> method that returns the document and
+ * a <code>main</code> method that displays and binds it in the same way as
+ * {@link XUITest}. Image data and very long text are not put in the class itself but written
+ * to resource files next to it, named after the class. These files must be copied along with
+ * the compiled class.</p>
+ *
+ * <p>The compiler can be run from the command line or through the <code>compilexui</code>
+ * target of the build file.</p>
+ *
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUICompiler
+{
+    /**
+     * Text longer than this is written to a resource file instead of the class since the class
+     * file format limits the length of string constants.
+     */
+    private static final int MAX_LITERAL_LENGTH = 16 * 1024;
+
+    /**
+     * The name of the elements whose base 64 character data is written out as raw bytes.
+     */
+    private static final String BINARY_ELEMENT = "ImageData";
+
+    /**
+     * Where the source is written to.
+     */
+    private PrintWriter out;
+
+    /**
+     * The directory the class and its resources are written to.
+     */
+    private File directory;
+
+    /**
+     * The simple name of the class being generated.
+     */
+    private String simpleName;
+
+    /**
+     * The number of node methods written so far.
+     */
+    private int methods = 0;
+
+    /**
+     * The number of resource files written so far.
+     */
+    private int resources = 0;
+
+    /**
+     * Creates a compiler for one class.
+     *
+     * @param directory the directory the class and its resources are written to.
+     * @param simpleName the simple name of the class.
+     */
+    private XUICompiler(File directory, String simpleName)
+    {
+        this.directory = directory;
+        this.simpleName = simpleName;
+    }
+
+    /**
+     * Compiles a XUI document into the source of a Java class. The source is written to the
+     * package directory below the output directory, as are any resource files.
+     *
+     * @param xuiFile the XUI document to compile.
+     * @param className the fully qualified name of the class to generate.
+     * @param outputDirectory the root directory of the generated source.
+     * @return the source file written.
+     * @throws XUIParseException if the document is not a valid XUI document.
+     * @throws IOException if the source or its resources cannot be written.
+     */
+    public static File compile(File xuiFile, String className, File outputDirectory)
+        throws XUIParseException, IOException
+    {
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        builder.parse(xuiFile);
+        return compile(builder.getXUIDocument(), xuiFile.getName(), className, outputDirectory);
+    }
+
+    /**
+     * Compiles a XUI document into the source of a Java class. The source is written to the
+     * package directory below the output directory, as are any resource files.
+     *
+     * @param document the document to compile.
+     * @param origin a description of where the document came from, written into the class
+     * comment.
+     * @param className the fully qualified name of the class to generate.
+     * @param outputDirectory the root directory of the generated source.
+     * @return the source file written.
+     * @throws IOException if the source or its resources cannot be written.
+     */
+    public static File compile(XUI document, String origin, String className, File outputDirectory)
+        throws IOException
+    {
+        int dot = className.lastIndexOf('.');
+        String packageName = (dot == -1) ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+        File directory = outputDirectory;
+        if(packageName != null)
+            directory = new File(outputDirectory, packageName.replace('.', File.separatorChar));
+        if(!(directory.isDirectory()) && !(directory.mkdirs()))
+            throw new IOException("Cannot create directory " + directory);
+
+        File sourceFile = new File(directory, simpleName + ".java");
+        XUICompiler compiler = new XUICompiler(directory, simpleName);
+        compiler.out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8"));
+        try
+        {
+            compiler.writeClass(document.getRoot(), packageName, origin);
+        } finally
+        {
+            compiler.out.close();
+        }
+        if(compiler.out.checkError())
+            throw new IOException("Cannot write " + sourceFile);
+        return sourceFile;
+    }
+
+    /**
+     * Writes the class.
+     *
+     * @param root the root node of the document.
+     * @param packageName the package of the class or null for the default package.
+     * @param origin where the document came from.
+     * @throws IOException if a resource file cannot be written.
+     */
+    private void writeClass(XUINode root, String packageName, String origin) throws IOException
+    {
+        if(packageName != null)
+        {
+            out.println("package " + packageName + ";");
+            out.println();
+        }
+        out.println("import java.io.ByteArrayOutputStream;");
+        out.println("import java.io.IOException;");
+        out.println("import java.io.InputStream;");
+        out.println("import org.apache.commons.codec.binary.Base64;");
+        out.println("import org.purnamaproject.xui.XUI;");
+        out.println("import org.purnamaproject.xui.XUINode;");
+        out.println("import org.purnamaproject.xui.XUIValidationException;");
+        out.println("import org.purnamaproject.xui.impl.XUINodeImpl;");
+        out.println();
+        out.println("/**");
+        out.println(" * Builds the XUI document compiled from " + origin.replace("*/", "* /") + ".");
+        out.println(" * Generated by the XUI compiler, do not edit.");
+        out.println(" */");
+        out.println("public class " + simpleName);
+        out.println("{");
+        out.println("    /**");
+        out.println("     * Returns a new copy of the document.");
+        out.println("     *");
+        out.println("     * @return the document.");
+        out.println("     */");
+        out.println("    public static XUI createDocument()");
+        out.println("    {");
+        out.println("        try");
+        out.println("        {");
+        out.println("            return new XUI(node0());");
+        out.println("        } catch(XUIValidationException xve)");
+        out.println("        {");
+        out.println("            throw new IllegalStateException(xve.getMessage());");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Displays and binds the document.");
+        out.println("     */");
+        out.println("    public static void main(String[] args)");
+        out.println("    {");
+        out.println("        try");
+        out.println("        {");
+        out.println("            XUI xui = createDocument();");
+        out.println("            xui.visualize();");
+        out.println("            xui.bind();");
+        out.println("        } catch(Exception e)");
+        out.println("        {");
+        out.println("            e.printStackTrace();");
+        out.println("        }");
+        out.println("    }");
+        writeNode(root);
+        out.println();
+        out.println("    /**");
+        out.println("     * Reads a resource written by the XUI compiler.");
+        out.println("     */");
+        out.println("    private static byte[] resource(String name)");
+        out.println("    {");
+        out.println("        try");
+        out.println("        {");
+        out.println("            InputStream in = " + simpleName + ".class.getResourceAsStream(name);");
+        out.println("            if(in == null)");
+        out.println("                throw new IllegalStateException(\"Missing resource \" + name);");
+        out.println("            try");
+        out.println("            {");
+        out.println("                ByteArrayOutputStream bytes = new ByteArrayOutputStream();");
+        out.println("                byte[] buffer = new byte[8192];");
+        out.println("                int read;");
+        out.println("                while((read = in.read(buffer)) != -1)");
+        out.println("                    bytes.write(buffer, 0, read);");
+        out.println("                return bytes.toByteArray();");
+        out.println("            } finally");
+        out.println("            {");
+        out.println("                in.close();");
+        out.println("            }");
+        out.println("        } catch(IOException ioe)");
+        out.println("        {");
+        out.println("            throw new IllegalStateException(ioe.getMessage());");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Reads text written to a resource by the XUI compiler.");
+        out.println("     */");
+        out.println("    private static String text(String name)");
+        out.println("    {");
+        out.println("        try");
+        out.println("        {");
+        out.println("            return new String(resource(name), \"UTF-8\");");
+        out.println("        } catch(IOException ioe)");
+        out.println("        {");
+        out.println("            throw new IllegalStateException(ioe.getMessage());");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Reads raw bytes written to a resource by the XUI compiler as base 64 text.");
+        out.println("     */");
+        out.println("    private static String base64(String name)");
+        out.println("    {");
+        out.println("        return new String(Base64.encodeBase64(resource(name)));");
+        out.println("    }");
+        out.println("}");
+    }
+
+    /**
+     * Writes the method that builds a node, followed by the methods of its children. Each
+     * node has a method of its own so that no method grows beyond what a class file allows.
+     *
+     * @param node the node.
+     * @throws IOException if a resource file cannot be written.
+     */
+    private void writeNode(XUINode node) throws IOException
+    {
+        List children = node.getDirectChildren();
+        int first = methods + 1;
+        String method = "node" + methods++;
+        out.println();
+        out.println("    private static XUINode " + method + "()");
+        out.println("    {");
+        out.println("        XUINodeImpl node = new XUINodeImpl(" + literal(node.getName()) + ");");
+        out.println("        node.setLevel(" + node.getLevel() + ");");
+        if(node.isRoot())
+            out.println("        node.setToRoot(true);");
+        if(node instanceof XUINodeImpl && ((XUINodeImpl)node).isBeginOfNamespace())
+            out.println("        node.setIsBeginOfNamespace(true);");
+
+        Hashtable namespaces = node.getNamespaces();
+        Enumeration keys = namespaces.keys();
+        while(keys.hasMoreElements())
+        {
+            String uri = (String)keys.nextElement();
+            out.println("        node.addNamespace(" + literal((String)namespaces.get(uri)) + ", "
+                + literal(uri) + ");");
+        }
+
+        Attributes attributes = node.getAtributes();
+        int length = attributes.getLength();
+        for(int i = 0; i < length; i++)
+            out.println("        node.addAttribute(" + literal(attributes.getURI(i)) + ", "
+                + literal(attributes.getLocalName(i)) + ", " + literal(attributes.getQName(i)) + ", "
+                + literal(attributes.getType(i)) + ", " + text(attributes.getValue(i)) + ");");
+
+        String cdata = node.getCDATA();
+        if(cdata.length() > 0)
+        {
+            byte[] binary = toBinary(node);
+            if(binary != null)
+                out.println("        node.setCDATA(base64(" + literal(writeResource(binary)) + "));");
+            else
+                out.println("        node.setCDATA(" + text(cdata) + ");");
+        }
+
+        // the children are numbered in the order their methods are written below
+        int size = children.size();
+        int[] numbers = new int[size];
+        int next = first;
+        for(int i = 0; i < size; i++)
+        {
+            numbers[i] = next;
+            next += countNodes((XUINode)children.get(i));
+        }
+        for(int i = 0; i < size; i++)
+            out.println("        node.addChildNode(node" + numbers[i] + "());");
+        out.println("        return node;");
+        out.println("    }");
+
+        for(int i = 0; i < size; i++)
+            writeNode((XUINode)children.get(i));
+    }
+
+    /**
+     * Returns the number of nodes in a subtree.
+     *
+     * @param node the top of the subtree.
+     * @return the number of nodes, the top one included.
+     */
+    private static int countNodes(XUINode node)
+    {
+        List children = node.getDirectChildren();
+        int count = 1;
+        int size = children.size();
+        for(int i = 0; i < size; i++)
+            count += countNodes((XUINode)children.get(i));
+        return count;
+    }
+
+    /**
+     * Returns the raw bytes of a node's base 64 character data. Only done for image data and
+     * only if encoding the bytes again gives back the very same text.
+     *
+     * @param node the node.
+     * @return the decoded bytes or null if the character data is to be written as text.
+     * @throws IOException if the character data cannot be converted.
+     */
+    private static byte[] toBinary(XUINode node) throws IOException
+    {
+        if(!(node.getName().equals(BINARY_ELEMENT)))
+            return null;
+        byte[] text = node.getCDATA().getBytes("US-ASCII");
+        if(!Base64.isArrayByteBase64(text))
+            return null;
+        byte[] binary = Base64.decodeBase64(text);
+        if(!(Arrays.equals(Base64.encodeBase64(binary), text)))
+            return null;
+        return binary;
+    }
+
+    /**
+     * Returns the Java expression for a piece of text. Long text is written to a resource.
+     *
+     * @param s the text.
+     * @return the expression.
+     * @throws IOException if the resource cannot be written.
+     */
+    private String text(String s) throws IOException
+    {
+        if(s.length() <= MAX_LITERAL_LENGTH)
+            return literal(s);
+        return "text(" + literal(writeResource(s.getBytes("UTF-8"))) + ")";
+    }
+
+    /**
+     * Writes a resource file next to the class.
+     *
+     * @param data the contents of the resource.
+     * @return the name of the resource.
+     * @throws IOException if the file cannot be written.
+     */
+    private String writeResource(byte[] data) throws IOException
+    {
+        String name = simpleName + "_" + resources++ + ".dat";
+        FileOutputStream fos = new FileOutputStream(new File(directory, name));
+        try
+        {
+            fos.write(data);
+        } finally
+        {
+            fos.close();
+        }
+        return name;
+    }
+
+    /**
+     * Returns a Java string literal for a string.
+     *
+     * @param s the string.
+     * @return the literal, quotes included.
+     */
+    private static String literal(String s)
+    {
+        StringBuffer sb = new StringBuffer(s.length() + 2);
+        sb.append('"');
+        for(int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch(c)
+            {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if(c < ' ')
+                        sb.append("\\").append(Integer.toOctalString(c + 0100).substring(1));
+                    else if(c > '~')
+                        sb.append("\\u").append(Integer.toHexString(c + 0x10000).substring(1));
+                    else
+                        sb.append(c);
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    /**
+     * Compiles a document from the command line.
+     */
+    public static void main(String[] args)
+    {
+        if(args == null || args.length != 3)
+        {
+            System.out.println("Usage: java XUICompiler <XUI file> <class name> <output directory>");
+            System.exit(0);
+        }
+        try
+        {
+            File source = compile(new File(args[0]), args[1], new File(args[2]));
+            System.out.println("Wrote " + source);
+        } catch(Exception e)
+        {
+            System.out.println("Compilation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
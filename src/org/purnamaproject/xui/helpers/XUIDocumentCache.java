@@ -0,0 +1,473 @@
+package org.purnamaproject.xui.helpers;
+
+/**
+ * @(#)XUIDocumentCache.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.XUIBuilder;
+import org.purnamaproject.xui.XUIBuilderFactory;
+import org.purnamaproject.xui.XUIParseException;
+import org.purnamaproject.xui.XUIValidationException;
+import org.purnamaproject.xui.impl.XUINodeImpl;
+
+/**
+ * <p>Keeps parsed XUI documents so that documents which are opened again and again are only
+ * read, validated and parsed once. Documents are found by their path or URL. A document whose
+ * modification time has changed is read again and only parsed again if its contents have changed
+ * as well. Once the cache is full the document used least recently is dropped.</p>
+ *
+ * <p>Each document handed out is a copy of the cached one, so callers may change the documents
+ * they are given. The copies keep the ids of the original document just as parsing the same file
+ * twice would.</p>
+ *
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIDocumentCache
+{
+    /**
+     * The cached documents by the string form of their path or URL, least recently used first.
+     */
+    private LinkedHashMap entries;
+
+    /**
+     * The number of documents that can be kept.
+     */
+    private int maximumSize;
+
+    /**
+     * The number of documents found in the cache.
+     */
+    private long hits = 0;
+
+    /**
+     * The number of documents that had to be parsed.
+     */
+    private long misses = 0;
+
+    /**
+     * The number of documents dropped to make room for others.
+     */
+    private long evictions = 0;
+
+    /**
+     * A cached document along with what is needed to tell whether it is still current.
+     */
+    private static class Entry
+    {
+        /**
+         * The document as parsed. It is never handed out.
+         */
+        XUI document;
+
+        /**
+         * The modification time of the document when it was read.
+         */
+        long lastModified;
+
+        /**
+         * The digest of the contents of the document.
+         */
+        byte[] digest;
+    }
+
+    /**
+     * Creates a cache that keeps up to the given number of documents.
+     *
+     * @param maximumSize the number of documents to keep.
+     * @throws IllegalArgumentException if the size is less than one.
+     */
+    public XUIDocumentCache(int maximumSize)
+    {
+        if(maximumSize < 1)
+            throw new IllegalArgumentException("A XUIDocumentCache must hold at least one document");
+        this.maximumSize = maximumSize;
+        entries = new LinkedHashMap(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                if(size() > XUIDocumentCache.this.maximumSize)
+                {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the document at the path given, parsing it if it is not cached or has
+     * changed.
+     *
+     * @param path the path of the document.
+     * @return a copy of the document.
+     * @throws XUIParseException if the document cannot be read or is not valid.
+     */
+    public XUI get(Path path) throws XUIParseException
+    {
+        try
+        {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            String key = path.toAbsolutePath().toString();
+            XUI cached = getIfCurrent(key, lastModified);
+            if(cached != null)
+                return cached;
+            return load(key, lastModified, Files.readAllBytes(path), path.toUri().toString());
+        } catch(IOException ioe)
+        {
+            throw new XUIParseException(ioe.getMessage());
+        }
+    }
+
+    /**
+     * Returns a copy of the document at the URL given, parsing it if it is not cached or has
+     * changed. A cached document is only fetched again over HTTP if the server reports it as
+     * modified since, and file URLs are checked as paths. Documents from URLs that do not report
+     * a modification time are read every time and only parsed again if their contents have changed.
+     *
+     * @param url the URL of the document.
+     * @return a copy of the document.
+     * @throws XUIParseException if the document cannot be read or is not valid.
+     */
+    public XUI get(URL url) throws XUIParseException
+    {
+        if(url.getProtocol().equals("file"))
+        {
+            try
+            {
+                return get(Paths.get(url.toURI()));
+            } catch(URISyntaxException use)
+            {
+                // not a path, read it as a URL
+            } catch(IllegalArgumentException iae)
+            {
+                // not a path, read it as a URL
+            }
+        }
+
+        try
+        {
+            String key = url.toExternalForm();
+            URLConnection connection = url.openConnection();
+            long cachedModified = getCachedModified(key);
+            if(cachedModified != 0)
+                connection.setIfModifiedSince(cachedModified);
+            if(connection instanceof HttpURLConnection
+                && ((HttpURLConnection)connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED)
+            {
+                XUI cached = getIfCurrent(key, cachedModified);
+                if(cached != null)
+                    return cached;
+                // evicted in the meantime, so fetch it in full
+                connection = url.openConnection();
+            }
+            long lastModified = connection.getLastModified();
+            if(lastModified != 0)
+            {
+                XUI cached = getIfCurrent(key, lastModified);
+                if(cached != null)
+                {
+                    // the body has not been read, so let go of the connection rather than read it
+                    if(connection instanceof HttpURLConnection)
+                        ((HttpURLConnection)connection).disconnect();
+                    return cached;
+                }
+            }
+            InputStream in = connection.getInputStream();
+            byte[] contents;
+            try
+            {
+                contents = readAll(in);
+            } finally
+            {
+                in.close();
+            }
+            return load(key, lastModified, contents, key);
+        } catch(IOException ioe)
+        {
+            throw new XUIParseException(ioe.getMessage());
+        }
+    }
+
+    /**
+     * Returns the modification time of a cached document.
+     *
+     * @param key the path or URL of the document.
+     * @return the modification time, or 0 if the document is not cached or has no time.
+     */
+    private synchronized long getCachedModified(String key)
+    {
+        Entry entry = (Entry)entries.get(key);
+        return (entry == null) ? 0 : entry.lastModified;
+    }
+
+    /**
+     * Returns a copy of the cached document if its modification time has not changed.
+     *
+     * @param key the path or URL of the document.
+     * @param lastModified the current modification time of the document.
+     * @return a copy of the document or null if it is not cached or its time has changed.
+     */
+    private XUI getIfCurrent(String key, long lastModified)
+    {
+        XUI document = null;
+        synchronized(this)
+        {
+            Entry entry = (Entry)entries.get(key);
+            if(entry != null && entry.lastModified == lastModified)
+            {
+                hits++;
+                document = entry.document;
+            }
+        }
+        return document == null ? null : copy(document);
+    }
+
+    /**
+     * Returns a copy of the document with the contents given. The document is only parsed if
+     * the contents differ from those of the cached document.
+     *
+     * @param key the path or URL of the document.
+     * @param lastModified the current modification time of the document.
+     * @param contents the contents of the document.
+     * @param systemId the system id used to resolve the schema of the document.
+     * @return a copy of the document.
+     * @throws XUIParseException if the document is not valid.
+     */
+    private XUI load(String key, long lastModified, byte[] contents, String systemId)
+        throws XUIParseException
+    {
+        byte[] digest = digest(contents);
+        XUI document = null;
+        synchronized(this)
+        {
+            Entry entry = (Entry)entries.get(key);
+            if(entry != null && MessageDigest.isEqual(entry.digest, digest))
+            {
+                // touched but not changed
+                hits++;
+                entry.lastModified = lastModified;
+                document = entry.document;
+            } else
+                misses++;
+        }
+        if(document != null)
+            return copy(document);
+
+        XUIBuilder builder = XUIBuilderFactory.getInstance().getXUIBuilder();
+        builder.parse(new ByteArrayInputStream(contents), systemId);
+        XUI parsed = builder.getXUIDocument();
+        if(parsed == null)
+            throw new XUIParseException("The document " + key + " could not be built");
+        Entry entry = new Entry();
+        entry.document = copy(parsed);
+        entry.lastModified = lastModified;
+        entry.digest = digest;
+        synchronized(this)
+        {
+            entries.put(key, entry);
+        }
+        return parsed;
+    }
+
+    /**
+     * Returns a copy of a document.
+     *
+     * @param document the document to copy.
+     * @return the copy.
+     */
+    private static XUI copy(XUI document)
+    {
+        try
+        {
+            return new XUI(((XUINodeImpl)document.getRoot()).deepCopy());
+        } catch(XUIValidationException xve)
+        {
+            // the root of a cached document is always a XUI node
+            throw new IllegalStateException(xve.getMessage());
+        }
+    }
+
+    /**
+     * Returns the digest of the contents of a document.
+     *
+     * @param contents the contents of the document.
+     * @return the digest.
+     */
+    private static byte[] digest(byte[] contents)
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1").digest(contents);
+        } catch(NoSuchAlgorithmException nsae)
+        {
+            // every Java platform is required to support SHA-1
+            throw new IllegalStateException(nsae.getMessage());
+        }
+    }
+
+    /**
+     * Reads a stream to its end.
+     *
+     * @param in the stream to read.
+     * @return the bytes read.
+     * @throws IOException if the stream fails.
+     */
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    /**
+     * Drops the document at the path given from the cache.
+     *
+     * @param path the path of the document.
+     */
+    public synchronized void remove(Path path)
+    {
+        entries.remove(path.toAbsolutePath().toString());
+    }
+
+    /**
+     * Drops the document at the URL given from the cache.
+     *
+     * @param url the URL of the document.
+     */
+    public synchronized void remove(URL url)
+    {
+        entries.remove(url.toExternalForm());
+    }
+
+    /**
+     * Drops all of the documents from the cache. The statistics are kept.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Sets the number of documents that can be kept. If the cache holds more than this, the
+     * documents used least recently are dropped.
+     *
+     * @param maximumSize the number of documents to keep.
+     * @throws IllegalArgumentException if the size is less than one.
+     */
+    public synchronized void setMaximumSize(int maximumSize)
+    {
+        if(maximumSize < 1)
+            throw new IllegalArgumentException("A XUIDocumentCache must hold at least one document");
+        this.maximumSize = maximumSize;
+        Iterator it = entries.keySet().iterator();
+        while(entries.size() > maximumSize)
+        {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Returns the number of documents that can be kept.
+     *
+     * @return the maximum number of documents.
+     */
+    public synchronized int getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of documents being kept.
+     *
+     * @return the number of documents in the cache.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of times a document was found in the cache.
+     *
+     * @return the number of hits.
+     */
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times a document had to be parsed.
+     *
+     * @return the number of misses.
+     */
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+
+    /**
+     * Returns the number of documents dropped to make room for others.
+     *
+     * @return the number of evictions.
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictions;
+    }
+
+}
@@ -92,7 +92,7 @@ public class XUIResources
      *
      * @return XUIResources
      */
-    public static XUIResources getInstance()
+    public static synchronized XUIResources getInstance()
     {
         if(resources == null)
             resources = new XUIResources();
@@ -39,7 +39,10 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import net.jmge.gif.Gif89Encoder;
@@ -55,6 +58,12 @@ import org.purnamaproject.xui.XUITypeFormatException;
  */
 public class XUIUtils
 {
+    /**
+     * Images decoded ahead of time by their base 64 data. An entry is taken out once it
+     * has been used.
+     */
+    private static Map preparedImages = Collections.synchronizedMap(new WeakHashMap());
+
     /**
      * Dialog type question.
      */
@@ -154,6 +163,9 @@ public class XUIUtils
      */
     public static ImageIcon base64ToImage(String data, String type) throws XUITypeFormatException
     {
+        ImageIcon prepared = (ImageIcon)preparedImages.remove(data);
+        if(prepared != null)
+            return prepared;
         if(type.equalsIgnoreCase("jpg") || type.equalsIgnoreCase("jpeg")
             || type.equalsIgnoreCase("png") || type.equalsIgnoreCase("gif"))
         {
@@ -165,6 +177,22 @@ public class XUIUtils
 
     }
 
+    /**
+     * Decodes an image ahead of time so that the next call to <code>base64ToImage</code> with
+     * the same data returns it straight away. Used to decode images on background threads
+     * before the user interface is built. May be called from any thread.
+     *
+     * @param data the base 64 data as a string.
+     * @param type the type of image (e.g. jpeg, jpg, gif, png).
+     * @throws org.purnamaproject.xui.XUITypeFormatException if the format of the base64 is not correct.
+     */
+    public static void prepareImage(String data, String type) throws XUITypeFormatException
+    {
+        ImageIcon image = base64ToImage(data, type);
+        if(image != null)
+            preparedImages.put(data, image);
+    }
+
     /**
      * Encodes the Java ImageIcon object into base 64 data (based on RFC 2045 Base64 as defined
      * by RFC 2045, N. Freed and N. Borenstein) and returns a byte array. The image will be
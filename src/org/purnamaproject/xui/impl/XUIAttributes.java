@@ -0,0 +1,445 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIAttributes.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import org.xml.sax.Attributes;
+
+/**
+ * An array backed implementation of the SAX <code>Attributes</code> interface used by
+ * <code>XUINodeImpl</code> to store the attributes of a node. Unlike <code>AttributesImpl</code>,
+ * attribute names, URIs and types are interned so that the many nodes of a document share the
+ * same strings, values are replaced in place and attributes holding numbers or booleans keep
+ * their parsed value around so that they are only parsed once.
+ *
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIAttributes implements Attributes
+{
+    /**
+     * Denotes that the value of an attribute has not been parsed.
+     */
+    private static final byte NOT_PARSED = 0;
+
+    /**
+     * Denotes that the value of an attribute has been parsed as an integer.
+     */
+    private static final byte PARSED_INT = 1;
+
+    /**
+     * Denotes that the value of an attribute has been parsed as a boolean.
+     */
+    private static final byte PARSED_BOOLEAN = 2;
+
+    /**
+     * The number of attributes.
+     */
+    private int length = 0;
+
+    /**
+     * The namespace URIs of the attributes.
+     */
+    private String[] uris;
+
+    /**
+     * The local names of the attributes.
+     */
+    private String[] localNames;
+
+    /**
+     * The qualified names of the attributes.
+     */
+    private String[] qNames;
+
+    /**
+     * The types of the attributes.
+     */
+    private String[] types;
+
+    /**
+     * The values of the attributes.
+     */
+    private String[] values;
+
+    /**
+     * The parsed values of the attributes. Booleans are stored as 0 or 1.
+     */
+    private int[] parsedValues;
+
+    /**
+     * Whether or not each value has been parsed and as what.
+     */
+    private byte[] parsed;
+
+    /**
+     * Creates an empty set of attributes.
+     */
+    public XUIAttributes()
+    {
+        this(4);
+    }
+
+    /**
+     * Creates a copy of the attributes given. The storage is sized to fit exactly. Copying
+     * another <code>XUIAttributes</code> also copies the values it has already parsed.
+     *
+     * @param attributes the attributes to copy.
+     */
+    public XUIAttributes(Attributes attributes)
+    {
+        this(attributes.getLength());
+        int n = attributes.getLength();
+        if(attributes instanceof XUIAttributes)
+        {
+            XUIAttributes source = (XUIAttributes)attributes;
+            System.arraycopy(source.uris, 0, uris, 0, n);
+            System.arraycopy(source.localNames, 0, localNames, 0, n);
+            System.arraycopy(source.qNames, 0, qNames, 0, n);
+            System.arraycopy(source.types, 0, types, 0, n);
+            System.arraycopy(source.values, 0, values, 0, n);
+            System.arraycopy(source.parsedValues, 0, parsedValues, 0, n);
+            System.arraycopy(source.parsed, 0, parsed, 0, n);
+            length = n;
+        }
+        else
+            for(int i = 0; i < n; i++)
+                addAttribute(attributes.getURI(i), attributes.getLocalName(i), attributes.getQName(i),
+                    attributes.getType(i), attributes.getValue(i));
+    }
+
+    /**
+     * Creates an empty set of attributes with room for the number of attributes given.
+     *
+     * @param capacity the number of attributes to make room for.
+     */
+    private XUIAttributes(int capacity)
+    {
+        uris = new String[capacity];
+        localNames = new String[capacity];
+        qNames = new String[capacity];
+        types = new String[capacity];
+        values = new String[capacity];
+        parsedValues = new int[capacity];
+        parsed = new byte[capacity];
+    }
+
+    /**
+     * Adds an attribute to the end of the list. No check is made as to whether or not the
+     * attribute already exists.
+     *
+     * @param uri the namespace URI of the attribute.
+     * @param localName the local name of the attribute.
+     * @param qName the qualified name of the attribute.
+     * @param type the type of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void addAttribute(String uri, String localName, String qName, String type, String value)
+    {
+        if(length == values.length)
+            grow();
+        setAttribute(length, uri, localName, qName, type, value);
+        length++;
+    }
+
+    /**
+     * Replaces the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @param uri the namespace URI of the attribute.
+     * @param localName the local name of the attribute.
+     * @param qName the qualified name of the attribute.
+     * @param type the type of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void setAttribute(int index, String uri, String localName, String qName, String type,
+        String value)
+    {
+        uris[index] = intern(uri);
+        localNames[index] = intern(localName);
+        qNames[index] = intern(qName);
+        types[index] = intern(type);
+        setValue(index, value);
+    }
+
+    /**
+     * Replaces the value of the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @param value the new value.
+     */
+    public void setValue(int index, String value)
+    {
+        values[index] = value;
+        parsed[index] = NOT_PARSED;
+    }
+
+    /**
+     * Returns the value of an attribute as an integer. The value is only parsed the first time.
+     *
+     * @param qName the qualified name of the attribute.
+     * @return the value of the attribute.
+     * @throws NumberFormatException if the attribute does not exist or its value is not an
+     * integer.
+     */
+    public int getIntValue(String qName)
+    {
+        int index = getIndex(qName);
+        if(index == -1)
+            throw new NumberFormatException("No attribute named " + qName);
+        if(parsed[index] != PARSED_INT)
+        {
+            parsedValues[index] = Integer.parseInt(values[index]);
+            parsed[index] = PARSED_INT;
+        }
+        return parsedValues[index];
+    }
+
+    /**
+     * Returns the value of an attribute as a boolean. The value is only parsed the first time.
+     *
+     * @param qName the qualified name of the attribute.
+     * @return true if the value of the attribute is "true" ignoring case, false otherwise or if
+     * the attribute does not exist.
+     */
+    public boolean getBooleanValue(String qName)
+    {
+        int index = getIndex(qName);
+        if(index == -1)
+            return false;
+        if(parsed[index] != PARSED_BOOLEAN)
+        {
+            parsedValues[index] = Boolean.valueOf(values[index]).booleanValue() ? 1 : 0;
+            parsed[index] = PARSED_BOOLEAN;
+        }
+        return parsedValues[index] == 1;
+    }
+
+    /**
+     * Returns the number of attributes.
+     *
+     * @return the number of attributes.
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Returns the namespace URI of the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @return the URI or null if the index is out of range.
+     */
+    public String getURI(int index)
+    {
+        return (index >= 0 && index < length) ? uris[index] : null;
+    }
+
+    /**
+     * Returns the local name of the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @return the local name or null if the index is out of range.
+     */
+    public String getLocalName(int index)
+    {
+        return (index >= 0 && index < length) ? localNames[index] : null;
+    }
+
+    /**
+     * Returns the qualified name of the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @return the qualified name or null if the index is out of range.
+     */
+    public String getQName(int index)
+    {
+        return (index >= 0 && index < length) ? qNames[index] : null;
+    }
+
+    /**
+     * Returns the type of the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @return the type or null if the index is out of range.
+     */
+    public String getType(int index)
+    {
+        return (index >= 0 && index < length) ? types[index] : null;
+    }
+
+    /**
+     * Returns the value of the attribute at the index given.
+     *
+     * @param index the index of the attribute.
+     * @return the value or null if the index is out of range.
+     */
+    public String getValue(int index)
+    {
+        return (index >= 0 && index < length) ? values[index] : null;
+    }
+
+    /**
+     * Returns the index of an attribute by its namespace URI and local name.
+     *
+     * @param uri the namespace URI.
+     * @param localName the local name.
+     * @return the index of the attribute or -1 if there is no such attribute.
+     */
+    public int getIndex(String uri, String localName)
+    {
+        for(int i = 0; i < length; i++)
+            if(matches(localNames[i], localName) && matches(uris[i], uri))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns the index of an attribute by its qualified name.
+     *
+     * @param qName the qualified name.
+     * @return the index of the attribute or -1 if there is no such attribute.
+     */
+    public int getIndex(String qName)
+    {
+        for(int i = 0; i < length; i++)
+            if(matches(qNames[i], qName))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Returns the type of an attribute by its namespace URI and local name.
+     *
+     * @param uri the namespace URI.
+     * @param localName the local name.
+     * @return the type or null if there is no such attribute.
+     */
+    public String getType(String uri, String localName)
+    {
+        return getType(getIndex(uri, localName));
+    }
+
+    /**
+     * Returns the type of an attribute by its qualified name.
+     *
+     * @param qName the qualified name.
+     * @return the type or null if there is no such attribute.
+     */
+    public String getType(String qName)
+    {
+        return getType(getIndex(qName));
+    }
+
+    /**
+     * Returns the value of an attribute by its namespace URI and local name.
+     *
+     * @param uri the namespace URI.
+     * @param localName the local name.
+     * @return the value or null if there is no such attribute.
+     */
+    public String getValue(String uri, String localName)
+    {
+        return getValue(getIndex(uri, localName));
+    }
+
+    /**
+     * Returns the value of an attribute by its qualified name.
+     *
+     * @param qName the qualified name.
+     * @return the value or null if there is no such attribute.
+     */
+    public String getValue(String qName)
+    {
+        return getValue(getIndex(qName));
+    }
+
+    /**
+     * Compares two names. Names stored here are interned and so are usually the very same
+     * string as the one being looked for.
+     *
+     * @param stored the stored name.
+     * @param sought the name being looked for.
+     * @return true if the names are the same.
+     */
+    private static boolean matches(String stored, String sought)
+    {
+        return stored == sought || (stored != null && stored.equals(sought));
+    }
+
+    /**
+     * Interns a string, allowing for null.
+     *
+     * @param s the string to intern.
+     * @return the interned string or null.
+     */
+    private static String intern(String s)
+    {
+        return (s == null) ? null : s.intern();
+    }
+
+    /**
+     * Doubles the storage of the attributes.
+     */
+    private void grow()
+    {
+        int capacity = (values.length == 0) ? 4 : values.length * 2;
+        uris = copy(uris, capacity);
+        localNames = copy(localNames, capacity);
+        qNames = copy(qNames, capacity);
+        types = copy(types, capacity);
+        values = copy(values, capacity);
+        int[] newParsedValues = new int[capacity];
+        System.arraycopy(parsedValues, 0, newParsedValues, 0, length);
+        parsedValues = newParsedValues;
+        byte[] newParsed = new byte[capacity];
+        System.arraycopy(parsed, 0, newParsed, 0, length);
+        parsed = newParsed;
+    }
+
+    /**
+     * Copies an array of strings into a larger one.
+     *
+     * @param array the array to copy.
+     * @param capacity the size of the new array.
+     * @return the new array.
+     */
+    private String[] copy(String[] array, int capacity)
+    {
+        String[] newArray = new String[capacity];
+        System.arraycopy(array, 0, newArray, 0, length);
+        return newArray;
+    }
+}
@@ -36,6 +36,7 @@ package org.purnamaproject.xui.impl;
 
 import java.awt.Component;
 import java.awt.Dimension;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
@@ -92,6 +93,11 @@ public class XUIBasicDialogImpl implements XUIBasicDialog
      */
     private XUIWindow window;
 
+    /**
+     * The batch of changes in progress on this container, if any.
+     */
+    private XUIUpdateBatch batch = new XUIUpdateBatch();
+
     /**
      * <p>Constructs a new XUIBasicDialog implementation and passing it its XML node rather
      * than requiring the XUIBasicDialog implementation to build it from scratch. This
@@ -117,7 +123,7 @@ public class XUIBasicDialogImpl implements XUIBasicDialog
             dialogNode = node;
 
             // need to instantiate the peer first
-            windowVisibility = Boolean.valueOf(node.getAttributeValue("visible")).booleanValue();
+            windowVisibility = node.getAttributeBooleanValue("visible");
             window = (XUIWindow)dialogNode.getParent().getXUIComponent();
             setType(Byte.parseByte(node.getAttributeValue("type")));
 
@@ -333,6 +339,64 @@ public class XUIBasicDialogImpl implements XUIBasicDialog
         }
     }
 
+    /**
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
+     *
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     */
+    public void addComponents(Collection components) throws XUITypeFormatException
+    {
+        XUIUpdateBatch.addComponents(this, components);
+    }
+
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components)
+    {
+        XUIUpdateBatch.removeComponents(this, components);
+    }
+
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate()
+    {
+        batch.begin();
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate()
+    {
+        batch.end(this);
+    }
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating()
+    {
+        return batch.isActive();
+    }
+
     /**
      * <p>Gets the component based on its id. If no component found by that id, null is returned.</p>
      *
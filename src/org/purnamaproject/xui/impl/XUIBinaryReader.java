@@ -0,0 +1,285 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIBinaryReader.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Vector;
+import org.apache.commons.codec.binary.Base64;
+import org.purnamaproject.xui.XUI;
+import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUIParseException;
+import org.purnamaproject.xui.XUIValidationException;
+
+/**
+ * Reads a XUI document written in the XUI binary format by <code>XUIBinaryWriter</code>. The
+ * node tree is rebuilt directly from the bytes; no XML parser or schema validator is involved
+ * so the document is trusted to have been valid when it was written.
+ *
+ * @see XUIBinaryWriter
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIBinaryReader
+{
+    /**
+     * The most that is allocated for a length read from the document before the data behind
+     * it has actually been read. A corrupt length then ends in a parse exception rather than
+     * running out of memory.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * The stream being read from.
+     */
+    private InputStream in;
+
+    /**
+     * The string table of the document.
+     */
+    private String[] strings;
+
+    /**
+     * Creates a reader for the stream given.
+     *
+     * @param in the stream to read from.
+     */
+    private XUIBinaryReader(InputStream in)
+    {
+        this.in = in;
+    }
+
+    /**
+     * Reads a XUI document from a stream. The stream is not closed.
+     *
+     * @param in the stream to read from.
+     * @return the XUI document.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the stream does not hold a XUI document in the binary format.
+     */
+    public static XUI read(InputStream in) throws IOException, XUIParseException
+    {
+        XUIBinaryReader reader = new XUIBinaryReader(new BufferedInputStream(in));
+        reader.readHeader();
+        XUINode root = reader.readNode();
+        try
+        {
+            return new XUI(root);
+        } catch(XUIValidationException xve)
+        {
+            throw new XUIParseException(xve.getMessage());
+        }
+    }
+
+    /**
+     * Reads a XUI document from a file.
+     *
+     * @param path the file to read from.
+     * @return the XUI document.
+     * @throws IOException if the file cannot be read.
+     * @throws XUIParseException if the file does not hold a XUI document in the binary format.
+     */
+    public static XUI read(Path path) throws IOException, XUIParseException
+    {
+        InputStream in = Files.newInputStream(path);
+        try
+        {
+            return read(in);
+        } finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the magic bytes, version and string table.
+     *
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the stream is not in the binary format.
+     */
+    private void readHeader() throws IOException, XUIParseException
+    {
+        for(int i = 0; i < XUIBinaryWriter.MAGIC.length; i++)
+            if(readByte() != XUIBinaryWriter.MAGIC[i])
+                throw new XUIParseException("Not a XUI binary document.");
+        int version = readByte();
+        if(version != XUIBinaryWriter.VERSION)
+            throw new XUIParseException("Unsupported XUI binary document version: " + version);
+        int size = readVarInt();
+        Vector table = new Vector(Math.min(size, CHUNK_SIZE));
+        for(int i = 0; i < size; i++)
+            table.add(readString().intern());
+        strings = (String[])table.toArray(new String[size]);
+    }
+
+    /**
+     * Reads a node and its children.
+     *
+     * @return the node.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the data is malformed.
+     */
+    private XUINode readNode() throws IOException, XUIParseException
+    {
+        XUINodeImpl node = new XUINodeImpl(readStringIndex());
+        int flags = readByte();
+        node.setLevel(readVarInt());
+        node.setToRoot((flags & XUIBinaryWriter.FLAG_ROOT) != 0);
+        node.setIsBeginOfNamespace((flags & XUIBinaryWriter.FLAG_BEGIN_OF_NAMESPACE) != 0);
+
+        int count = readVarInt();
+        for(int i = 0; i < count; i++)
+        {
+            String uri = readStringIndex();
+            node.addNamespace(readStringIndex(), uri);
+        }
+
+        count = readVarInt();
+        for(int i = 0; i < count; i++)
+        {
+            String uri = readStringIndex();
+            String localName = readStringIndex();
+            String qName = readStringIndex();
+            String type = readStringIndex();
+            node.addAttribute(uri, localName, qName, type, readString());
+        }
+
+        if((flags & XUIBinaryWriter.FLAG_BINARY_CDATA) != 0)
+            node.setCDATA(new String(Base64.encodeBase64(readBytes(readVarInt())), "US-ASCII"));
+        else
+            node.setCDATA(readString());
+
+        count = readVarInt();
+        for(int i = 0; i < count; i++)
+            node.addChildNode(readNode());
+        node.trimToSize();
+        return node;
+    }
+
+    /**
+     * Reads an index into the string table and returns the string.
+     *
+     * @return the string.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the index is out of range.
+     */
+    private String readStringIndex() throws IOException, XUIParseException
+    {
+        int index = readVarInt();
+        if(index >= strings.length)
+            throw new XUIParseException("String table index out of range: " + index);
+        return strings[index];
+    }
+
+    /**
+     * Reads a string stored as its length in bytes followed by its UTF-8 bytes.
+     *
+     * @return the string.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the data is malformed.
+     */
+    private String readString() throws IOException, XUIParseException
+    {
+        return new String(readBytes(readVarInt()), "UTF-8");
+    }
+
+    /**
+     * Reads the number of bytes given. The buffer grows as the bytes arrive so that a length
+     * larger than the stream can supply is not allocated up front.
+     *
+     * @param length the number of bytes.
+     * @return the bytes.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the stream ends first.
+     */
+    private byte[] readBytes(int length) throws IOException, XUIParseException
+    {
+        byte[] bytes = new byte[Math.min(length, CHUNK_SIZE)];
+        int read = 0;
+        while(read < length)
+        {
+            if(read == bytes.length)
+                bytes = Arrays.copyOf(bytes, (int)Math.min(length, 2L * bytes.length));
+            int n = in.read(bytes, read, bytes.length - read);
+            if(n == -1)
+                throw new XUIParseException("Unexpected end of XUI binary document.");
+            read += n;
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte as an unsigned value.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the stream has ended.
+     */
+    private int readByte() throws IOException, XUIParseException
+    {
+        int b = in.read();
+        if(b == -1)
+            throw new XUIParseException("Unexpected end of XUI binary document.");
+        return b;
+    }
+
+    /**
+     * Reads an unsigned variable length integer.
+     *
+     * @return the value.
+     * @throws IOException if the stream fails.
+     * @throws XUIParseException if the value does not fit within an int.
+     */
+    private int readVarInt() throws IOException, XUIParseException
+    {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7)
+        {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+            {
+                if(value < 0)
+                    throw new XUIParseException("Malformed length in XUI binary document.");
+                return value;
+            }
+        }
+        throw new XUIParseException("Malformed length in XUI binary document.");
+    }
+}
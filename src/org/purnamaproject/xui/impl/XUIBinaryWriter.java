@@ -0,0 +1,356 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIBinaryWriter.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Vector;
+import org.apache.commons.codec.binary.Base64;
+import org.purnamaproject.xui.XUINode;
+import org.xml.sax.Attributes;
+
+/**
+ * <p>Writes a XUI node and all of its children out in the XUI binary format. The binary format
+ * holds exactly what the XML form does but loads without any XML parsing or schema validation,
+ * which makes it well suited for documents that are loaded often and edited rarely. Documents
+ * written in this format are read back with <code>XUIBinaryReader</code>.</p>
+ *
+ * <p>The format is laid out as follows. All counts, lengths, indexes and levels are unsigned
+ * variable length integers (7 bits per byte, low bits first, high bit set on all but the last
+ * byte). Strings are a length in bytes followed by UTF-8.</p>
+ * <ul>
+ *   <li>the magic bytes <code>XUIB</code> followed by a version byte</li>
+ *   <li>the string table: a count followed by that many strings. Element names, attribute
+ *   names, attribute types, namespace prefixes and namespace URIs are stored here once and
+ *   referred to by their index</li>
+ *   <li>the root node. Each node is its name index, a flags byte, its level, its namespaces
+ *   (a count followed by URI and prefix index pairs), its attributes (a count followed by the
+ *   URI, local name, qualified name and type indexes and the value string of each), its
+ *   character data and finally a count of its children followed by the children themselves</li>
+ * </ul>
+ *
+ * <p>The character data of <code>ImageData</code> elements is stored as the raw image bytes
+ * rather than as base 64 text whenever doing so gives back the very same text when read.</p>
+ *
+ * @see XUIBinaryReader
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIBinaryWriter
+{
+    /**
+     * The bytes every document in the binary format starts with.
+     */
+    static final byte[] MAGIC = {'X', 'U', 'I', 'B'};
+
+    /**
+     * The version of the binary format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Node flag denoting the root node.
+     */
+    static final int FLAG_ROOT = 1;
+
+    /**
+     * Node flag denoting a node that is the beginning of a namespace.
+     */
+    static final int FLAG_BEGIN_OF_NAMESPACE = 2;
+
+    /**
+     * Node flag denoting character data stored as raw bytes rather than base 64 text.
+     */
+    static final int FLAG_BINARY_CDATA = 4;
+
+    /**
+     * The name of the elements whose character data is base 64 encoded.
+     */
+    static final String BINARY_ELEMENT = "ImageData";
+
+    /**
+     * The stream being written to.
+     */
+    private OutputStream out;
+
+    /**
+     * The strings of the string table in the order they are written.
+     */
+    private List strings = new Vector();
+
+    /**
+     * The strings of the string table mapped to their index.
+     */
+    private Hashtable stringIndexes = new Hashtable();
+
+    /**
+     * Creates a writer for the stream given.
+     *
+     * @param out the stream to write to.
+     */
+    private XUIBinaryWriter(OutputStream out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Writes a node and its children to a stream in the binary format. The stream is
+     * flushed but not closed.
+     *
+     * @param root the node to write, normally the root node of a XUI document.
+     * @param out the stream to write to.
+     * @throws IOException if the stream fails.
+     */
+    public static void write(XUINode root, OutputStream out) throws IOException
+    {
+        XUIBinaryWriter writer = new XUIBinaryWriter(new BufferedOutputStream(out));
+        writer.collectStrings(root);
+        writer.writeHeader();
+        writer.writeNode(root);
+        writer.out.flush();
+    }
+
+    /**
+     * Writes a node and its children to a file in the binary format. The file is created
+     * or replaced.
+     *
+     * @param root the node to write, normally the root node of a XUI document.
+     * @param path the file to write to.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(XUINode root, Path path) throws IOException
+    {
+        OutputStream out = Files.newOutputStream(path);
+        try
+        {
+            write(root, out);
+        } finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Adds the names, types, prefixes and URIs of a node and its children to the string table.
+     *
+     * @param node the node to collect from.
+     */
+    private void collectStrings(XUINode node)
+    {
+        addString(node.getName());
+        Hashtable namespaces = node.getNamespaces();
+        Enumeration keys = namespaces.keys();
+        while(keys.hasMoreElements())
+        {
+            String uri = (String)keys.nextElement();
+            addString(uri);
+            addString((String)namespaces.get(uri));
+        }
+        Attributes attributes = node.getAtributes();
+        int length = attributes.getLength();
+        for(int i = 0; i < length; i++)
+        {
+            addString(attributes.getURI(i));
+            addString(attributes.getLocalName(i));
+            addString(attributes.getQName(i));
+            addString(attributes.getType(i));
+        }
+        List children = node.getDirectChildren();
+        int size = children.size();
+        for(int i = 0; i < size; i++)
+            collectStrings((XUINode)children.get(i));
+    }
+
+    /**
+     * Adds a string to the string table if it is not already in it. Null is stored as an
+     * empty string.
+     *
+     * @param s the string to add.
+     */
+    private void addString(String s)
+    {
+        if(s == null)
+            s = "";
+        if(!stringIndexes.containsKey(s))
+        {
+            stringIndexes.put(s, Integer.valueOf(strings.size()));
+            strings.add(s);
+        }
+    }
+
+    /**
+     * Writes the magic bytes, version and string table.
+     *
+     * @throws IOException if the stream fails.
+     */
+    private void writeHeader() throws IOException
+    {
+        out.write(MAGIC);
+        out.write(VERSION);
+        int size = strings.size();
+        writeVarInt(size);
+        for(int i = 0; i < size; i++)
+            writeString((String)strings.get(i));
+    }
+
+    /**
+     * Writes a node and its children.
+     *
+     * @param node the node to write.
+     * @throws IOException if the stream fails.
+     */
+    private void writeNode(XUINode node) throws IOException
+    {
+        byte[] binary = toBinary(node);
+        int flags = 0;
+        if(node.isRoot())
+            flags |= FLAG_ROOT;
+        if(node instanceof XUINodeImpl && ((XUINodeImpl)node).isBeginOfNamespace())
+            flags |= FLAG_BEGIN_OF_NAMESPACE;
+        if(binary != null)
+            flags |= FLAG_BINARY_CDATA;
+
+        writeStringIndex(node.getName());
+        out.write(flags);
+        writeVarInt(node.getLevel());
+
+        Hashtable namespaces = node.getNamespaces();
+        writeVarInt(namespaces.size());
+        Enumeration keys = namespaces.keys();
+        while(keys.hasMoreElements())
+        {
+            String uri = (String)keys.nextElement();
+            writeStringIndex(uri);
+            writeStringIndex((String)namespaces.get(uri));
+        }
+
+        Attributes attributes = node.getAtributes();
+        int length = attributes.getLength();
+        writeVarInt(length);
+        for(int i = 0; i < length; i++)
+        {
+            writeStringIndex(attributes.getURI(i));
+            writeStringIndex(attributes.getLocalName(i));
+            writeStringIndex(attributes.getQName(i));
+            writeStringIndex(attributes.getType(i));
+            writeString(attributes.getValue(i));
+        }
+
+        if(binary != null)
+        {
+            writeVarInt(binary.length);
+            out.write(binary);
+        } else
+            writeString(node.getCDATA());
+
+        List children = node.getDirectChildren();
+        int size = children.size();
+        writeVarInt(size);
+        for(int i = 0; i < size; i++)
+            writeNode((XUINode)children.get(i));
+    }
+
+    /**
+     * Returns the raw bytes of a node's base 64 character data. Only done for image data and
+     * only if encoding the bytes again gives back the very same text.
+     *
+     * @param node the node.
+     * @return the decoded bytes or null if the character data is to be stored as text.
+     * @throws IOException if the character data cannot be converted.
+     */
+    private byte[] toBinary(XUINode node) throws IOException
+    {
+        if(!(node.getName().equals(BINARY_ELEMENT)))
+            return null;
+        byte[] text = node.getCDATA().getBytes("US-ASCII");
+        if(text.length == 0 || !Base64.isArrayByteBase64(text))
+            return null;
+        byte[] binary = Base64.decodeBase64(text);
+        if(!(Arrays.equals(Base64.encodeBase64(binary), text)))
+            return null;
+        return binary;
+    }
+
+    /**
+     * Writes the index of a string within the string table.
+     *
+     * @param s the string.
+     * @throws IOException if the stream fails.
+     */
+    private void writeStringIndex(String s) throws IOException
+    {
+        if(s == null)
+            s = "";
+        writeVarInt(((Integer)stringIndexes.get(s)).intValue());
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 bytes.
+     *
+     * @param s the string.
+     * @throws IOException if the stream fails.
+     */
+    private void writeString(String s) throws IOException
+    {
+        if(s == null)
+            s = "";
+        byte[] bytes = s.getBytes("UTF-8");
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes an unsigned variable length integer, 7 bits at a time starting with the lowest.
+     *
+     * @param value the value, must not be negative.
+     * @throws IOException if the stream fails.
+     */
+    private void writeVarInt(int value) throws IOException
+    {
+        while((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
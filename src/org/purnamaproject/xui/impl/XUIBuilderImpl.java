@@ -35,34 +35,42 @@ package org.purnamaproject.xui.impl;
  */
 
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Stack;
-import java.util.StringTokenizer;
+import java.util.Vector;
 
 
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.InputSource;
+import org.xml.sax.ext.Locator2;
 import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
 import org.xml.sax.helpers.XMLReaderFactory;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.XMLConstants;
-import javax.xml.validation.Validator;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.ValidatorHandler;
 
 import org.purnamaproject.xui.impl.XUINodeImpl;
 import org.purnamaproject.xui.XUI;
@@ -91,6 +99,11 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
      */
     private XMLReader reader;
 
+    /**
+     * The validator that checks documents against the schema as they are parsed.
+     */
+    private ValidatorHandler validatorHandler;
+
     /**
      * Determines whether or not the first node has been read in.
      */
@@ -122,6 +135,114 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
      */
     private XUINode root = null;
 
+    /**
+     * The run of character data gathered since the last element started or ended.
+     */
+    private StringBuffer text = new StringBuffer();
+
+    /**
+     * The largest text buffer kept from one run of character data to the next.
+     */
+    private static final int MAX_RETAINED_TEXT = 64 * 1024;
+
+    /**
+     * How thoroughly documents are checked as they are parsed.
+     */
+    private int validationMode = VALIDATION_FULL;
+
+    /**
+     * Whether or not the content of large elements is left unparsed until needed.
+     */
+    private boolean lazyParsing = false;
+
+    /**
+     * The document content is being deferred from during a lazy parse, or null if content
+     * is not being deferred.
+     */
+    private XUIDeferredContent.Source deferredSource = null;
+
+    /**
+     * The size and modification time of the document being parsed lazily, taken before it is
+     * read so that deferred content can tell if the document has changed since.
+     */
+    private long[] deferredStamp = null;
+
+    /**
+     * Where the parser is within the document.
+     */
+    private Locator locator = null;
+
+    /**
+     * The namespaces in scope, kept during a lazy parse.
+     */
+    private NamespaceSupport namespaceSupport = null;
+
+    /**
+     * Whether or not a namespace context has been started for the next element.
+     */
+    private boolean namespaceContextStarted = false;
+
+    /**
+     * The depth within content being deferred. Zero when content is not being deferred.
+     */
+    private int deferredDepth = 0;
+
+    /**
+     * The qualified name of the element whose content is being deferred.
+     */
+    private String deferredQName;
+
+    /**
+     * The namespace declarations in scope for the element whose content is being deferred.
+     */
+    private String deferredDeclarations;
+
+    /**
+     * The line at which the content being deferred starts.
+     */
+    private int deferredLine;
+
+    /**
+     * The column at which the content being deferred starts.
+     */
+    private int deferredColumn;
+
+    /**
+     * The ids of the elements within the content being deferred.
+     */
+    private Vector deferredIDs = new Vector();
+
+    /**
+     * Whether or not a fragment of a document is being parsed rather than a whole document.
+     */
+    private boolean parsingFragment = false;
+
+    /**
+     * The level of the first element parsed.
+     */
+    private int baseLevel = 0;
+
+    /**
+     * The schema shared by all builders for validating documents.
+     */
+    private static Schema schema = null;
+
+    /**
+     * Where the XUI schema is found on the classpath.
+     */
+    private static final String SCHEMA_RESOURCE = "/org/purnamaproject/xui/xui.xsd";
+
+    /**
+     * Files of this size in bytes or larger are mapped into memory when parsed from a
+     * <code>Path</code>.
+     */
+    private static final long MAPPING_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The namespace that all XUI elements belong to.
+     */
+    private static final String XUI_NAMESPACE = "http://xml.bcit.ca/PurnamaProject/2003/xui";
+
     /**
      * Default constructor.
      */
@@ -143,37 +264,7 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
      */
     public void parse(String fileName) throws XUIParseException
     {
-        try
-        {
-            // create a schema ... from the document
-            SchemaFactory sf =
-                SchemaFactory.newInstance(
-                XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = sf.newSchema();
-
-            // USE THIS WAY TO VALIDATE, IT'S THE ONLY WAY THAT SEEMS TO WORK
-            Validator validator = schema.newValidator();
-            validator.validate(new StreamSource(fileName));
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-            spf.setNamespaceAware(true);
-            /* Rather than use the below line of code, we are using the
-             * schema to create a validator and call the validator
-             * directly. Why? Because the following line of code does
-             * absolutely nothing. This handy piece of useful information
-             * is found at:
-             * http://www.ibm.com/developerworks/xml/library/x-jaxpval.html
-             * by Brett McLaughlin
-             */
-            //spf.setSchema(schema);
-            SAXParser sp = spf.newSAXParser();
-            sp.parse(fileName, this);
-
-        } catch(Exception e)
-        {
-            e.printStackTrace();
-            throw new XUIParseException(e.getMessage());
-
-        }
+        parse(new InputSource(fileName), true);
 // THE OLD WAY OF VALIDATING AGAINST A SCHEMA
 /*        try
         {
@@ -193,6 +284,106 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
 */
     }
 
+    /**
+     * Sets how thoroughly documents are checked as they are parsed.
+     *
+     * @param mode one of <code>VALIDATION_FULL</code>, <code>VALIDATION_STRUCTURAL</code> or
+     * <code>VALIDATION_NONE</code>.
+     * @throws IllegalArgumentException if the mode is not one of the above.
+     */
+    public void setValidationMode(int mode)
+    {
+        if(mode != VALIDATION_FULL && mode != VALIDATION_STRUCTURAL && mode != VALIDATION_NONE)
+            throw new IllegalArgumentException("Unknown validation mode: " + mode);
+        validationMode = mode;
+    }
+
+    /**
+     * Returns how thoroughly documents are checked as they are parsed.
+     *
+     * @return the validation mode.
+     */
+    public int getValidationMode()
+    {
+        return validationMode;
+    }
+
+    /**
+     * Turns lazy parsing on or off.
+     *
+     * @param lazy true to parse lazily, false otherwise.
+     * @see org.purnamaproject.xui.XUIBuilder#setLazyParsing(boolean)
+     */
+    public void setLazyParsing(boolean lazy)
+    {
+        lazyParsing = lazy;
+    }
+
+    /**
+     * Returns whether or not documents are parsed lazily.
+     *
+     * @return true if documents are parsed lazily.
+     */
+    public boolean isLazyParsing()
+    {
+        return lazyParsing;
+    }
+
+    /**
+     * Returns the schema used for validating documents. The XUI schema bundled with the API is
+     * compiled once per JVM, so documents are validated the same whether or not they have a
+     * location or schema location hint. Should the schema not be on the classpath, the schema
+     * location hints of the documents are followed instead.
+     *
+     * @return the schema.
+     * @throws SAXException if the schema cannot be created.
+     */
+    private static synchronized Schema getSchema() throws SAXException
+    {
+        if(schema == null)
+        {
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            URL xsd = XUIBuilderImpl.class.getResource(SCHEMA_RESOURCE);
+            schema = (xsd != null) ? factory.newSchema(xsd) : factory.newSchema();
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the XML parser for this builder, creating it the first time.
+     *
+     * @return the XML parser.
+     * @throws ParserConfigurationException if a namespace aware parser cannot be made.
+     * @throws SAXException if the parser cannot be made.
+     */
+    private XMLReader getReader() throws ParserConfigurationException, SAXException
+    {
+        if(reader == null)
+        {
+            SAXParserFactory spf = SAXParserFactory.newInstance();
+            spf.setNamespaceAware(true);
+            reader = spf.newSAXParser().getXMLReader();
+        }
+        return reader;
+    }
+
+    /**
+     * Returns the validator for this builder, creating it the first time. The validator
+     * passes the events it has checked on to this builder.
+     *
+     * @return the validator.
+     * @throws SAXException if the schema cannot be created.
+     */
+    private ValidatorHandler getValidatorHandler() throws SAXException
+    {
+        if(validatorHandler == null)
+        {
+            validatorHandler = getSchema().newValidatorHandler();
+            validatorHandler.setContentHandler(this);
+        }
+        return validatorHandler;
+    }
+
     /**
      * Parses the file based on the file name.
      *
@@ -226,6 +417,296 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
         parse(fileName.toString());
     }
 
+    /**
+     * Parses a document from an input stream. The stream is read to the end but not closed.
+     *
+     * @param in the stream to parse.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(InputStream in) throws XUIParseException
+    {
+        parse(new InputSource(in));
+    }
+
+    /**
+     * Parses a document from an input stream. The stream is read to the end but not closed.
+     *
+     * @param in the stream to parse.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(InputStream in, String systemId) throws XUIParseException
+    {
+        InputSource source = new InputSource(in);
+        source.setSystemId(systemId);
+        parse(source);
+    }
+
+    /**
+     * Parses a document from a reader. The reader is read to the end but not closed.
+     *
+     * @param in the reader to parse.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(Reader in) throws XUIParseException
+    {
+        parse(new InputSource(in));
+    }
+
+    /**
+     * Parses a document from a reader. The reader is read to the end but not closed.
+     *
+     * @param in the reader to parse.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(Reader in, String systemId) throws XUIParseException
+    {
+        InputSource source = new InputSource(in);
+        source.setSystemId(systemId);
+        parse(source);
+    }
+
+    /**
+     * Parses a document from memory.
+     *
+     * @param data the bytes of the document.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(byte[] data) throws XUIParseException
+    {
+        parse(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Parses a document from a buffer, from its position up to its limit. The position of the buffer
+     * is left unchanged.
+     *
+     * @param data the buffer holding the document.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(ByteBuffer data) throws XUIParseException
+    {
+        parse(new ByteBufferInputStream(data.duplicate()));
+    }
+
+    /**
+     * Parses a document from memory.
+     *
+     * @param data the bytes of the document.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(byte[] data, String systemId) throws XUIParseException
+    {
+        parse(new ByteArrayInputStream(data), systemId);
+    }
+
+    /**
+     * Parses a document from a buffer, from its position up to its limit. The position of the buffer
+     * is left unchanged.
+     *
+     * @param data the buffer holding the document.
+     * @param systemId the location of the document, used in messages and to resolve relative URIs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(ByteBuffer data, String systemId) throws XUIParseException
+    {
+        parse(new ByteBufferInputStream(data.duplicate()), systemId);
+    }
+
+    /**
+     * Parses a document from a file. Large files are mapped into memory rather than read through
+     * buffers on the Java heap.
+     *
+     * @param path the file to parse.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    public void parse(Path path) throws XUIParseException
+    {
+        try
+        {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            InputStream in = null;
+            try
+            {
+                long size = channel.size();
+                if(size >= MAPPING_THRESHOLD)
+                    in = new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+                else
+                    in = Channels.newInputStream(channel);
+                InputSource source = new InputSource(in);
+                source.setSystemId(path.toUri().toString());
+                parse(source, true);
+            } finally
+            {
+                channel.close();
+            }
+        } catch(IOException ioe)
+        {
+            throw new XUIParseException(ioe.getMessage());
+        }
+    }
+
+    /**
+     * Parses a document from an input source. The document is validated in the same pass
+     * according to the validation mode.
+     *
+     * @param source the source of the document.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    private void parse(InputSource source) throws XUIParseException
+    {
+        parse(source, false);
+    }
+
+    /**
+     * Parses a document from an input source. The document is validated in the same pass
+     * according to the validation mode.
+     *
+     * @param source the source of the document.
+     * @param rereadable whether or not the document can be read again from its system id,
+     * which lazy parsing needs.
+     * @throws XUIParseException if the XUI document is not valid against the
+     * Purnama Project XUI schema or cannot be read.
+     */
+    private void parse(InputSource source, boolean rereadable) throws XUIParseException
+    {
+        deferredSource = null;
+        deferredStamp = null;
+        namespaceSupport = null;
+        try
+        {
+            if(lazyParsing && rereadable && !parsingFragment)
+            {
+                namespaceSupport = new NamespaceSupport();
+                deferredStamp = XUIDeferredContent.Source.getStamp(source.getSystemId());
+            }
+            XMLReader xmlReader = getReader();
+            if(validationMode == VALIDATION_FULL)
+            {
+                // validate in the same pass that builds the tree. The validator sits between
+                // the parser and this handler and passes the events on once checked.
+                xmlReader.setContentHandler(getValidatorHandler());
+            } else
+                xmlReader.setContentHandler(this);
+            xmlReader.parse(source);
+        } catch(Exception e)
+        {
+            e.printStackTrace();
+            throw new XUIParseException(e.getMessage());
+
+        }
+    }
+
+    /**
+     * Parses the content of an element whose parsing was deferred. The content is not validated
+     * again and is never deferred.
+     *
+     * @param source the content wrapped in an element.
+     * @param level the level of the wrapping element.
+     * @return the wrapping element.
+     * @throws XUIParseException if the content cannot be parsed.
+     */
+    XUINodeImpl parseFragment(InputSource source, int level) throws XUIParseException
+    {
+        int mode = validationMode;
+        parsingFragment = true;
+        baseLevel = level;
+        validationMode = VALIDATION_NONE;
+        try
+        {
+            parse(source);
+            return (XUINodeImpl)root;
+        } finally
+        {
+            parsingFragment = false;
+            baseLevel = 0;
+            validationMode = mode;
+        }
+    }
+
+    /**
+     * Returns whether or not the content of an element is left unparsed during a lazy parse.
+     * Custom dialogs, tables, trees and windows that are not visible are deferred.
+     *
+     * @param localName the name of the element.
+     * @param atts the attributes of the element.
+     * @return true if the content of the element is deferred.
+     */
+    private static boolean isDeferred(String localName, Attributes atts)
+    {
+        if(localName.equals("CustomDialog") || localName.equals("Table") || localName.equals("Tree"))
+            return true;
+        return localName.equals("Window") && "false".equals(atts.getValue("visible"));
+    }
+
+    /**
+     * Returns the namespace declarations in scope, written as attributes.
+     *
+     * @return the namespace declarations.
+     */
+    private String getNamespaceDeclarations()
+    {
+        StringBuffer sb = new StringBuffer();
+        Enumeration prefixes = namespaceSupport.getPrefixes();
+        while(prefixes.hasMoreElements())
+        {
+            String prefix = (String)prefixes.nextElement();
+            if(!(prefix.equals("xml")))
+                appendDeclaration(sb, "xmlns:" + prefix, namespaceSupport.getURI(prefix));
+        }
+        String uri = namespaceSupport.getURI("");
+        if(uri != null && uri.length() > 0)
+            appendDeclaration(sb, "xmlns", uri);
+        return sb.toString();
+    }
+
+    /**
+     * Writes a namespace declaration as an attribute.
+     *
+     * @param sb where to write the declaration.
+     * @param qName the name of the attribute.
+     * @param uri the namespace URI.
+     */
+    private static void appendDeclaration(StringBuffer sb, String qName, String uri)
+    {
+        sb.append(' ').append(qName).append("=\"");
+        for(int i = 0; i < uri.length(); i++)
+        {
+            char c = uri.charAt(i);
+            if(c == '"')
+                sb.append("&quot;");
+            else if(c == '&')
+                sb.append("&amp;");
+            else if(c == '<')
+                sb.append("&lt;");
+            else
+                sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Receive an object for locating the origin of SAX document events.
+     *
+     * @param locator where the parser is within the document.
+     */
+    public void setDocumentLocator(Locator locator)
+    {
+        this.locator = locator;
+    }
+
     /**
      * Returns the XUI document object which represents the document itself
      * with all of its nodes. If the document has not been completely built
@@ -272,13 +753,35 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
      */
     public void characters(char[] ch, int start, int length) throws SAXException
     {
-        String data = new String(ch, start, length);
-        if(!(data.matches("\\s+")))
-        {
-            String trimmedData = data.trim();
-            XUINode currentNode = (XUINode)nodeStack.peek();
-            currentNode.appendCDATA(trimmedData);
-        }
+        // the chunks are gathered up and handed to the node in one go once the run of
+        // text ends. See flushText().
+        if(deferredDepth == 0)
+            text.append(ch, start, length);
+    }
+
+    /**
+     * Hands the run of text gathered since the last element started or ended over to the
+     * current node. Surrounding whitespace is trimmed and runs made up of whitespace only
+     * are dropped.
+     */
+    private void flushText()
+    {
+        int length = text.length();
+        if(length == 0)
+            return;
+        int start = 0;
+        while(start < length && text.charAt(start) <= ' ')
+            start++;
+        int end = length;
+        while(end > start && text.charAt(end - 1) <= ' ')
+            end--;
+        if(start < end && !(nodeStack.isEmpty()))
+            ((XUINode)nodeStack.peek()).appendCDATA(text.substring(start, end));
+        // don't hang on to the room taken by large runs such as image data
+        if(text.capacity() > MAX_RETAINED_TEXT)
+            text = new StringBuffer();
+        else
+            text.setLength(0);
     }
 
     /**
@@ -296,6 +799,11 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
      */
     public void endDocument() throws SAXException
     {
+        if(parsingFragment)
+        {
+            endOfDocumentReached = true;
+            return;
+        }
         try
         {
             xui = new XUI(root);
@@ -332,7 +840,17 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
     public void endElement(String namespaceURI, String localName, String qName)
       throws SAXException
     {
-        nodeStack.pop();
+        if(namespaceSupport != null)
+            namespaceSupport.popContext();
+        if(deferredDepth > 0)
+        {
+            deferredDepth--;
+            if(deferredDepth > 0)
+                return;
+            endDeferredContent();
+        }
+        flushText();
+        ((XUINodeImpl)nodeStack.pop()).trimToSize();
         currentLevel--;
     }
 
@@ -356,10 +874,13 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
         // parser will call this method up.
         firstTime = true;
         nodeStack = new Stack();
-        currentLevel = 0;
+        currentLevel = baseLevel;
+        deferredDepth = 0;
+        namespaceContextStarted = false;
         endOfDocumentReached = false;
         namespaces = new Hashtable(4);
         root = null;
+        text.setLength(0);
     }
 
     /**
@@ -424,30 +945,54 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
     public void startElement(String namespaceURI, String localName, String qName,
       Attributes atts) throws SAXException
     {
-        // get current namespaces
-        Enumeration keys = namespaces.keys();
+        if(validationMode == VALIDATION_STRUCTURAL)
+        {
+            if(!(XUI_NAMESPACE.equals(namespaceURI)))
+                throw new SAXException("Element " + qName + " is not in the XUI namespace.");
+            if(firstTime && !(localName.equals("XUI")))
+                throw new SAXException("Root element must be a XUI element.");
+        }
+        if(namespaceSupport != null)
+        {
+            if(!namespaceContextStarted)
+                namespaceSupport.pushContext();
+            namespaceContextStarted = false;
+        }
+        if(deferredDepth > 0)
+        {
+            // within deferred content only the ids are kept
+            deferredDepth++;
+            String id = atts.getValue("id");
+            if(id != null)
+                deferredIDs.add(id);
+            return;
+        }
+        flushText();
         XUINode e = new XUINodeImpl(localName);
         e.setLevel(currentLevel);
         e.setIsBeginOfNamespace(namespaces.containsKey(namespaceURI));
 
         currentLevel++;
-        StringTokenizer st = new StringTokenizer(qName, ":");
-        String pre = st.nextToken();
+        int colon = qName.indexOf(':');
+        String pre = (colon == -1) ? qName : qName.substring(0, colon);
         e.addNamespace(pre, namespaceURI);
 
         // kind of inefficient but I figure better to blow any namespace
         // already in place with the same thing than to check.
-        while(keys.hasMoreElements())
+        if(!(namespaces.isEmpty()))
         {
-            String key = (String)keys.nextElement();
-            String prefixValue = (String)namespaces.get(key);
-            e.addNamespace(prefixValue, key);
-
-            namespaces.remove(key);
+            Enumeration keys = namespaces.keys();
+            while(keys.hasMoreElements())
+            {
+                String key = (String)keys.nextElement();
+                String prefixValue = (String)namespaces.get(key);
+                e.addNamespace(prefixValue, key);
+            }
+            namespaces.clear();
         }
 
         // give it attributes
-        e.setAttributes(new AttributesImpl(atts));
+        e.setAttributes(atts);
         if(firstTime)
         {
             root = e;
@@ -461,6 +1006,22 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
             current.addChildNode(e);
         }
         nodeStack.push(e);
+
+        if(namespaceSupport != null && isDeferred(localName, atts))
+        {
+            if(deferredSource == null)
+            {
+                String encoding = (locator instanceof Locator2) ? ((Locator2)locator).getEncoding() : null;
+                deferredSource = new XUIDeferredContent.Source(locator.getSystemId(), encoding,
+                    deferredStamp);
+            }
+            deferredDepth = 1;
+            deferredQName = qName;
+            deferredDeclarations = getNamespaceDeclarations();
+            deferredLine = locator.getLineNumber();
+            deferredColumn = locator.getColumnNumber();
+            deferredIDs.clear();
+        }
     }
 
     /**
@@ -500,7 +1061,97 @@ public class XUIBuilderImpl extends DefaultHandler implements XUIBuilder
      */
     public void startPrefixMapping(String prefix, String uri)
     {
-        namespaces.put(uri, prefix);
+        if(namespaceSupport != null)
+        {
+            if(!namespaceContextStarted)
+            {
+                namespaceSupport.pushContext();
+                namespaceContextStarted = true;
+            }
+            namespaceSupport.declarePrefix(prefix, uri);
+        }
+        if(deferredDepth == 0)
+            namespaces.put(uri, prefix);
     }
 
+    /**
+     * Hands the content that has just ended over to the element it belongs to, unless the
+     * element turned out to be empty.
+     */
+    private void endDeferredContent()
+    {
+        int line = locator.getLineNumber();
+        int column = locator.getColumnNumber();
+        // an empty element ends where it starts
+        if(line == deferredLine && column == deferredColumn)
+            return;
+        String[] ids = XUIDeferredContent.NO_IDS;
+        if(!deferredIDs.isEmpty())
+            ids = (String[])deferredIDs.toArray(new String[deferredIDs.size()]);
+        ((XUINodeImpl)nodeStack.peek()).setDeferredContent(new XUIDeferredContent(deferredSource,
+            deferredQName, deferredDeclarations, deferredLine, deferredColumn, line, column, ids));
+        deferredIDs.clear();
+    }
+
+
+    /**
+     * An input stream reading from a byte buffer. Used to parse buffers, including those
+     * mapped to files, without first copying their contents onto the Java heap.
+     */
+    private static class ByteBufferInputStream extends InputStream
+    {
+        /**
+         * The buffer being read from.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Creates a stream reading the buffer from its position up to its limit.
+         *
+         * @param buffer the buffer to read from.
+         */
+        ByteBufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the next byte.
+         *
+         * @return the byte or -1 if the end of the buffer has been reached.
+         */
+        public int read()
+        {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @param b the array to read into.
+         * @param offset where in the array to start.
+         * @param length the most number of bytes to read.
+         * @return the number of bytes read or -1 if the end of the buffer has been reached.
+         */
+        public int read(byte[] b, int offset, int length)
+        {
+            if(length == 0)
+                return 0;
+            if(!buffer.hasRemaining())
+                return -1;
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(b, offset, n);
+            return n;
+        }
+
+        /**
+         * Returns the number of bytes left in the buffer.
+         *
+         * @return the number of bytes left.
+         */
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
 }
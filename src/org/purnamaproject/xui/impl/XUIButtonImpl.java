@@ -42,8 +42,6 @@ import java.awt.event.ActionListener;
 import java.awt.Rectangle;
 import java.io.IOException;
 import java.net.URL;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.StringTokenizer;
@@ -132,10 +130,10 @@ public class XUIButtonImpl implements XUIButton, ActionListener
      */
     public XUIButtonImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("Button")))
             throw new XUIDisplayException("Node for XUIButton must be named 'Button' and conform to the XUI schema.");
@@ -145,7 +143,7 @@ public class XUIButtonImpl implements XUIButton, ActionListener
             button = new JButton();
 
             button.setText(node.getAttributeValue("label"));
-            button.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+            button.setEnabled(node.getAttributeBooleanValue("enabled"));
 
             if(node.getAttributeValue("orientation").equals("vertical"))
             {
@@ -548,26 +546,12 @@ public class XUIButtonImpl implements XUIButton, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
-
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
 
@@ -579,10 +563,14 @@ public class XUIButtonImpl implements XUIButton, ActionListener
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(button);
-                    container.add(button, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(button, region);
                     button.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     buttonNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -646,26 +634,12 @@ public class XUIButtonImpl implements XUIButton, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
-
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -677,10 +651,14 @@ public class XUIButtonImpl implements XUIButton, ActionListener
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(button);
-                    container.add(button, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(button, region);
                     button.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     buttonNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
@@ -38,8 +38,6 @@ import java.awt.Component;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Rectangle;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import org.purnamaproject.xui.component.container.intermediate.XUIPanel;
 import org.purnamaproject.xui.component.XUIComponent;
 import org.purnamaproject.xui.helpers.IDFactory;
@@ -109,10 +107,10 @@ public class XUICalendarImpl implements XUICalendar
      */
     public XUICalendarImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("Calendar")))
             throw new XUIDisplayException("Node for XUICalendar must be named 'Calendar' and conform to the XUI schema.");
@@ -364,25 +362,12 @@ public class XUICalendarImpl implements XUICalendar
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -393,10 +378,14 @@ public class XUICalendarImpl implements XUICalendar
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(calendar);
-                    container.add(calendar, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(calendar, region);
                     calendar.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     calendarNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -459,25 +448,12 @@ public class XUICalendarImpl implements XUICalendar
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -489,10 +465,14 @@ public class XUICalendarImpl implements XUICalendar
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(calendar);
-                    container.add(calendar, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(calendar, region);
                     calendar.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     calendarNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
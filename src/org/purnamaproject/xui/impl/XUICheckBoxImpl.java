@@ -41,8 +41,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.Rectangle;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.StringTokenizer;
 import javax.swing.AbstractButton;
@@ -128,10 +126,10 @@ public class XUICheckBoxImpl implements XUICheckBox, ActionListener
      */
     public XUICheckBoxImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("CheckBox")))
             throw new XUIDisplayException("Node for XUICheckBox must be named 'CheckBox' and conform to the XUI schema.");
@@ -141,7 +139,7 @@ public class XUICheckBoxImpl implements XUICheckBox, ActionListener
             checkBox = new JCheckBox();
             checkBoxNode = node;
             checkBox.setText(node.getAttributeValue("label"));
-            checkBox.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+            checkBox.setEnabled(node.getAttributeBooleanValue("enabled"));
 
             if(node.getAttributeValue("orientation").equals("vertical"))
             {
@@ -558,25 +556,12 @@ public class XUICheckBoxImpl implements XUICheckBox, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -587,10 +572,14 @@ public class XUICheckBoxImpl implements XUICheckBox, ActionListener
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(checkBox);
-                    container.add(checkBox, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(checkBox, region);
                     checkBox.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     checkBoxNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -652,25 +641,12 @@ public class XUICheckBoxImpl implements XUICheckBox, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -682,10 +658,14 @@ public class XUICheckBoxImpl implements XUICheckBox, ActionListener
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(checkBox);
-                    container.add(checkBox, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(checkBox, region);
                     checkBox.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     checkBoxNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
@@ -41,8 +41,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.Rectangle;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.StringTokenizer;
@@ -129,10 +127,10 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
      */
     public XUIComboBoxImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("ComboBox")))
             throw new XUIDisplayException("Node for XUIComboBox must be named 'ComboBox' and conform to the XUI schema.");
@@ -145,8 +143,8 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
             comboBoxNode = node;
             comboBoxNode.setXUIComponent(this);
 
-            comboBox.setEditable(Boolean.valueOf(node.getAttributeValue("isEditable")).booleanValue());
-            comboBox.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+            comboBox.setEditable(node.getAttributeBooleanValue("isEditable"));
+            comboBox.setEnabled(node.getAttributeBooleanValue("enabled"));
 
             // get the combo items
             List items = node.getChildNodesByName("ComboItem");
@@ -162,7 +160,7 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
                 // runtime exception but catch it and wrap XUI exception explaining the problem
                 try
                 {
-                    comboBox.setSelectedIndex(Integer.parseInt(node.getAttributeValue("itemSelected")));
+                    comboBox.setSelectedIndex(node.getAttributeIntValue("itemSelected"));
                 } catch (IllegalArgumentException e)
                 {
                     throw new XUIDisplayException(e.getMessage());
@@ -542,25 +540,12 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -571,10 +556,14 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(comboBox);
-                    container.add(comboBox, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(comboBox, region);
                     comboBox.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     comboBoxNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -636,25 +625,12 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -666,10 +642,14 @@ public class XUIComboBoxImpl implements XUIComboBox, ActionListener
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(comboBox);
-                    container.add(comboBox, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(comboBox, region);
                     comboBox.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     comboBoxNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
@@ -42,6 +42,7 @@ import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.awt.Rectangle;
 import java.awt.Toolkit;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
@@ -72,6 +73,7 @@ import org.purnamaproject.xui.impl.XUINodeImpl;
 import org.purnamaproject.xui.XUIDisplayException;
 import org.purnamaproject.xui.component.XUIComponent;
 import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUINodeVisitor;
 import org.purnamaproject.xui.GridMapping;
 import org.purnamaproject.xui.XUITypeFormatException;
 import org.purnamaproject.xui.binding.XUIModel;
@@ -123,6 +125,11 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      */
     private Hashtable childComponentMappings = null;
 
+    /**
+     * The batch of changes in progress on this container, if any.
+     */
+    private XUIUpdateBatch batch = new XUIUpdateBatch();
+
     /**
      * The grid width of this component (in grid cells).
      */
@@ -170,10 +177,10 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      */
     public XUICustomDialogImpl(XUINode node) throws XUIDisplayException
     {
-        int x = Integer.parseInt(node.getAttributeValue("x"));
-        int y = Integer.parseInt(node.getAttributeValue("y"));
-        int width = Integer.parseInt(node.getAttributeValue("width"));
-        int height = Integer.parseInt(node.getAttributeValue("height"));
+        int x = node.getAttributeIntValue("x");
+        int y = node.getAttributeIntValue("y");
+        int width = node.getAttributeIntValue("width");
+        int height = node.getAttributeIntValue("height");
 
         Dimension d = Toolkit.getDefaultToolkit().getScreenSize();
         if(!(node.getName().equals("CustomDialog")))
@@ -194,17 +201,17 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
             dialog.setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
 
             // make the new mappings table
-            childComponentMappings = new Hashtable();
+            childComponentMappings = new XUIGridMapping(this);
 
             // get the layout for width and height
             List layoutNodes = dialogNode.getChildNodesByName("GridLayout");
             // we know it's here so we can hard code this.
             XUINode layoutNode = (XUINode)layoutNodes.get(0);
             dialog.getContentPane().setLayout(new GraphPaperLayout(new Dimension(
-                Integer.parseInt(layoutNode.getAttributeValue("width")),
-                Integer.parseInt(layoutNode.getAttributeValue("height")))));
-            windowVisibility = Boolean.valueOf(node.getAttributeValue("visible")).booleanValue();
-            dialog.setModal(Boolean.valueOf(node.getAttributeValue("modal")).booleanValue());
+                layoutNode.getAttributeIntValue("width"),
+                layoutNode.getAttributeIntValue("height"))));
+            windowVisibility = node.getAttributeBooleanValue("visible");
+            dialog.setModal(node.getAttributeBooleanValue("modal"));
             dialog.setSize(width, height);
             dialog.setLocation(x, y);
 
@@ -244,7 +251,7 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
     public XUICustomDialogImpl(XUIWindow window) throws XUIDisplayException
     {
         // make the new mappings table
-        childComponentMappings = new Hashtable();
+        childComponentMappings = new XUIGridMapping(this);
 
 
         // now create the XML version of this element
@@ -418,10 +425,10 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
             // get the node
             XUINode node = component.getNodeRepresentation();
 
-            int x = Integer.parseInt(node.getAttributeValue("x"));
-            int y = Integer.parseInt(node.getAttributeValue("y"));
-            int width = Integer.parseInt(node.getAttributeValue("width"));
-            int height = Integer.parseInt(node.getAttributeValue("height"));
+            int x = node.getAttributeIntValue("x");
+            int y = node.getAttributeIntValue("y");
+            int width = node.getAttributeIntValue("width");
+            int height = node.getAttributeIntValue("height");
 
 
             // check to make sure it fits within the grid.
@@ -437,7 +444,9 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
             dialog.getContentPane().add(component.getPeer(), rect);
             // for mapping components to the regions they occupy within the grid
             component.getPeer().invalidate();
-            dialog.validate();
+            // laid out once the batch of changes in progress ends
+            if(!batch.isActive())
+                dialog.validate();
             childComponentMappings.put(component, rect);
 
 
@@ -475,14 +484,14 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
         dialog.removeAll();
         childComponentMappings.clear();
         // and same for all the nodes in the tree:
-        List list = dialogNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        List children = dialogNode.getDirectChildren();
+        for(int i = children.size() - 1; i >= 0; i--)
         {
-            XUINode node = (XUINode)list.get(i);
+            XUINode node = (XUINode)children.get(i);
             if(node.getName().equals("GridLayout"))
                 ; // keep
             else
-                list.remove(node);
+                dialogNode.removeChildNode(i);
         }
     }
 
@@ -492,25 +501,26 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      *
      * @param component the component to remove.
      */
-    public void removeComponent(XUIComponent component)
+    public void removeComponent(final XUIComponent component)
     {
-        // flattened list
-        List list = dialogNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        // find the node belonging to the component
+        XUINode node = dialogNode.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode child)
+                {
+                    return XUINodeImpl.peekXUIComponent(child) != component;
+                }
+        });
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
             XUIComponent c = node.getXUIComponent();
-            if(c == component)
-            {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                dialog.remove(swingComponent);
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            dialog.remove(swingComponent);
+            if(!batch.isActive())
                 dialog.repaint();
-                dialogNode.removeChildNode(node);
-            }
+            dialogNode.removeChildNode(node);
         }
     }
 
@@ -521,29 +531,79 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      */
     public void removeComponent(String id)
     {
-        // flattened list
-        List list = dialogNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        XUINode node = dialogNode.getChildNodeByID(id);
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
             XUIComponent c = node.getXUIComponent();
-
-            if(nodeID.equals(id))
-            {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                dialog.remove(swingComponent);
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            dialog.remove(swingComponent);
+            if(!batch.isActive())
                 dialog.repaint();
-                // remove the node from the XUI document
-                dialogNode.removeChildNode(node);
-            }
+            // remove the node from the XUI document
+            dialogNode.removeChildNode(node);
         }
     }
 
+    /**
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
+     *
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     */
+    public void addComponents(Collection components) throws XUITypeFormatException
+    {
+        XUIUpdateBatch.addComponents(this, components);
+    }
+
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components)
+    {
+        XUIUpdateBatch.removeComponents(this, components);
+    }
+
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate()
+    {
+        batch.begin();
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate()
+    {
+        batch.end(this);
+    }
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating()
+    {
+        return batch.isActive();
+    }
+
     /**
      * Gets the component based on its id. If no component found by that id, null is returned.
      *
@@ -551,19 +611,9 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      */
     public XUIComponent getComponent(String id)
     {
-        // flattened list
-        List list = dialogNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
-            XUIComponent c = node.getXUIComponent();
-
-            if(nodeID.equals(id))
-                return c;
-        }
+        XUINode node = dialogNode.getChildNodeByID(id);
+        if(node != null)
+            return node.getXUIComponent();
         return null;
     }
 
@@ -574,13 +624,15 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      */
     public List getChildrenComponents()
     {
-        List components = new LinkedList();
-        List list = dialogNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            XUINode node = (XUINode)list.get(i);
-            components.add(node.getXUIComponent());
-        }
+        final List components = new LinkedList();
+        dialogNode.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    components.add(XUINodeImpl.peekXUIComponent(node));
+                    return true;
+                }
+        });
         return components;
     }
 
@@ -680,11 +732,11 @@ public class XUICustomDialogImpl implements XUICustomDialog, WindowListener
      */
     public void visualize()
     {
-        dialog.setSize(Integer.parseInt(dialogNode.getAttributeValue("width")),
-            Integer.parseInt(dialogNode.getAttributeValue("height")));
-        dialog.setLocation(Integer.parseInt(dialogNode.getAttributeValue("x")),
-            Integer.parseInt(dialogNode.getAttributeValue("y")));
-        dialog.setVisible(Boolean.valueOf(dialogNode.getAttributeValue("visible")).booleanValue());
+        dialog.setSize(dialogNode.getAttributeIntValue("width"),
+            dialogNode.getAttributeIntValue("height"));
+        dialog.setLocation(dialogNode.getAttributeIntValue("x"),
+            dialogNode.getAttributeIntValue("y"));
+        dialog.setVisible(dialogNode.getAttributeBooleanValue("visible"));
     }
 
     /**
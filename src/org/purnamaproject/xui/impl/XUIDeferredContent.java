@@ -0,0 +1,342 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIDeferredContent.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.ref.SoftReference;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import org.purnamaproject.xui.XUIParseException;
+import org.xml.sax.InputSource;
+
+/**
+ * The content of an element that was left unparsed by a lazy parse. Only where the content lies
+ * within the document is kept, along with the namespaces in scope and the ids of the elements
+ * within it. The content is parsed the first time it is asked for by reading the document again.
+ *
+ * @see org.purnamaproject.xui.XUIBuilder#setLazyParsing(boolean)
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+class XUIDeferredContent
+{
+    /**
+     * The ids of the elements within deferred content, when there are none.
+     */
+    static final String[] NO_IDS = new String[0];
+
+    /**
+     * The document the content comes from.
+     */
+    private Source source;
+
+    /**
+     * The qualified name of the element the content belongs to.
+     */
+    private String qName;
+
+    /**
+     * The namespace declarations in scope for the element, written as attributes.
+     */
+    private String declarations;
+
+    /**
+     * The line just after the start tag of the element.
+     */
+    private int startLine;
+
+    /**
+     * The column just after the start tag of the element.
+     */
+    private int startColumn;
+
+    /**
+     * The line just after the end tag of the element.
+     */
+    private int endLine;
+
+    /**
+     * The column just after the end tag of the element.
+     */
+    private int endColumn;
+
+    /**
+     * The ids of the elements within the content.
+     */
+    private String[] ids;
+
+    /**
+     * Creates deferred content.
+     *
+     * @param source the document the content comes from.
+     * @param qName the qualified name of the element the content belongs to.
+     * @param declarations the namespace declarations in scope, written as attributes.
+     * @param startLine the line just after the start tag of the element.
+     * @param startColumn the column just after the start tag of the element.
+     * @param endLine the line just after the end tag of the element.
+     * @param endColumn the column just after the end tag of the element.
+     * @param ids the ids of the elements within the content.
+     */
+    XUIDeferredContent(Source source, String qName, String declarations, int startLine,
+        int startColumn, int endLine, int endColumn, String[] ids)
+    {
+        this.source = source;
+        this.qName = qName;
+        this.declarations = declarations;
+        this.startLine = startLine;
+        this.startColumn = startColumn;
+        this.endLine = endLine;
+        this.endColumn = endColumn;
+        this.ids = ids;
+    }
+
+    /**
+     * Returns the ids of the elements within the content.
+     *
+     * @return the ids.
+     */
+    String[] getIDs()
+    {
+        return ids;
+    }
+
+    /**
+     * Parses the content. The content is wrapped in an element of the same name as the one it
+     * belongs to, whose children and character data are the content.
+     *
+     * @param level the level of the element the content belongs to.
+     * @return the wrapping element.
+     * @throws XUIParseException if the document cannot be read again or its size or modification
+     * time has changed since it was first parsed.
+     */
+    XUINodeImpl parse(int level) throws XUIParseException
+    {
+        try
+        {
+            String text = source.getText();
+            int[] lines = source.getLineStarts();
+            int start = lines[startLine - 1] + startColumn - 1;
+            int end = text.lastIndexOf("</", lines[endLine - 1] + endColumn - 2);
+            if(end < start)
+                throw new XUIParseException("The content of " + qName + " in "
+                    + source.systemId + " cannot be found");
+            StringBuffer sb = new StringBuffer(end - start + 2 * qName.length() + declarations.length() + 5);
+            sb.append('<').append(qName).append(declarations).append('>');
+            sb.append(text, start, end);
+            sb.append("</").append(qName).append('>');
+
+            InputSource in = new InputSource(new StringReader(sb.toString()));
+            in.setSystemId(source.systemId);
+            return new XUIBuilderImpl().parseFragment(in, level);
+        } catch(IOException ioe)
+        {
+            throw new XUIParseException(ioe.getMessage());
+        }
+    }
+
+    /**
+     * A document that deferred content is read from. The text of the document is kept for as
+     * long as memory allows so that several pieces of content can be parsed without reading
+     * the document each time. Whenever the document is read again, its size and modification
+     * time are checked against those it had when it was first parsed.
+     */
+    static class Source
+    {
+        /**
+         * The location of the document.
+         */
+        private String systemId;
+
+        /**
+         * The encoding of the document.
+         */
+        private String encoding;
+
+        /**
+         * The size and modification time of the document when it was first parsed.
+         */
+        private long[] stamp;
+
+        /**
+         * The text of the document along with where each of its lines start.
+         */
+        private SoftReference text = null;
+
+        /**
+         * Creates a document source.
+         *
+         * @param systemId the location of the document.
+         * @param encoding the encoding of the document or null for UTF-8.
+         * @param stamp the size and modification time of the document when it was first parsed.
+         */
+        Source(String systemId, String encoding, long[] stamp)
+        {
+            this.systemId = systemId;
+            this.encoding = (encoding == null) ? "UTF-8" : encoding;
+            this.stamp = stamp;
+        }
+
+        /**
+         * Returns the size and modification time of a document. Either is 0 if it is not known.
+         *
+         * @param systemId the location of the document, as a URL or a file name.
+         * @return the size and modification time.
+         * @throws IOException if the document cannot be found.
+         */
+        static long[] getStamp(String systemId) throws IOException
+        {
+            URL url;
+            try
+            {
+                url = new URL(systemId);
+            } catch(MalformedURLException mue)
+            {
+                url = new File(systemId).toURI().toURL();
+            }
+            if(url.getProtocol().equals("file"))
+            {
+                File file;
+                try
+                {
+                    file = new File(url.toURI());
+                } catch(Exception e)
+                {
+                    file = new File(url.getPath());
+                }
+                if(!file.isFile())
+                    throw new FileNotFoundException(systemId);
+                return new long[] {file.length(), file.lastModified()};
+            }
+            URLConnection connection = url.openConnection();
+            if(connection instanceof HttpURLConnection)
+                ((HttpURLConnection)connection).setRequestMethod("HEAD");
+            try
+            {
+                return new long[] {Math.max(connection.getContentLengthLong(), 0), connection.getLastModified()};
+            } finally
+            {
+                if(connection instanceof HttpURLConnection)
+                    ((HttpURLConnection)connection).disconnect();
+            }
+        }
+
+        /**
+         * Returns the text of the document.
+         *
+         * @return the text.
+         * @throws IOException if the document cannot be read.
+         */
+        String getText() throws IOException
+        {
+            return (String)load()[0];
+        }
+
+        /**
+         * Returns the offsets within the text at which each line starts.
+         *
+         * @return the line offsets, the first line being at index 0.
+         * @throws IOException if the document cannot be read.
+         */
+        int[] getLineStarts() throws IOException
+        {
+            return (int[])load()[1];
+        }
+
+        /**
+         * Returns the text and line offsets, reading the document if they are not held.
+         *
+         * @return the text and line offsets.
+         * @throws IOException if the document cannot be read.
+         */
+        private synchronized Object[] load() throws IOException
+        {
+            Object[] loaded = (text == null) ? null : (Object[])text.get();
+            if(loaded != null)
+                return loaded;
+
+            StringBuffer sb = new StringBuffer();
+            InputStream in = new URL(systemId).openStream();
+            try
+            {
+                Reader reader = new InputStreamReader(in, encoding);
+                char[] buffer = new char[8192];
+                int read;
+                while((read = reader.read(buffer)) != -1)
+                    sb.append(buffer, 0, read);
+            } finally
+            {
+                in.close();
+            }
+            // the content is found by where it lay when the document was first parsed
+            long[] current = getStamp(systemId);
+            if(stamp != null && (current[0] != stamp[0] || current[1] != stamp[1]))
+                throw new IOException("The document " + systemId + " has changed since it was parsed");
+            // the parser does not count a byte order mark as a column
+            if(sb.length() > 0 && sb.charAt(0) == '\uFEFF')
+                sb.deleteCharAt(0);
+
+            int length = sb.length();
+            int[] starts = new int[16];
+            int lines = 1;
+            for(int i = 0; i < length; i++)
+            {
+                char c = sb.charAt(i);
+                if(c == '\r' && i + 1 < length && sb.charAt(i + 1) == '\n')
+                    i++;
+                else if(c != '\r' && c != '\n')
+                    continue;
+                if(lines == starts.length)
+                {
+                    int[] grown = new int[lines * 2];
+                    System.arraycopy(starts, 0, grown, 0, lines);
+                    starts = grown;
+                }
+                starts[lines++] = i + 1;
+            }
+
+            loaded = new Object[] {sb.toString(), starts};
+            text = new SoftReference(loaded);
+            return loaded;
+        }
+    }
+}
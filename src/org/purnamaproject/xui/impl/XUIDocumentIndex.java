@@ -0,0 +1,560 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIDocumentIndex.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import org.purnamaproject.xui.XUINode;
+
+/**
+ * Keeps a lookup table of the nodes within one XUI document so that nodes can be found by their
+ * id attribute without having to walk the whole tree. The index is owned by the XUI document and
+ * is shared by every node within that document. Nodes keep the index up to date as children are
+ * added or removed and as their id attribute changes.
+ *
+ * <p>Ids are expected to be unique (they are of type xs:ID) but documents built through the API
+ * may still end up with duplicates. The first node registered under an id is the one returned by
+ * {@link #getNodeByID(String)}; all of them are returned by {@link #getNodesByID(String)}.</p>
+ *
+ * <p>Nodes whose content was deferred by a lazy parse are registered without their content. The
+ * ids within the content are kept so that looking one of them up parses the content. Looking
+ * nodes up by name or level parses all deferred content first.</p>
+ *
+ * <p>The index can optionally also keep track of nodes by their element name and by their level
+ * within the hierarchy. These secondary indexes are off by default since most documents are
+ * small enough that walking the tree is cheap. Once turned on, they are kept up to date in the
+ * same way as the id index.</p>
+ *
+ * @see org.purnamaproject.xui.XUI
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIDocumentIndex
+{
+    /**
+     * The id values mapped to the first node found with that id.
+     */
+    private Hashtable ids;
+
+    /**
+     * The id values mapped to a list of any other nodes that share that id. Only
+     * created when a duplicate id is actually found.
+     */
+    private Hashtable duplicateIDs = null;
+
+    /**
+     * The element names mapped to the set of nodes with that name. Null unless the secondary
+     * indexes have been turned on.
+     */
+    private Hashtable names = null;
+
+    /**
+     * The levels (as <code>Integer</code>s) mapped to the set of nodes at that level. Null
+     * unless the secondary indexes have been turned on.
+     */
+    private Hashtable levels = null;
+
+    /**
+     * The ids within deferred content mapped to the node the content belongs to. Only created
+     * when deferred content is registered.
+     */
+    private Hashtable deferredIDs = null;
+
+    /**
+     * The nodes registered whose content is deferred. Only created when deferred content is
+     * registered.
+     */
+    private Set deferredNodes = null;
+
+    /**
+     * The root node of the document this index belongs to.
+     */
+    private XUINode root = null;
+
+    /**
+     * Creates an empty index.
+     */
+    public XUIDocumentIndex()
+    {
+        ids = new Hashtable();
+    }
+
+    /**
+     * Creates an index for the tree starting at the node given. The node and all of its
+     * direct and indirect children are registered.
+     *
+     * @param root the root node of the document.
+     */
+    public XUIDocumentIndex(XUINode root)
+    {
+        this();
+        this.root = root;
+        register(root);
+    }
+
+    /**
+     * Turns the name and level indexes on or off. Turning them on indexes all of the nodes
+     * currently registered, starting at the root node this index was created with.
+     *
+     * @param enabled true to keep track of nodes by name and level, false to stop doing so.
+     */
+    public synchronized void setNameAndLevelIndexing(boolean enabled)
+    {
+        if(!enabled)
+        {
+            names = null;
+            levels = null;
+        } else if(names == null)
+        {
+            names = new Hashtable();
+            levels = new Hashtable();
+            if(root != null)
+                addNameAndLevel(root);
+        }
+    }
+
+    /**
+     * Returns whether or not the name and level indexes are turned on.
+     *
+     * @return true if nodes are being indexed by name and level.
+     */
+    public synchronized boolean isNameAndLevelIndexing()
+    {
+        return names != null;
+    }
+
+    /**
+     * Registers a node and all of its direct and indirect children with this index. If the
+     * node is null, no action is taken.
+     *
+     * @param node the node to register.
+     */
+    public synchronized void register(XUINode node)
+    {
+        if(node == null)
+            return;
+        if(node instanceof XUINodeImpl)
+            ((XUINodeImpl)node).setDocumentIndex(this);
+        addID(node.getAttributeID(), node);
+        if(names != null)
+        {
+            addToSet(names, node.getName(), node);
+            addToSet(levels, Integer.valueOf(node.getLevel()), node);
+        }
+        if(addDeferred(node))
+            return;
+
+        List children = node.getDirectChildren();
+        int n = children.size();
+        for(int i = 0; i < n; i++)
+            register((XUINode)children.get(i));
+    }
+
+    /**
+     * Removes a node and all of its direct and indirect children from this index. If the
+     * node is null, no action is taken.
+     *
+     * @param node the node to remove.
+     */
+    public synchronized void unregister(XUINode node)
+    {
+        if(node == null)
+            return;
+        if(node instanceof XUINodeImpl)
+            ((XUINodeImpl)node).setDocumentIndex(null);
+        removeID(node.getAttributeID(), node);
+        if(names != null)
+        {
+            removeFromSet(names, node.getName(), node);
+            removeFromSet(levels, Integer.valueOf(node.getLevel()), node);
+        }
+        if(removeDeferred(node))
+            return;
+
+        List children = node.getDirectChildren();
+        int n = children.size();
+        for(int i = 0; i < n; i++)
+            unregister((XUINode)children.get(i));
+    }
+
+    /**
+     * Called by a node when its id attribute changes.
+     *
+     * @param node the node whose id has changed.
+     * @param oldID the previous id value. May be null.
+     * @param newID the new id value. May be null.
+     */
+    public synchronized void updateID(XUINode node, String oldID, String newID)
+    {
+        if(oldID != null && oldID.equals(newID))
+            return;
+        removeID(oldID, node);
+        addID(newID, node);
+    }
+
+    /**
+     * Called by a node when its name changes.
+     *
+     * @param node the node whose name has changed.
+     * @param oldName the previous name.
+     * @param newName the new name.
+     */
+    public synchronized void updateName(XUINode node, String oldName, String newName)
+    {
+        if(names == null || oldName.equals(newName))
+            return;
+        removeFromSet(names, oldName, node);
+        addToSet(names, newName, node);
+    }
+
+    /**
+     * Called by a node when its level changes.
+     *
+     * @param node the node whose level has changed.
+     * @param oldLevel the previous level.
+     * @param newLevel the new level.
+     */
+    public synchronized void updateLevel(XUINode node, int oldLevel, int newLevel)
+    {
+        if(levels == null || oldLevel == newLevel)
+            return;
+        removeFromSet(levels, Integer.valueOf(oldLevel), node);
+        addToSet(levels, Integer.valueOf(newLevel), node);
+    }
+
+    /**
+     * Returns the nodes with the given element name. The name and level indexes must be
+     * turned on.
+     *
+     * @see #setNameAndLevelIndexing(boolean)
+     * @param name the element name.
+     * @return a new list of the nodes with that name. If there are none, the list is empty.
+     */
+    public synchronized List getNodesByName(String name)
+    {
+        materializeAll();
+        return toList((Set)names.get(name));
+    }
+
+    /**
+     * Returns the nodes at the given level. The name and level indexes must be turned on.
+     *
+     * @see #setNameAndLevelIndexing(boolean)
+     * @param level the level within the hierarchy.
+     * @return a new list of the nodes at that level. If there are none, the list is empty.
+     */
+    public synchronized List getNodesByLevel(int level)
+    {
+        materializeAll();
+        return toList((Set)levels.get(Integer.valueOf(level)));
+    }
+
+    /**
+     * Returns the node with the given id or null if there is no such node.
+     *
+     * @param id the value of the id attribute.
+     * @return the node or null if not found.
+     */
+    public synchronized XUINode getNodeByID(String id)
+    {
+        if(id == null)
+            return null;
+        XUINode node = (XUINode)ids.get(id);
+        if(node == null && deferredIDs != null)
+        {
+            XUINodeImpl owner = (XUINodeImpl)deferredIDs.get(id);
+            if(owner != null)
+            {
+                owner.materialize();
+                node = (XUINode)ids.get(id);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns all nodes that have the given id. If there are none, an empty list is returned.
+     *
+     * @param id the value of the id attribute.
+     * @return the list of nodes with that id.
+     */
+    public synchronized List getNodesByID(String id)
+    {
+        List nodes = new LinkedList();
+        XUINode node = getNodeByID(id);
+        if(node != null)
+        {
+            nodes.add(node);
+            if(duplicateIDs != null && duplicateIDs.containsKey(id))
+                nodes.addAll((List)duplicateIDs.get(id));
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the ids of all of the nodes in the document, including those within deferred
+     * content.
+     *
+     * @return a new list of the ids.
+     */
+    public synchronized List getIDs()
+    {
+        List list = new LinkedList(ids.keySet());
+        if(deferredIDs != null)
+            list.addAll(deferredIDs.keySet());
+        return list;
+    }
+
+    /**
+     * Called by a node once its deferred content has been parsed. The ids within the content
+     * are forgotten and the new child nodes are registered.
+     *
+     * @param node the node whose content has been parsed.
+     * @param content the content that was parsed.
+     */
+    synchronized void materialized(XUINodeImpl node, XUIDeferredContent content)
+    {
+        forgetDeferred(node, content);
+        List children = node.getDirectChildren();
+        int n = children.size();
+        for(int i = 0; i < n; i++)
+            register((XUINode)children.get(i));
+    }
+
+    /**
+     * Keeps track of the deferred content of a node.
+     *
+     * @param node the node being registered.
+     * @return true if the node has deferred content, in which case its children are not
+     * registered.
+     */
+    private boolean addDeferred(XUINode node)
+    {
+        if(!(node instanceof XUINodeImpl))
+            return false;
+        XUIDeferredContent content = ((XUINodeImpl)node).getDeferredContent();
+        if(content == null)
+            return false;
+        if(deferredNodes == null)
+        {
+            deferredIDs = new Hashtable();
+            deferredNodes = new LinkedHashSet();
+        }
+        deferredNodes.add(node);
+        String[] contentIDs = content.getIDs();
+        for(int i = 0; i < contentIDs.length; i++)
+            if(!(deferredIDs.containsKey(contentIDs[i])))
+                deferredIDs.put(contentIDs[i], node);
+        return true;
+    }
+
+    /**
+     * Stops keeping track of the deferred content of a node.
+     *
+     * @param node the node being unregistered.
+     * @return true if the node has deferred content, in which case it has no children to
+     * unregister.
+     */
+    private boolean removeDeferred(XUINode node)
+    {
+        if(!(node instanceof XUINodeImpl))
+            return false;
+        XUIDeferredContent content = ((XUINodeImpl)node).getDeferredContent();
+        if(content == null)
+            return false;
+        forgetDeferred((XUINodeImpl)node, content);
+        return true;
+    }
+
+    /**
+     * Forgets the ids within the deferred content of a node.
+     *
+     * @param node the node the content belongs to.
+     * @param content the content.
+     */
+    private void forgetDeferred(XUINodeImpl node, XUIDeferredContent content)
+    {
+        if(deferredNodes == null)
+            return;
+        deferredNodes.remove(node);
+        String[] contentIDs = content.getIDs();
+        for(int i = 0; i < contentIDs.length; i++)
+            if(deferredIDs.get(contentIDs[i]) == node)
+                deferredIDs.remove(contentIDs[i]);
+    }
+
+    /**
+     * Parses all of the deferred content in the document.
+     */
+    private void materializeAll()
+    {
+        while(deferredNodes != null && !(deferredNodes.isEmpty()))
+            ((XUINodeImpl)deferredNodes.iterator().next()).materialize();
+    }
+
+    /**
+     * Adds a node and all of its children to the name and level indexes.
+     *
+     * @param node the node to add.
+     */
+    private void addNameAndLevel(XUINode node)
+    {
+        addToSet(names, node.getName(), node);
+        addToSet(levels, Integer.valueOf(node.getLevel()), node);
+        // deferred content is added once it has been parsed
+        if(node instanceof XUINodeImpl && ((XUINodeImpl)node).getDeferredContent() != null)
+            return;
+        List children = node.getDirectChildren();
+        int n = children.size();
+        for(int i = 0; i < n; i++)
+            addNameAndLevel((XUINode)children.get(i));
+    }
+
+    /**
+     * Adds a node to the set mapped to the key given, creating the set if need be.
+     *
+     * @param table the table of sets.
+     * @param key the key.
+     * @param node the node to add.
+     */
+    private void addToSet(Hashtable table, Object key, XUINode node)
+    {
+        Set nodes = (Set)table.get(key);
+        if(nodes == null)
+        {
+            nodes = new LinkedHashSet();
+            table.put(key, nodes);
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * Removes a node from the set mapped to the key given, dropping the set once it is empty.
+     *
+     * @param table the table of sets.
+     * @param key the key.
+     * @param node the node to remove.
+     */
+    private void removeFromSet(Hashtable table, Object key, XUINode node)
+    {
+        Set nodes = (Set)table.get(key);
+        if(nodes != null)
+        {
+            nodes.remove(node);
+            if(nodes.isEmpty())
+                table.remove(key);
+        }
+    }
+
+    /**
+     * Copies a set of nodes into a new list.
+     *
+     * @param nodes the set of nodes. May be null.
+     * @return the new list.
+     */
+    private List toList(Set nodes)
+    {
+        List list = new LinkedList();
+        if(nodes != null)
+        {
+            Iterator i = nodes.iterator();
+            while(i.hasNext())
+                list.add(i.next());
+        }
+        return list;
+    }
+
+    /**
+     * Maps an id to a node.
+     *
+     * @param id the id value.
+     * @param node the node.
+     */
+    private void addID(String id, XUINode node)
+    {
+        if(id == null)
+            return;
+        Object existing = ids.get(id);
+        if(existing == null)
+            ids.put(id, node);
+        else if(existing != node)
+        {
+            if(duplicateIDs == null)
+                duplicateIDs = new Hashtable(4);
+            List others = (List)duplicateIDs.get(id);
+            if(others == null)
+            {
+                others = new LinkedList();
+                duplicateIDs.put(id, others);
+            }
+            if(!(others.contains(node)))
+                others.add(node);
+        }
+    }
+
+    /**
+     * Removes the mapping between an id and a node. If other nodes share the same id, the
+     * next one takes its place.
+     *
+     * @param id the id value.
+     * @param node the node.
+     */
+    private void removeID(String id, XUINode node)
+    {
+        if(id == null)
+            return;
+        List others = duplicateIDs == null ? null : (List)duplicateIDs.get(id);
+        if(ids.get(id) == node)
+        {
+            if(others == null)
+                ids.remove(id);
+            else
+            {
+                ids.put(id, others.remove(0));
+                if(others.isEmpty())
+                    duplicateIDs.remove(id);
+            }
+        } else if(others != null)
+        {
+            others.remove(node);
+            if(others.isEmpty())
+                duplicateIDs.remove(id);
+        }
+    }
+}
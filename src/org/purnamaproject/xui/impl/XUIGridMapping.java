@@ -0,0 +1,312 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIGridMapping.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import org.purnamaproject.xui.GridMapping;
+import org.purnamaproject.xui.XUIDisplayException;
+
+/**
+ * <p>The table of the regions occupied by the child components of a container, as returned by
+ * {@link GridMapping#getGridMapping()}. Besides the regions themselves, which child component
+ * occupies each cell of the container's grid is kept, so whether a region is free can be answered
+ * by looking at the cells within it rather than at every other child component.</p>
+ *
+ * <p>Only <code>put</code>, <code>remove</code> and <code>clear</code> keep the cells up to date.
+ * Regions are copied when they are put, so a region must be put again after it is changed.</p>
+ *
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+class XUIGridMapping extends Hashtable
+{
+    /**
+     * The container whose grid is mapped.
+     */
+    private GridMapping owner;
+
+    /**
+     * The number of columns of the grid the cells were laid out for.
+     */
+    private int columns = 0;
+
+    /**
+     * The number of rows of the grid the cells were laid out for.
+     */
+    private int rows = 0;
+
+    /**
+     * The occupant of each cell, row by row. A cell holds null if it is free, the component if one
+     * component occupies it or a vector of the components if several do.
+     */
+    private Object[] cells = new Object[0];
+
+    /**
+     * The components whose regions lie partly or wholly outside of the grid.
+     */
+    private Vector outside = new Vector();
+
+    /**
+     * Creates the table for a container.
+     *
+     * @param owner the container whose grid is mapped.
+     */
+    XUIGridMapping(GridMapping owner)
+    {
+        this.owner = owner;
+    }
+
+    /**
+     * Maps a component to the region it occupies, replacing any region it occupied before.
+     *
+     * @param component the component.
+     * @param region the <code>Rectangle</code> occupied by the component.
+     * @return the region the component occupied before, or null if it was not mapped.
+     */
+    public synchronized Object put(Object component, Object region)
+    {
+        fitToGrid();
+        if(region instanceof Rectangle)
+            region = new Rectangle((Rectangle)region);
+        Object old = super.put(component, region);
+        if(old instanceof Rectangle)
+            unmark(component, (Rectangle)old);
+        if(region instanceof Rectangle)
+            mark(component, (Rectangle)region);
+        return old;
+    }
+
+    /**
+     * Removes a component and the region it occupies.
+     *
+     * @param component the component.
+     * @return the region the component occupied, or null if it was not mapped.
+     */
+    public synchronized Object remove(Object component)
+    {
+        fitToGrid();
+        Object old = super.remove(component);
+        if(old instanceof Rectangle)
+            unmark(component, (Rectangle)old);
+        return old;
+    }
+
+    /**
+     * Removes all components and the regions they occupy.
+     */
+    public synchronized void clear()
+    {
+        super.clear();
+        cells = new Object[columns * rows];
+        outside.clear();
+    }
+
+    /**
+     * Returns a component other than the one given that occupies part of the region. The time
+     * taken is in proportion to the number of cells within the region.
+     *
+     * @param region the region.
+     * @param except the component that is allowed within the region, or null.
+     * @return a component occupying part of the region, or null if the region is free.
+     */
+    synchronized Object getOccupant(Rectangle region, Object except)
+    {
+        fitToGrid();
+        int left = Math.max(region.x, 0);
+        int right = Math.min(region.x + region.width, columns);
+        int top = Math.max(region.y, 0);
+        int bottom = Math.min(region.y + region.height, rows);
+        for(int row = top; row < bottom; row++)
+        {
+            for(int column = left; column < right; column++)
+            {
+                Object cell = cells[row * columns + column];
+                if(cell == null || cell == except)
+                    continue;
+                if(!(cell instanceof Vector))
+                    return cell;
+                Vector occupants = (Vector)cell;
+                for(int i = 0; i < occupants.size(); i++)
+                    if(occupants.get(i) != except)
+                        return occupants.get(i);
+            }
+        }
+
+        // the rest of the grid is free, apart from what lies outside of it
+        for(int i = 0; i < outside.size(); i++)
+        {
+            Object component = outside.get(i);
+            if(component != except && ((Rectangle)get(component)).intersects(region))
+                return component;
+        }
+        return null;
+    }
+
+    /**
+     * Checks that no component other than the one given occupies part of the region. Used by
+     * components before they move or change size within their container.
+     *
+     * @param grid the regions occupied within the container, as returned by
+     * <code>getGridMapping</code>. May be any hashtable of components to rectangles, or null.
+     * @param region the region the component is to occupy.
+     * @param component the component.
+     * @throws XUIDisplayException if another component occupies part of the region.
+     */
+    static void checkFree(Hashtable grid, Rectangle region, Object component) throws XUIDisplayException
+    {
+        if(grid == null)
+            return;
+
+        Object occupant = null;
+        if(grid instanceof XUIGridMapping)
+            occupant = ((XUIGridMapping)grid).getOccupant(region, component);
+        else
+        {
+            Enumeration keys = grid.keys();
+            while(occupant == null && keys.hasMoreElements())
+            {
+                Object someComponent = keys.nextElement();
+                if(someComponent != component && ((Rectangle)grid.get(someComponent)).intersects(region))
+                    occupant = someComponent;
+            }
+        }
+
+        if(occupant != null)
+            throw new XUIDisplayException("Component:\n" + occupant + "\nis already in the area x: "
+                + region.x + ", y: " + region.y + ", width: " + region.width + ", height: "
+                + region.height);
+    }
+
+    /**
+     * Lays the cells out again if the grid of the container has changed size.
+     */
+    private void fitToGrid()
+    {
+        Dimension d = null;
+        try
+        {
+            d = owner.getGrid();
+        } catch(RuntimeException re)
+        {
+            // the container has no grid at the moment: keep the cells as they are
+            return;
+        }
+        if(d == null || (d.width == columns && d.height == rows))
+            return;
+
+        columns = Math.max(d.width, 0);
+        rows = Math.max(d.height, 0);
+        cells = new Object[columns * rows];
+        outside.clear();
+        Enumeration keys = keys();
+        while(keys.hasMoreElements())
+        {
+            Object component = keys.nextElement();
+            Object region = get(component);
+            if(region instanceof Rectangle)
+                mark(component, (Rectangle)region);
+        }
+    }
+
+    /**
+     * Records a component as the occupant of the cells within its region.
+     *
+     * @param component the component.
+     * @param region the region it occupies.
+     */
+    private void mark(Object component, Rectangle region)
+    {
+        if(region.x < 0 || region.y < 0 || region.x + region.width > columns
+            || region.y + region.height > rows)
+            outside.add(component);
+
+        int right = Math.min(region.x + region.width, columns);
+        int bottom = Math.min(region.y + region.height, rows);
+        for(int row = Math.max(region.y, 0); row < bottom; row++)
+        {
+            for(int column = Math.max(region.x, 0); column < right; column++)
+            {
+                int i = row * columns + column;
+                Object cell = cells[i];
+                if(cell == null)
+                    cells[i] = component;
+                else if(cell instanceof Vector)
+                    ((Vector)cell).add(component);
+                else
+                {
+                    Vector occupants = new Vector(2);
+                    occupants.add(cell);
+                    occupants.add(component);
+                    cells[i] = occupants;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a component as the occupant of the cells within its region.
+     *
+     * @param component the component.
+     * @param region the region it occupied.
+     */
+    private void unmark(Object component, Rectangle region)
+    {
+        outside.remove(component);
+
+        int right = Math.min(region.x + region.width, columns);
+        int bottom = Math.min(region.y + region.height, rows);
+        for(int row = Math.max(region.y, 0); row < bottom; row++)
+        {
+            for(int column = Math.max(region.x, 0); column < right; column++)
+            {
+                int i = row * columns + column;
+                Object cell = cells[i];
+                if(cell == component)
+                    cells[i] = null;
+                else if(cell instanceof Vector)
+                {
+                    Vector occupants = (Vector)cell;
+                    occupants.remove(component);
+                    if(occupants.size() == 1)
+                        cells[i] = occupants.get(0);
+                }
+            }
+        }
+    }
+}
@@ -44,8 +44,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
 import javax.swing.text.BadLocationException;
@@ -126,10 +124,10 @@ public class XUIHypertextPaneImpl implements XUIHypertextPane, ActionListener
      */
     public XUIHypertextPaneImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("HypertextPane")))
             throw new XUIDisplayException("Node for XUIHypertextPane must be named 'HypertextPane' and conform to the XUI schema.");
@@ -438,25 +436,12 @@ public class XUIHypertextPaneImpl implements XUIHypertextPane, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -467,10 +452,14 @@ public class XUIHypertextPaneImpl implements XUIHypertextPane, ActionListener
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(hyperText);
-                    container.add(hyperText, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(hyperText, region);
                     hyperText.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     hyperTextNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -533,25 +522,12 @@ public class XUIHypertextPaneImpl implements XUIHypertextPane, ActionListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -563,10 +539,14 @@ public class XUIHypertextPaneImpl implements XUIHypertextPane, ActionListener
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(hyperText);
-                    container.add(hyperText, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(hyperText, region);
                     hyperText.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     hyperTextNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width",
                         "xs:unsignedShort", String.valueOf(width));
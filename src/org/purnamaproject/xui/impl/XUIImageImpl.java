@@ -42,8 +42,6 @@ import java.net.URL;
 import java.net.MalformedURLException;
 import java.io.File;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.StringTokenizer;
 import javax.swing.ImageIcon;
@@ -121,10 +119,10 @@ public class XUIImageImpl implements XUIImage
      */
     public XUIImageImpl(XUINode node)
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("Image")))
             throw new XUITypeFormatException("Node for XUIImage must be named 'Image' and conform to the XUI schema.");
@@ -377,7 +375,7 @@ public class XUIImageImpl implements XUIImage
      */
     public int getX()
     {
-        return Integer.parseInt(imageNode.getAttributeValue("x"));
+        return imageNode.getAttributeIntValue("x");
     }
 
     /**
@@ -389,7 +387,7 @@ public class XUIImageImpl implements XUIImage
      */
     public int getY()
     {
-        return Integer.parseInt(imageNode.getAttributeValue("y"));
+        return imageNode.getAttributeIntValue("y");
     }
 
     /**
@@ -402,7 +400,7 @@ public class XUIImageImpl implements XUIImage
      */
     public int getWidth()
     {
-        return Integer.parseInt(imageNode.getAttributeValue("width"));
+        return imageNode.getAttributeIntValue("width");
     }
 
     /**
@@ -415,7 +413,7 @@ public class XUIImageImpl implements XUIImage
      */
     public int getHeight()
     {
-        return Integer.parseInt(imageNode.getAttributeValue("height"));
+        return imageNode.getAttributeIntValue("height");
     }
 
     /**
@@ -530,25 +528,12 @@ public class XUIImageImpl implements XUIImage
                 if(!(parentName.equals("Button")) && !(parentName.equals("RadioButton"))
                 && !(parentName.equals("CheckBox")) && !(parentName.equals("MenuItem")))
                 {
-                    // collision detection
-                    Hashtable grid = parent.getGridMapping();
-
-                    Enumeration keys = grid.keys();
+                    // collision detection: the space must not be occupied by someone OTHER than the
+                    // current proposed component
+                    XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                     container = (Container)parent.getPeer();
 
-                    // need to check if the space is occupied AND if that space if occupied by
-                    // someone OTHER than the current proposed component
-                    while(keys.hasMoreElements())
-                    {
-                        XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                        Rectangle region = (Rectangle)grid.get(someComponent);
-                        if(region.intersects(spaceToOccupy) && someComponent != this)
-                            throw new XUIDisplayException("Component: " + someComponent + " is already in the area x: "
-                                + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                                + gridHeight);
-                    }
-
                     // now check if the atomic falls within the grid as specified by the container.
                     Dimension d = parent.getGrid();
                     if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -559,10 +544,14 @@ public class XUIImageImpl implements XUIImage
                     {
                         gridX = xCoordinate;
                         gridY = yCoordinate;
+                        Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                         container.remove(icon);
-                        container.add(icon, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                        container.add(icon, region);
                         icon.invalidate();
-                        container.validate();
+                        // laid out once the batch of changes in progress on the parent ends
+                        if(!parent.isUpdating())
+                            container.validate();
+                        parent.getGridMapping().put(this, region);
 
                         imageNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                             String.valueOf(xCoordinate));
@@ -655,23 +644,11 @@ public class XUIImageImpl implements XUIImage
                 && !(parentName.equals("CheckBox")) && !(parentName.equals("MenuItem")))
                 {
 
-                    // collision detection
-                    Hashtable grid = parent.getGridMapping();
-
-                    Enumeration keys = grid.keys();
+                    // collision detection: the space must not be occupied by someone OTHER than the
+                    // current proposed component
+                    XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                     container = (Container)parent.getPeer();
-                    // need to check if the space is occupied AND if that space if occupied by
-                    // someone OTHER than the current proposed component
-                    while(keys.hasMoreElements())
-                    {
-                        XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                        Rectangle region = (Rectangle)grid.get(someComponent);
-                        if(region.intersects(spaceToOccupy) && someComponent != this)
-                            throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                                + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                                + height);
-                    }
 
 
                     // now check if the atomic falls within the grid as specified by the container.
@@ -684,10 +661,14 @@ public class XUIImageImpl implements XUIImage
                     {
                         gridWidth = width;
                         gridHeight = height;
+                        Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                         container.remove(icon);
-                        container.add(icon, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                        container.add(icon, region);
                         icon.invalidate();
-                        container.validate();
+                        // laid out once the batch of changes in progress on the parent ends
+                        if(!parent.isUpdating())
+                            container.validate();
+                        parent.getGridMapping().put(this, region);
 
                         imageNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                             String.valueOf(width));
@@ -44,7 +44,6 @@ import java.awt.event.MouseListener;
 import java.awt.Rectangle;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.LinkedList;
 import javax.swing.event.ListSelectionListener;
@@ -143,10 +142,10 @@ public class XUIListImpl implements XUIList, ListSelectionListener, MouseListene
      */
     public XUIListImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("List")))
             throw new XUIDisplayException("Node for XUILIst must be named 'List' and conform to the XUI schema.");
@@ -188,10 +187,10 @@ public class XUIListImpl implements XUIList, ListSelectionListener, MouseListene
             listNode = node;
             listNode.setXUIComponent(this);
 
-            list.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+            list.setEnabled(node.getAttributeBooleanValue("enabled"));
             // only try this if there are values.
-            if(Integer.parseInt(node.getAttributeValue("itemSelected")) > -1)
-                list.setSelectedIndex(Integer.parseInt(node.getAttributeValue("itemSelected")));
+            if(node.getAttributeIntValue("itemSelected") > -1)
+                list.setSelectedIndex(node.getAttributeIntValue("itemSelected"));
 
             // get the list items
             List items = node.getChildNodesByName("ListItem");
@@ -611,25 +610,12 @@ public class XUIListImpl implements XUIList, ListSelectionListener, MouseListene
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -640,10 +626,14 @@ public class XUIListImpl implements XUIList, ListSelectionListener, MouseListene
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(scroller);
-                    container.add(scroller, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(scroller, region);
                     scroller.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     listNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -705,25 +695,12 @@ public class XUIListImpl implements XUIList, ListSelectionListener, MouseListene
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -735,10 +712,14 @@ public class XUIListImpl implements XUIList, ListSelectionListener, MouseListene
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(scroller);
-                    container.add(scroller, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(scroller, region);
                     scroller.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     listNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
@@ -0,0 +1,320 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIMarshalCache.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import org.purnamaproject.xui.XUINode;
+
+/**
+ * Marshals a XUI document to UTF-8 while keeping the bytes of the last marshal around. Every
+ * node remembers where its fragment sits within those bytes and whether it, or anything below
+ * it, has changed since. On the next marshal, the fragments of unchanged subtrees are copied
+ * across as is and only the nodes that changed are encoded again. The cost of saving a mostly
+ * unchanged document is therefore mostly that of copying bytes.
+ *
+ * <p>Nodes track their own changes as long as they are modified through the <code>XUINode</code>
+ * methods. Changes made directly to the list returned by <code>getDirectChildren</code> are not
+ * seen. The cache holds one copy of the marshalled document.</p>
+ *
+ * @see XUIMarshaller
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIMarshalCache
+{
+    /**
+     * The bytes of the last marshal or null if nothing has been marshalled yet.
+     */
+    private byte[] cache = null;
+
+    /**
+     * The root node that was last marshalled.
+     */
+    private XUINode cachedRoot = null;
+
+    /**
+     * Creates an empty cache.
+     */
+    public XUIMarshalCache()
+    {
+    }
+
+    /**
+     * Marshals a document to an output stream as UTF-8, reusing the fragments of any
+     * subtrees that have not changed since the last call. The stream is flushed but not closed.
+     *
+     * @param root the root node of the document.
+     * @param out the stream to marshal to.
+     * @throws IOException if the stream fails.
+     */
+    public synchronized void marshal(XUINode root, OutputStream out) throws IOException
+    {
+        boolean useCache = cache != null && root == cachedRoot;
+        UTF8Buffer buffer = new UTF8Buffer(useCache ? cache.length : 8192);
+        write(root, 0, buffer, useCache);
+        if(root instanceof XUINodeImpl)
+            ((XUINodeImpl)root).setMarshalFragment(0, buffer.size());
+        buffer.writeTo(out);
+        out.flush();
+        cache = buffer.getBytes();
+        cachedRoot = root;
+    }
+
+    /**
+     * Drops the bytes of the last marshal. The next marshal will encode every node.
+     */
+    public synchronized void clear()
+    {
+        cache = null;
+        cachedRoot = null;
+    }
+
+    /**
+     * Writes a node and its children to the buffer. The fragment of a node that has not
+     * changed is copied from the last marshal instead.
+     *
+     * @param node the node to write.
+     * @param cacheStart where the node's fragment starts within the last marshal. Only
+     * meaningful for nodes that have not changed.
+     * @param buffer the buffer to write to.
+     * @param useCache whether or not the fragments of the last marshal can be used.
+     * @throws IOException if encoding fails.
+     */
+    private void write(XUINode node, int cacheStart, UTF8Buffer buffer, boolean useCache)
+        throws IOException
+    {
+        if(useCache && node instanceof XUINodeImpl && !((XUINodeImpl)node).isMarshalDirty())
+        {
+            buffer.write(cache, cacheStart, ((XUINodeImpl)node).getMarshalFragmentLength());
+            return;
+        }
+        int start = buffer.size();
+        String namespacePrefix = XUIMarshaller.writeStartTag(node, buffer);
+        List children = node.getDirectChildren();
+        int size = children.size();
+        for(int i = 0; i < size; i++)
+        {
+            XUINode child = (XUINode)children.get(i);
+            int childStart = buffer.size();
+            if(child instanceof XUINodeImpl)
+            {
+                XUINodeImpl childImpl = (XUINodeImpl)child;
+                write(child, cacheStart + childImpl.getMarshalFragmentOffset(), buffer, useCache);
+                childImpl.setMarshalFragment(childStart - start, buffer.size() - childStart);
+            } else
+                write(child, 0, buffer, false);
+        }
+        XUIMarshaller.writeEndTag(node, namespacePrefix, size > 0, buffer);
+    }
+
+    /**
+     * A growable byte buffer that characters can be written to, encoding them as UTF-8.
+     */
+    private static class UTF8Buffer extends Writer
+    {
+        /**
+         * The bytes written so far.
+         */
+        private byte[] bytes;
+
+        /**
+         * The number of bytes written so far.
+         */
+        private int count = 0;
+
+        /**
+         * A high surrogate waiting on its low surrogate.
+         */
+        private char highSurrogate = 0;
+
+        /**
+         * Creates a buffer with the initial capacity given.
+         *
+         * @param capacity the initial capacity in bytes.
+         */
+        UTF8Buffer(int capacity)
+        {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        /**
+         * Returns the number of bytes written so far.
+         *
+         * @return the number of bytes.
+         */
+        int size()
+        {
+            return count;
+        }
+
+        /**
+         * Copies bytes that have already been encoded into this buffer.
+         *
+         * @param source the bytes to copy.
+         * @param offset where to start copying from.
+         * @param length the number of bytes to copy.
+         */
+        void write(byte[] source, int offset, int length)
+        {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, count, length);
+            count += length;
+        }
+
+        /**
+         * Writes the contents of this buffer to a stream.
+         *
+         * @param out the stream to write to.
+         * @throws IOException if the stream fails.
+         */
+        void writeTo(OutputStream out) throws IOException
+        {
+            out.write(bytes, 0, count);
+        }
+
+        /**
+         * Returns the array backing this buffer. Only the first <code>size()</code> bytes
+         * are in use.
+         *
+         * @return the bytes written so far.
+         */
+        byte[] getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * Encodes a single character.
+         *
+         * @param c the character to write.
+         */
+        public void write(int c)
+        {
+            ensureCapacity(4);
+            encode((char)c);
+        }
+
+        /**
+         * Encodes characters from an array.
+         *
+         * @param chars the characters.
+         * @param offset where to start.
+         * @param length the number of characters.
+         */
+        public void write(char[] chars, int offset, int length)
+        {
+            ensureCapacity(length * 3);
+            for(int i = 0; i < length; i++)
+                encode(chars[offset + i]);
+        }
+
+        /**
+         * Encodes characters from a string.
+         *
+         * @param s the string.
+         * @param offset where to start.
+         * @param length the number of characters.
+         */
+        public void write(String s, int offset, int length)
+        {
+            ensureCapacity(length * 3);
+            for(int i = 0; i < length; i++)
+                encode(s.charAt(offset + i));
+        }
+
+        /**
+         * Does nothing, the bytes stay in memory.
+         */
+        public void flush()
+        {
+        }
+
+        /**
+         * Does nothing, the bytes stay in memory.
+         */
+        public void close()
+        {
+        }
+
+        /**
+         * Encodes one character. Enough capacity must already have been made.
+         *
+         * @param c the character to encode.
+         */
+        private void encode(char c)
+        {
+            if(c < 0x80)
+                bytes[count++] = (byte)c;
+            else if(c < 0x800)
+            {
+                bytes[count++] = (byte)(0xC0 | (c >> 6));
+                bytes[count++] = (byte)(0x80 | (c & 0x3F));
+            } else if(Character.isHighSurrogate(c))
+                highSurrogate = c;
+            else if(Character.isLowSurrogate(c) && highSurrogate != 0)
+            {
+                int codePoint = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                bytes[count++] = (byte)(0xF0 | (codePoint >> 18));
+                bytes[count++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[count++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[count++] = (byte)(0x80 | (codePoint & 0x3F));
+            } else
+            {
+                bytes[count++] = (byte)(0xE0 | (c >> 12));
+                bytes[count++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+
+        /**
+         * Makes sure there is room for the number of bytes given.
+         *
+         * @param extra the number of bytes about to be written.
+         */
+        private void ensureCapacity(int extra)
+        {
+            if(count + extra > bytes.length)
+            {
+                byte[] newBytes = new byte[Math.max(bytes.length * 2, count + extra)];
+                System.arraycopy(bytes, 0, newBytes, 0, count);
+                bytes = newBytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIMarshaller.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import org.purnamaproject.xui.XUINode;
+import org.xml.sax.Attributes;
+
+/**
+ * Writes a XUI node and all of its children out as XML. Each node is written straight to
+ * the target as it is visited so that no string holding the whole document is ever built.
+ * Attribute values and character data are escaped. When writing to bytes, the document is
+ * encoded as UTF-8 which is what the XML declaration at the top of the document claims.
+ *
+ * @see org.purnamaproject.xui.XUI#marshalXUI(Writer)
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+public class XUIMarshaller
+{
+    /**
+     * The character encoding used when writing to bytes.
+     */
+    public static final String ENCODING = "UTF-8";
+
+    /**
+     * Not to be instantiated.
+     */
+    private XUIMarshaller()
+    {
+    }
+
+    /**
+     * Marshals a node and its children to a writer. The writer is neither flushed nor closed.
+     *
+     * @param node the node to marshal.
+     * @param out the writer to marshal to.
+     * @throws IOException if the writer fails.
+     */
+    public static void marshal(XUINode node, Writer out) throws IOException
+    {
+        String namespacePrefix = writeStartTag(node, out);
+        List children = node.getDirectChildren();
+        int size = children.size();
+        for(int i = 0; i < size; i++)
+            marshal((XUINode)children.get(i), out);
+        writeEndTag(node, namespacePrefix, size > 0, out);
+    }
+
+    /**
+     * Writes the start tag of a node along with its character data, i.e. everything that
+     * comes before the node's children.
+     *
+     * @param node the node to write.
+     * @param out the writer to write to.
+     * @return the namespace prefix of the node, needed to write the end tag.
+     * @throws IOException if the writer fails.
+     */
+    static String writeStartTag(XUINode node, Writer out) throws IOException
+    {
+        String namespacePrefix = "";
+        // insert indenting ... 2 spaces for now.
+        if(node.isRoot())
+        {
+            out.write(XUINodeImpl.XMLPI);
+            out.write('\n');
+            out.write(XUINodeImpl.API_COMMENT);
+            out.write('\n');
+        } else
+        {
+            out.write('\n');
+            writeIndent(out, node.getLevel());
+        }
+        out.write('<');
+        // get namespaces for this node
+        Hashtable namespaces = node.getNamespaces();
+        Enumeration keys = namespaces.keys();
+        while(keys.hasMoreElements())
+        {
+            String prefix = (String)namespaces.get(keys.nextElement());
+            /* if its the xsi namespace (XML Schema Instance),
+             * ignore it, we aren't part of that namespace but rather
+             * we need it for the XML Schema validator to work. */
+            if(!(prefix.equals("xsi")))
+            {
+                out.write(prefix);
+                out.write(':');
+                namespacePrefix = prefix;
+            }
+        }
+        out.write(node.getName());
+        if(node instanceof XUINodeImpl && ((XUINodeImpl)node).isBeginOfNamespace())
+        {
+            keys = namespaces.keys();
+            while(keys.hasMoreElements())
+            {
+                String uri = (String)keys.nextElement();
+                out.write(" xmlns:");
+                out.write((String)namespaces.get(uri));
+                out.write("=\"");
+                writeEscaped(out, uri, true);
+                out.write('"');
+            }
+        }
+
+        // do attributes if there are any
+        Attributes attributes = node.getAtributes();
+        int length = attributes.getLength();
+        for(int i = 0; i < length; i++)
+        {
+            out.write(' ');
+            out.write(attributes.getQName(i));
+            out.write("=\"");
+            writeEscaped(out, attributes.getValue(i), true);
+            out.write('"');
+        }
+        out.write('>');
+        writeEscaped(out, node.getCDATA(), false);
+        return namespacePrefix;
+    }
+
+    /**
+     * Writes the end tag of a node, i.e. everything that comes after the node's children.
+     *
+     * @param node the node to write.
+     * @param namespacePrefix the namespace prefix returned when writing the start tag.
+     * @param hasChildren whether or not the node has any children.
+     * @param out the writer to write to.
+     * @throws IOException if the writer fails.
+     */
+    static void writeEndTag(XUINode node, String namespacePrefix, boolean hasChildren, Writer out)
+        throws IOException
+    {
+        if(hasChildren)
+        {
+            out.write('\n');
+            writeIndent(out, node.getLevel());
+        }
+        out.write("</");
+        if(namespacePrefix.length() > 0)
+        {
+            out.write(namespacePrefix);
+            out.write(':');
+        }
+        out.write(node.getName());
+        out.write('>');
+    }
+
+    /**
+     * Marshals a node and its children to an output stream as UTF-8. The stream is flushed
+     * but not closed.
+     *
+     * @param node the node to marshal.
+     * @param out the stream to marshal to.
+     * @throws IOException if the stream fails.
+     */
+    public static void marshal(XUINode node, OutputStream out) throws IOException
+    {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, ENCODING));
+        marshal(node, writer);
+        writer.flush();
+    }
+
+    /**
+     * Marshals a node and its children to a file as UTF-8. The file is created or replaced.
+     *
+     * @param node the node to marshal.
+     * @param path the file to marshal to.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void marshal(XUINode node, Path path) throws IOException
+    {
+        OutputStream out = Files.newOutputStream(path);
+        try
+        {
+            marshal(node, out);
+        } finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Marshals a node and its children to a channel as UTF-8. The channel is not closed.
+     *
+     * @param node the node to marshal.
+     * @param channel the channel to marshal to.
+     * @throws IOException if the channel fails.
+     */
+    public static void marshal(XUINode node, WritableByteChannel channel) throws IOException
+    {
+        marshal(node, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writes the indenting for the level given, 2 spaces per level.
+     *
+     * @param out the writer to write to.
+     * @param level the level of the node.
+     * @throws IOException if the writer fails.
+     */
+    private static void writeIndent(Writer out, int level) throws IOException
+    {
+        for(int s = 0; s < level; s++)
+            out.write("  ");
+    }
+
+    /**
+     * Writes a string, replacing the characters that are not allowed as is in XML with their
+     * character references. Runs of characters that need no escaping are written in one go.
+     *
+     * @param out the writer to write to.
+     * @param s the string to write.
+     * @param attribute true if the string is an attribute value in which case quotes and
+     * whitespace other than spaces are escaped as well.
+     * @throws IOException if the writer fails.
+     */
+    private static void writeEscaped(Writer out, String s, boolean attribute) throws IOException
+    {
+        int start = 0;
+        int length = s.length();
+        for(int i = 0; i < length; i++)
+        {
+            String entity = null;
+            switch(s.charAt(i))
+            {
+                case '&':
+                    entity = "&amp;";
+                    break;
+                case '<':
+                    entity = "&lt;";
+                    break;
+                case '>':
+                    entity = "&gt;";
+                    break;
+                case '"':
+                    if(attribute)
+                        entity = "&quot;";
+                    break;
+                case '\n':
+                    if(attribute)
+                        entity = "&#10;";
+                    break;
+                case '\r':
+                    entity = "&#13;";
+                    break;
+                case '\t':
+                    if(attribute)
+                        entity = "&#9;";
+                    break;
+            }
+            if(entity != null)
+            {
+                out.write(s, start, i - start);
+                out.write(entity);
+                start = i + 1;
+            }
+        }
+        out.write(s, start, length - start);
+    }
+}
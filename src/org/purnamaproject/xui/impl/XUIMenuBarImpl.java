@@ -103,7 +103,7 @@ public class XUIMenuBarImpl implements XUIMenuBar
         {
             // gui component
             menuBar = new JMenuBar();
-            menuBar.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+            menuBar.setEnabled(node.getAttributeBooleanValue("enabled"));
 
             menuBarNode = node;
             menuBarNode.setXUIComponent(this);
@@ -205,65 +205,57 @@ public class XUIMenuBarImpl implements XUIMenuBar
         {
             String IDReference = newMenu.getNodeRepresentation().getAttributeValue("idref");
             XUINode frameNode = menuBarNode.getParent();
-            List children = frameNode.getAllChildNodes();
-            for(int i = 0; i < children.size(); i++)
+            XUINode child = frameNode.getChildNodeByID(IDReference);
+            if(child != null)
             {
-                XUINode child = (XUINode)children.get(i);
+                XUIComponent component = child.getXUIComponent();
+                // this next check is required because the components underneath
+                // will not be created yet - only the nodes will exist. Therefor
+                // a null pointer must be checked for:
+                if(component != null)
+                {
+                    Component peer = component.getPeer();
+
+                    /*
+                     * Each of these components needs to be checked for because they each have
+                     * some very distinct ways of gathering their components and adding event
+                     * handling to them.
+                     */
 
-                // this check is required since some of the nodes do not have id attributes
-                // (e.g. the GridLayout element)
-                if(child.getAttributeID() != null)
-                    if(child.getAttributeID().equals(IDReference))
+                    // doing this so that a hypertext panel will display the popup
+                    if(peer instanceof JWebBrowser)
                     {
-                        XUIComponent component = child.getXUIComponent();
-                        // this next check is required because the components underneath
-                        // will not be created yet - only the nodes will exist. Therefor
-                        // a null pointer must be checked for:
-                        if(component != null)
-                        {
-                            Component peer = component.getPeer();
-
-                            /*
-                             * Each of these components needs to be checked for because they each have
-                             * some very distinct ways of gathering their components and adding event
-                             * handling to them.
-                             */
-
-                            // doing this so that a hypertext panel will display the popup
-                            if(peer instanceof JWebBrowser)
-                            {
-                                Component pane = ((JWebBrowser)peer).getPane();
-                                pane.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollTable)
-                            {
-                                JScrollTable tableScroller = (JScrollTable)peer;
-                                JTable table = (JTable)tableScroller.getTable();
-                                table.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollTree)
-                            {
-                                // get the scroll tree
-                                JScrollTree treeScroller = (JScrollTree)peer;
-                                XUITreeNode root = treeScroller.getRootNode();
-                                JTree tree = treeScroller.getTree();
-                                tree.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollPane)
-                            {
-                                // if inside of a scroll pane it will be assumed that all child components
-                                // want to catch focus of the event capabilities and have the popupmenu
-                                JScrollPane scroller = (JScrollPane)peer;
-                                scroller.getViewport().getView().addMouseListener(
-                                    new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else
-                                if(peer != null)
-                                    peer.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+                        Component pane = ((JWebBrowser)peer).getPane();
+                        pane.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
 
-                        }
+                    } else if(peer instanceof JScrollTable)
+                    {
+                        JScrollTable tableScroller = (JScrollTable)peer;
+                        JTable table = (JTable)tableScroller.getTable();
+                        table.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollTree)
+                    {
+                        // get the scroll tree
+                        JScrollTree treeScroller = (JScrollTree)peer;
+                        XUITreeNode root = treeScroller.getRootNode();
+                        JTree tree = treeScroller.getTree();
+                        tree.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollPane)
+                    {
+                        // if inside of a scroll pane it will be assumed that all child components
+                        // want to catch focus of the event capabilities and have the popupmenu
+                        JScrollPane scroller = (JScrollPane)peer;
+                        scroller.getViewport().getView().addMouseListener(
+                            new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else
+                        if(peer != null)
+                            peer.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                }
 
-                    }
             }
 
         }
@@ -291,15 +283,10 @@ public class XUIMenuBarImpl implements XUIMenuBar
         if(newMenu == null)
             throw new XUITypeFormatException("XUIMenu cannot be null.");
 
-        List children = menuBarNode.getAllChildNodes();
         List menuNodes = menuBarNode.getDirectChildren();
         int numberOfMenus = menuNodes.size();
-        for(int i = 0; i < children.size(); i++)
-        {
-            XUINode child = (XUINode)children.get(i);
-            if(child.getAttributeID().equals(newMenu.getNodeRepresentation().getAttributeID()))
-                throw new XUITypeFormatException("No 2 menu components can have the same ID.");
-        }
+        if(menuBarNode.getChildNodeByID(newMenu.getNodeRepresentation().getAttributeID()) != null)
+            throw new XUITypeFormatException("No 2 menu components can have the same ID.");
         Container menuComponent = (Container)menuBar;
         if(index > (numberOfMenus + 1))
             menuComponent.add(newMenu.getPeer(), (numberOfMenus + 1));
@@ -314,50 +301,46 @@ public class XUIMenuBarImpl implements XUIMenuBar
         {
             String IDReference = newMenu.getNodeRepresentation().getAttributeValue("idref");
             XUINode frameNode = menuBarNode.getParent();
-            for(int i = 0; i < children.size(); i++)
+            XUINode child = menuBarNode.getChildNodeByID(IDReference);
+            if(child != null)
             {
-                XUINode child = (XUINode)children.get(i);
-                if(child.getAttributeID() != null)
-                    if(child.getAttributeID().equals(IDReference))
+                XUIComponent component = child.getXUIComponent();
+                // this next check is required because the components underneath
+                // will not be created yet - only the nodes will exist. Therefor
+                // a null pointer must be checked for:
+                if(component != null)
+                {
+                    Component peer = component.getPeer();
+                    // doing this so that a hypertext panel will display the popup
+                    if(peer instanceof JWebBrowser)
                     {
-                        XUIComponent component = child.getXUIComponent();
-                        // this next check is required because the components underneath
-                        // will not be created yet - only the nodes will exist. Therefor
-                        // a null pointer must be checked for:
-                        if(component != null)
-                        {
-                            Component peer = component.getPeer();
-                            // doing this so that a hypertext panel will display the popup
-                            if(peer instanceof JWebBrowser)
-                            {
-                                Component pane = ((JWebBrowser)peer).getPane();
-                                pane.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollTree)
-                            {
-                                JScrollTree treeScroller = (JScrollTree)peer;
-                                JTree tree = (JTree)treeScroller.getTree();
-                                tree.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollTable)
-                            {
-                                JScrollTable tableScroller = (JScrollTable)peer;
-                                JTable table = (JTable)tableScroller.getTable();
-                                table.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollPane)
-                            {
-                                // if inside of a scroll pane it will be assumed that all child components
-                                // want to catch focus of the event capabilities and have the popupmenu
-                                JScrollPane scroller = (JScrollPane)peer;
-                                scroller.getViewport().getView().addMouseListener(
-                                    new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else
-                                if(peer != null)
-                                    peer.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-                        }
-                    }
+                        Component pane = ((JWebBrowser)peer).getPane();
+                        pane.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollTree)
+                    {
+                        JScrollTree treeScroller = (JScrollTree)peer;
+                        JTree tree = (JTree)treeScroller.getTree();
+                        tree.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollTable)
+                    {
+                        JScrollTable tableScroller = (JScrollTable)peer;
+                        JTable table = (JTable)tableScroller.getTable();
+                        table.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollPane)
+                    {
+                        // if inside of a scroll pane it will be assumed that all child components
+                        // want to catch focus of the event capabilities and have the popupmenu
+                        JScrollPane scroller = (JScrollPane)peer;
+                        scroller.getViewport().getView().addMouseListener(
+                            new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else
+                        if(peer != null)
+                            peer.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+                }
             }
 
         }
@@ -380,7 +363,6 @@ public class XUIMenuBarImpl implements XUIMenuBar
         if(newMenu == null)
             throw new XUITypeFormatException("XUIMenu cannot be null.");
 
-        List children = menuBarNode.getAllChildNodes();
 
         Container menuComponent = (Container)menuBar;
         menuComponent.add(newMenu.getPeer());
@@ -390,50 +372,46 @@ public class XUIMenuBarImpl implements XUIMenuBar
         {
             String IDReference = newMenu.getNodeRepresentation().getAttributeValue("idref");
             XUINode frameNode = menuBarNode.getParent();
-            for(int i = 0; i < children.size(); i++)
+            XUINode child = menuBarNode.getChildNodeByID(IDReference);
+            if(child != null)
             {
-                XUINode child = (XUINode)children.get(i);
-                if(child.getAttributeID() != null)
-                    if(child.getAttributeID().equals(IDReference))
+                XUIComponent component = child.getXUIComponent();
+                // this next check is required because the components underneath
+                // will not be created yet - only the nodes will exist. Therefor
+                // a null pointer must be checked for:
+                if(component != null)
+                {
+                    Component peer = component.getPeer();
+                    // doing this so that a hypertext panel will display the popup
+                    if(peer instanceof JWebBrowser)
                     {
-                        XUIComponent component = child.getXUIComponent();
-                        // this next check is required because the components underneath
-                        // will not be created yet - only the nodes will exist. Therefor
-                        // a null pointer must be checked for:
-                        if(component != null)
-                        {
-                            Component peer = component.getPeer();
-                            // doing this so that a hypertext panel will display the popup
-                            if(peer instanceof JWebBrowser)
-                            {
-                                Component pane = ((JWebBrowser)peer).getPane();
-                                pane.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollTree)
-                            {
-                                JScrollTree treeScroller = (JScrollTree)peer;
-                                JTree tree = (JTree)treeScroller.getTree();
-                                tree.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollTable)
-                            {
-                                JScrollTable tableScroller = (JScrollTable)peer;
-                                JTable table = (JTable)tableScroller.getTable();
-                                table.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else if(peer instanceof JScrollPane)
-                            {
-                                // if inside of a scroll pane it will be assumed that all child components
-                                // want to catch focus of the event capabilities and have the popupmenu
-                                JScrollPane scroller = (JScrollPane)peer;
-                                scroller.getViewport().getView().addMouseListener(
-                                    new PopupListener((JPopupMenu)newMenu.getPeer()));
-
-                            } else
-                                if(peer != null)
-                                    peer.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
-                        }
-                    }
+                        Component pane = ((JWebBrowser)peer).getPane();
+                        pane.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollTree)
+                    {
+                        JScrollTree treeScroller = (JScrollTree)peer;
+                        JTree tree = (JTree)treeScroller.getTree();
+                        tree.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollTable)
+                    {
+                        JScrollTable tableScroller = (JScrollTable)peer;
+                        JTable table = (JTable)tableScroller.getTable();
+                        table.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else if(peer instanceof JScrollPane)
+                    {
+                        // if inside of a scroll pane it will be assumed that all child components
+                        // want to catch focus of the event capabilities and have the popupmenu
+                        JScrollPane scroller = (JScrollPane)peer;
+                        scroller.getViewport().getView().addMouseListener(
+                            new PopupListener((JPopupMenu)newMenu.getPeer()));
+
+                    } else
+                        if(peer != null)
+                            peer.addMouseListener(new PopupListener((JPopupMenu)newMenu.getPeer()));
+                }
             }
 
         }
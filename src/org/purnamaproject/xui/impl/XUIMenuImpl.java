@@ -106,7 +106,7 @@ public class XUIMenuImpl implements XUIMenu
             if(node.getAttributeValue("isPopupMenu").equals("true"))
             {
                 JPopupMenu m = new JPopupMenu();
-                m.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+                m.setEnabled(node.getAttributeBooleanValue("enabled"));
                 m.setLabel(node.getAttributeValue("label"));
                 menu = m;
 
@@ -114,7 +114,7 @@ public class XUIMenuImpl implements XUIMenu
             else
             {
                 JMenu m = new JMenu();
-                m.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+                m.setEnabled(node.getAttributeBooleanValue("enabled"));
                 m.setText(node.getAttributeValue("label"));
                 menu = m;
             }
@@ -473,16 +473,11 @@ public class XUIMenuImpl implements XUIMenu
         if(newMenu == null)
             throw new XUITypeFormatException("XUIMenu cannot be null.");
 
-        List children = menuNode.getAllChildNodes();
         List menuNodes = menuNode.getDirectChildren();
         int numberOfMenus = menuNodes.size();
 
-        for(int i = 0; i < children.size(); i++)
-        {
-            XUINode child = (XUINode)children.get(i);
-            if(child.getAttributeID().equals(newMenu.getNodeRepresentation().getAttributeID()))
-                throw new XUITypeFormatException("No 2 menu components can have the same ID.");
-        }
+        if(menuNode.getChildNodeByID(newMenu.getNodeRepresentation().getAttributeID()) != null)
+            throw new XUITypeFormatException("No 2 menu components can have the same ID.");
         Container menuComponent = (Container)menu;
         if(index > (numberOfMenus + 1))
             menuComponent.add(newMenu.getPeer(), (numberOfMenus + 1));
@@ -511,13 +506,8 @@ public class XUIMenuImpl implements XUIMenu
         if(newMenu == null)
             throw new XUITypeFormatException("XUIMenu cannot be null.");
 
-        List children = menuNode.getAllChildNodes();
-        for(int i = 0; i < children.size(); i++)
-        {
-            XUINode child = (XUINode)children.get(i);
-            if(child.getAttributeID().equals(newMenu.getNodeRepresentation().getAttributeID()))
-                throw new XUITypeFormatException("No 2 menu components can have the same ID.");
-        }
+        if(menuNode.getChildNodeByID(newMenu.getNodeRepresentation().getAttributeID()) != null)
+            throw new XUITypeFormatException("No 2 menu components can have the same ID.");
         Container menuComponent = (Container)menu;
         menuComponent.add(newMenu.getPeer());
         menuNode.addChildNode(newMenu.getNodeRepresentation());
@@ -111,14 +111,14 @@ public class XUIMenuItemImpl implements XUIMenuItem, ActionListener
             if(node.getAttributeValue("checked").equals("true"))
             {
                 JCheckBoxMenuItem m = new JCheckBoxMenuItem();
-                m.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+                m.setEnabled(node.getAttributeBooleanValue("enabled"));
                 m.setText(node.getAttributeValue("label"));
                 menuItem = m;
 
             } else
             {
                 JMenuItem m = new JMenuItem();
-                m.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
+                m.setEnabled(node.getAttributeBooleanValue("enabled"));
                 m.setText(node.getAttributeValue("label"));
                 menuItem = (JMenuItem)m;
             }
@@ -36,14 +36,27 @@ package org.purnamaproject.xui.impl;
 
 import java.awt.Component;
 import java.awt.Container;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.WeakHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.xml.sax.Attributes;
-import org.xml.sax.helpers.AttributesImpl;
+import org.purnamaproject.xui.XUIDisplayException;
 import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUIParseException;
+import org.purnamaproject.xui.XUINodeVisitor;
 import org.purnamaproject.xui.component.XUIComponent;
+import org.purnamaproject.xui.component.container.XUIContainer;
 
 /**
  * Concrete class that implements XUINode which represents a node within the XUI document
@@ -55,14 +68,15 @@ import org.purnamaproject.xui.component.XUIComponent;
  public class XUINodeImpl implements XUINode
  {
     /**
-     * Vector of child nodes that belong to this node.
+     * Vector of child nodes that belong to this node. Nodes without children share the
+     * same empty list, the vector is only created once the first child is added.
      */
-    private List childNodes;
+    private List childNodes = NO_CHILDREN;
 
     /**
      * Map of attributes that belong to this node.
      */
-    private AttributesImpl attributes;
+    private XUIAttributes attributes;
 
     /**
      * The Swing GUI component that is mapped to the XUI component.
@@ -72,17 +86,39 @@ import org.purnamaproject.xui.component.XUIComponent;
     /**
      * The character data that belongs to this node.
      */
-    private StringBuffer cdata;
+    private String cdata = "";
+
+    /**
+     * The character data while it is being appended to, or null when cdata is current.
+     */
+    private StringBuilder appendedCDATA;
+
+    /**
+     * The list shared by all nodes that have no children.
+     */
+    private static final List NO_CHILDREN = Collections.EMPTY_LIST;
+
+    /**
+     * The namespace table shared by all nodes that have no namespaces.
+     */
+    private static final Hashtable NO_NAMESPACES = new SharedNamespaces(new Hashtable(1));
+
+    /**
+     * The pool of namespace tables in use. Nodes declaring the same namespaces share the
+     * same table out of this pool rather than each holding a table of their own. A table is
+     * dropped from the pool once no node holds it.
+     */
+    private static final Map namespacePool = new WeakHashMap();
 
     /**
      * The XML processing instruction.
      */
-    private static String XMLPI = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    static final String XMLPI = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
 
     /**
      * The comment placed at the beginning of the document.
      */
-    private static String API_COMMENT = "<!-- Generated by The Purnama Project XUI API version 0.5 -->";
+    static final String API_COMMENT = "<!-- Generated by The Purnama Project XUI API version 0.5 -->";
 
     /**
      * Denotes the beginning of a namespace.
@@ -95,9 +131,10 @@ import org.purnamaproject.xui.component.XUIComponent;
     private boolean isRoot = false;
 
     /**
-     * The hashtable of namespaces using the URI as the key.
+     * The hashtable of namespaces using the URI as the key. This table is shared with other
+     * nodes and so is never modified, it is replaced instead.
      */
-    private Hashtable nameSpaces;
+    private Hashtable nameSpaces = NO_NAMESPACES;
 
     /**
      * The parent node of this current node.
@@ -119,16 +156,47 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     private int level = 0;
 
+    /**
+     * The index of the document that this node belongs to. This is null until the node
+     * becomes part of a XUI document.
+     */
+    private XUIDocumentIndex documentIndex = null;
+
+    /**
+     * Whether or not this node, or any node below it, has changed since it was last marshalled
+     * through a <code>XUIMarshalCache</code>.
+     */
+    private boolean marshalDirty = true;
+
+    /**
+     * Where the marshalled bytes of this node start, relative to those of its parent.
+     */
+    private int marshalFragmentOffset = 0;
+
+    /**
+     * The number of marshalled bytes of this node, children included.
+     */
+    private int marshalFragmentLength = 0;
+
+    /**
+     * The content of this node that has not been parsed yet, or null if the content has
+     * been parsed.
+     */
+    private XUIDeferredContent deferred = null;
+
+    /**
+     * Builds the component of this node the first time it is asked for, or null if the component
+     * is built in the usual way.
+     */
+    private volatile Runnable deferredRealization = null;
+
     /**
      * Default constructor.
      */
     public XUINodeImpl()
     {
-        childNodes = new Vector();
-        attributes = new AttributesImpl();
-        nameSpaces = new Hashtable(2);
+        attributes = new XUIAttributes();
         name = "noname";
-        cdata = new StringBuffer(500);
     }
 
     /**
@@ -140,7 +208,7 @@ import org.purnamaproject.xui.component.XUIComponent;
     {
         this();
         if(newName != null)
-            name = newName;
+            name = newName.intern();
     }
 
     /**
@@ -192,15 +260,37 @@ import org.purnamaproject.xui.component.XUIComponent;
     }
 
     /**
-     * Returns the XUI component associated with this node.
+     * Returns the XUI component associated with this node. If the component has been left to be
+     * realized later, it is realized now.
      *
      * @return the XUI component of this node.
      */
     public XUIComponent getXUIComponent()
     {
+        Runnable realization = deferredRealization;
+        if(component == null && realization != null)
+        {
+            deferredRealization = null;
+            realization.run();
+        }
         return component;
     }
 
+    /**
+     * Returns the XUI component of a node as it stands, without realizing it if it has been left to
+     * be realized later. Meant for walks over many nodes, which would otherwise realize every
+     * component left for later.
+     *
+     * @param node the node.
+     * @return the XUI component of the node, or null if it has none or has not been realized yet.
+     */
+    public static XUIComponent peekXUIComponent(XUINode node)
+    {
+        if(node instanceof XUINodeImpl)
+            return ((XUINodeImpl)node).component;
+        return node.getXUIComponent();
+    }
+
     /**
      * Sets the XUI component of this node. If component is null, no action is taken.
      * This method should never be called directly as it is part of the callback
@@ -283,7 +373,13 @@ import org.purnamaproject.xui.component.XUIComponent;
     public void setName(String newName)
     {
         if(newName != null)
-            name = newName;
+        {
+            String oldName = name;
+            name = newName.intern();
+            markDirty();
+            if(documentIndex != null)
+                documentIndex.updateName(this, oldName, newName);
+        }
     }
 
     /**
@@ -309,6 +405,17 @@ import org.purnamaproject.xui.component.XUIComponent;
     public void setIsBeginOfNamespace(boolean whetherOrNotBeginOfNamespace)
     {
         this.beginOfNamespace = whetherOrNotBeginOfNamespace;
+        markDirty();
+    }
+
+    /**
+     * Returns whether or not this node is the beginning of a namespace.
+     *
+     * @return true if this node declares its namespaces using the XML namespace attribute.
+     */
+    public boolean isBeginOfNamespace()
+    {
+        return beginOfNamespace;
     }
 
     /**
@@ -322,6 +429,7 @@ import org.purnamaproject.xui.component.XUIComponent;
     public void setToRoot(boolean whetherOrNotRootnode)
     {
         this.isRoot = whetherOrNotRootnode;
+        markDirty();
     }
 
     /**
@@ -338,7 +446,22 @@ import org.purnamaproject.xui.component.XUIComponent;
             newNamespace = "";
             newNamespaceURI = "";
         }
-        nameSpaces.put(newNamespaceURI, newNamespace);
+        if(newNamespace.equals(nameSpaces.get(newNamespaceURI)))
+            return;
+        markDirty();
+        Hashtable newNamespaces = new Hashtable(nameSpaces);
+        newNamespaces.put(newNamespaceURI, newNamespace);
+        synchronized(namespacePool)
+        {
+            WeakReference ref = (WeakReference)namespacePool.get(newNamespaces);
+            Hashtable shared = (ref == null) ? null : (Hashtable)ref.get();
+            if(shared == null)
+            {
+                shared = new SharedNamespaces(newNamespaces);
+                namespacePool.put(shared, new WeakReference(shared));
+            }
+            nameSpaces = shared;
+        }
     }
 
     /**
@@ -359,6 +482,7 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public int getNumberOfChildren()
     {
+        materialize();
         return childNodes.size();
     }
 
@@ -369,6 +493,7 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public List getDirectChildren()
     {
+        materialize();
         return childNodes;
     }
 
@@ -380,20 +505,65 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public List getAllChildNodes()
     {
-        List list = new Vector();
+        final List list = new Vector();
+        visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    list.add(node);
+                    return true;
+                }
+        });
+        return list;
+    }
+
+    /**
+     * Visits all direct and indirect child nodes depth first, in the same order as they would
+     * appear in the list returned by {@link #getAllChildNodes()}. The tree is walked in place,
+     * no list of the nodes is built. The visitor may stop the traversal early by returning
+     * false.
+     *
+     * @param visitor the visitor that is handed each node in turn.
+     * @return the node at which the visitor stopped the traversal or null if every node was
+     * visited.
+     */
+    public XUINode visitAllChildNodes(XUINodeVisitor visitor)
+    {
+        materialize();
         int n = childNodes.size();
         for(int i = 0; i < n; i++)
         {
             XUINode child = (XUINode)childNodes.get(i);
-            list.add(child);
+            if(!(visitor.visit(child)))
+                return child;
             if(child.getNumberOfChildren() > 0)
             {
-                List grandChildren = child.getAllChildNodes();
-                list.addAll(grandChildren);
-
+                XUINode stoppedAt = child.visitAllChildNodes(visitor);
+                if(stoppedAt != null)
+                    return stoppedAt;
             }
         }
-        return list;
+        return null;
+    }
+
+    /**
+     * Searches the direct and indirect child nodes for the first node that has the given id
+     * attribute value. The search stops as soon as a node is found.
+     *
+     * @param id the value of the id attribute to search for.
+     * @return the node found or null if no child node has that id.
+     */
+    public XUINode getChildNodeByID(final String id)
+    {
+        if(id == null)
+            return null;
+        return visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    return !(id.equals(node.getAttributeID()));
+                }
+        });
     }
 
     /**
@@ -401,11 +571,15 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public void deleteChildren()
      {
-        int n = childNodes.size();
-        for(int i = 0; i < n; i++)
+        materialize();
+        if(documentIndex != null)
         {
-            childNodes.remove(i);
+            int n = childNodes.size();
+            for(int i = 0; i < n; i++)
+                documentIndex.unregister((XUINode)childNodes.get(i));
         }
+        childNodes = NO_CHILDREN;
+        markDirty();
      }
 
     /**
@@ -415,8 +589,11 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public void removeChildNode(XUINode node)
      {
-        // first delete the GUI component that makes up this element.
-        XUIComponent xcomponent = node.getXUIComponent();
+        materialize();
+        markDirty();
+        // first delete the GUI component that makes up this element. One not realized yet has
+        // nothing to delete.
+        XUIComponent xcomponent = peekXUIComponent(node);
         if(xcomponent != null)
          {
             Component component = xcomponent.getPeer();
@@ -428,16 +605,22 @@ import org.purnamaproject.xui.component.XUIComponent;
                     // then there is a parent and so remove this component from it
                     parent.remove(component);
                     parent.invalidate();
-                    parent.validate();
-                    parent.repaint();
+                    // the container lays itself out when its batch of changes ends
+                    if(!(this.component instanceof XUIContainer && ((XUIContainer)this.component).isUpdating()))
+                    {
+                        parent.validate();
+                        parent.repaint();
+                    }
                 }
-                childNodes.remove(node);
+                if(childNodes.remove(node) && documentIndex != null)
+                    documentIndex.unregister(node);
                 component = null;
                 node = null;
             }
         } else
         {
-            childNodes.remove(node);
+            if(childNodes.remove(node) && documentIndex != null)
+                documentIndex.unregister(node);
         }
      }
 
@@ -448,11 +631,16 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public void removeChildNode(int index)
      {
-        childNodes.remove(index);
+        materialize();
+        XUINode node = (XUINode)childNodes.remove(index);
+        markDirty();
+        if(documentIndex != null)
+            documentIndex.unregister(node);
      }
 
     /**
-     * Returns the namespaces of this node as a hashtable.
+     * Returns the namespaces of this node as a hashtable. The table is shared with other nodes
+     * and cannot be modified, use <code>addNamespace</code> instead.
      *
      * @return the namespace of this node.
      */
@@ -469,7 +657,13 @@ import org.purnamaproject.xui.component.XUIComponent;
     public void setLevel(int newLevel)
     {
         if(newLevel > -1)
+        {
+            int oldLevel = level;
             level = newLevel;
+            markDirty();
+            if(documentIndex != null)
+                documentIndex.updateLevel(this, oldLevel, newLevel);
+        }
     }
 
     /**
@@ -479,7 +673,23 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public String getCDATA()
     {
-        return cdata.toString();
+        materialize();
+        return flushCDATA();
+    }
+
+    /**
+     * Turns the character data being appended to back into a string.
+     *
+     * @return the character data as a string.
+     */
+    private String flushCDATA()
+    {
+        if(appendedCDATA != null)
+        {
+            cdata = appendedCDATA.toString();
+            appendedCDATA = null;
+        }
+        return cdata;
     }
 
     /**
@@ -489,8 +699,14 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public void appendCDATA(String newData)
     {
-        if(newData != null)
-            cdata.append(newData);
+        materialize();
+        if(newData != null && newData.length() > 0)
+        {
+            if(appendedCDATA == null)
+                appendedCDATA = new StringBuilder(cdata.length() + newData.length()).append(cdata);
+            appendedCDATA.append(newData);
+            markDirty();
+        }
     }
 
     /**
@@ -502,10 +718,12 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public void setCDATA(String newData)
     {
+        materialize();
         if(newData != null)
         {
-            cdata = null;
-            cdata = new StringBuffer(newData);
+            cdata = newData;
+            appendedCDATA = null;
+            markDirty();
         }
     }
 
@@ -529,14 +747,16 @@ import org.purnamaproject.xui.component.XUIComponent;
             localName = qName;
         if(qName.length() == 0)
             qName = localName;
+        boolean isID = documentIndex != null && (localName.equals("id") || qName.equals("id"));
+        String oldID = isID ? getAttributeID() : null;
         int index = attributes.getIndex(localName);
         if(index == -1)
             attributes.addAttribute(uri, localName, qName, type, value);
         else
-        {
-            attributes.removeAttribute(index);
-            attributes.addAttribute(uri, localName, qName, type, value);
-        }
+            attributes.setAttribute(index, uri, localName, qName, type, value);
+        markDirty();
+        if(isID)
+            documentIndex.updateID(this, oldID, getAttributeID());
     }
 
     /**
@@ -563,24 +783,61 @@ import org.purnamaproject.xui.component.XUIComponent;
         return attributes.getValue(attributeName);
      }
 
+    /**
+     * Returns the value of an attribute as an integer. The value is parsed once and kept
+     * until the attribute changes.
+     *
+     * @param attributeName the name of the attribute to use to retrieve its value.
+     * @return the value of the attribute as an integer.
+     * @throws NumberFormatException if the attribute does not exist or is not an integer.
+     */
+    public int getAttributeIntValue(String attributeName)
+    {
+        return attributes.getIntValue(attributeName);
+    }
+
+    /**
+     * Returns the value of an attribute as a boolean. The value is parsed once and kept
+     * until the attribute changes.
+     *
+     * @param attributeName the name of the attribute to use to retrieve its value.
+     * @return true if the attribute's value is "true", false otherwise or if the attribute
+     * does not exist.
+     */
+    public boolean getAttributeBooleanValue(String attributeName)
+    {
+        return attributes.getBooleanValue(attributeName);
+    }
+
     /**
      * Clears the current attributes.
      */
     public void clearAttributes()
     {
+        String oldID = getAttributeID();
         attributes = null;
-        attributes = new AttributesImpl();
+        attributes = new XUIAttributes();
+        markDirty();
+        if(documentIndex != null)
+            documentIndex.updateID(this, oldID, null);
     }
 
     /**
-     * Sets the attributes for this node. If attributes is null, then no change is made.
+     * Sets the attributes for this node. If attributes is null, then no change is made. The
+     * attributes are copied so the object passed in may be reused by the caller.
      *
      * @param newAttributes the name of the attribute.
      */
     public void setAttributes(Attributes newAttributes)
     {
         if(newAttributes != null)
-            attributes = (AttributesImpl)newAttributes;
+        {
+            String oldID = getAttributeID();
+            attributes = new XUIAttributes(newAttributes);
+            markDirty();
+            if(documentIndex != null)
+                documentIndex.updateID(this, oldID, getAttributeID());
+        }
     }
 
     /**
@@ -591,10 +848,18 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public void addChildNode(XUINode newNode)
     {
+        materialize();
         if(newNode != null)
         {
+            if(childNodes == NO_CHILDREN)
+                childNodes = new Vector(2);
             childNodes.add(newNode);
             newNode.setParent(this);
+            markDirty();
+            if(newNode instanceof XUINodeImpl)
+                ((XUINodeImpl)newNode).markSubtreeDirty();
+            if(documentIndex != null)
+                documentIndex.register(newNode);
         }
     }
 
@@ -606,6 +871,7 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public List getChildNodesByName(String name)
     {
+        materialize();
         List nodesByName = new Vector();
         for(int i = 0; i < childNodes.size(); i++)
         {
@@ -625,6 +891,7 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public XUINode removeChildNode(String idValue)
     {
+        materialize();
         int s = childNodes.size();
         for(int i = 0; i < s; i++)
         {
@@ -648,6 +915,7 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public XUINode removeChildNodeOnLooseIDMatch(String idExpressionValue)
     {
+        materialize();
         int s = childNodes.size();
         for(int i = 0; i < s; i++)
         {
@@ -668,6 +936,204 @@ import org.purnamaproject.xui.component.XUIComponent;
         return attributes;
     }
 
+    /**
+     * Marks this node and all of the nodes above it as changed since they were last
+     * marshalled. Stops at the first node already marked since the nodes above that one
+     * have been marked as well.
+     */
+    void markDirty()
+    {
+        XUINode node = this;
+        while(node instanceof XUINodeImpl && !((XUINodeImpl)node).marshalDirty)
+        {
+            ((XUINodeImpl)node).marshalDirty = true;
+            node = node.getParent();
+        }
+    }
+
+    /**
+     * Marks this node and all of the nodes below it as changed. Used when a node is added
+     * to a new parent since whatever was marshalled for it before no longer applies.
+     */
+    void markSubtreeDirty()
+    {
+        marshalDirty = true;
+        int n = childNodes.size();
+        for(int i = 0; i < n; i++)
+        {
+            Object child = childNodes.get(i);
+            if(child instanceof XUINodeImpl)
+                ((XUINodeImpl)child).markSubtreeDirty();
+        }
+    }
+
+    /**
+     * Returns whether or not this node, or any node below it, has changed since it was last
+     * marshalled.
+     *
+     * @return true if this node needs to be marshalled again.
+     */
+    boolean isMarshalDirty()
+    {
+        return marshalDirty;
+    }
+
+    /**
+     * Returns where the marshalled bytes of this node start, relative to those of its parent.
+     *
+     * @return the offset in bytes.
+     */
+    int getMarshalFragmentOffset()
+    {
+        return marshalFragmentOffset;
+    }
+
+    /**
+     * Returns the number of marshalled bytes of this node, children included.
+     *
+     * @return the length in bytes.
+     */
+    int getMarshalFragmentLength()
+    {
+        return marshalFragmentLength;
+    }
+
+    /**
+     * Records where this node was marshalled to and marks it as unchanged.
+     *
+     * @param offset where the marshalled bytes start relative to those of the parent.
+     * @param length the number of marshalled bytes.
+     */
+    void setMarshalFragment(int offset, int length)
+    {
+        marshalFragmentOffset = offset;
+        marshalFragmentLength = length;
+        marshalDirty = false;
+    }
+
+    /**
+     * Returns a copy of this node and all of the nodes below it. The copy can be changed
+     * without affecting this node and the other way around. The copy has no parent, belongs
+     * to no document and has no component.
+     *
+     * @return the copy.
+     */
+    public XUINodeImpl deepCopy()
+    {
+        XUINodeImpl copy = new XUINodeImpl();
+        copy.name = name;
+        copy.level = level;
+        copy.cdata = flushCDATA();
+        copy.isRoot = isRoot;
+        copy.beginOfNamespace = beginOfNamespace;
+        // namespace tables are copied on write so they can be shared
+        copy.nameSpaces = nameSpaces;
+        copy.attributes = new XUIAttributes(attributes);
+        // deferred content is never changed so the copy can parse it for itself
+        copy.deferred = deferred;
+        int n = childNodes.size();
+        if(n > 0)
+        {
+            Vector children = new Vector(n);
+            for(int i = 0; i < n; i++)
+            {
+                XUINodeImpl child = ((XUINodeImpl)childNodes.get(i)).deepCopy();
+                child.parent = copy;
+                children.add(child);
+            }
+            copy.childNodes = children;
+        }
+        return copy;
+    }
+
+    /**
+     * Sets the content of this node that is parsed the first time it is needed. Called by
+     * the builder during a lazy parse.
+     *
+     * @param content the content.
+     */
+    void setDeferredContent(XUIDeferredContent content)
+    {
+        deferred = content;
+    }
+
+    /**
+     * Returns the content of this node that has not been parsed yet.
+     *
+     * @return the content or null if it has been parsed.
+     */
+    XUIDeferredContent getDeferredContent()
+    {
+        return deferred;
+    }
+
+    /**
+     * Sets what builds the component of this node the first time it is asked for. Called by the
+     * realizer when it leaves components to be realized later. The realization is run at most
+     * once through this node and should set the component of this node.
+     *
+     * @param realization builds the component, or null to build it in the usual way.
+     */
+    public void setDeferredRealization(Runnable realization)
+    {
+        deferredRealization = realization;
+    }
+
+    /**
+     * Parses the deferred content of this node, if there is any, into child nodes and
+     * character data. This does not count as a change to the node.
+     *
+     * @throws XUIDisplayException if the content can no longer be read from the document.
+     */
+    void materialize()
+    {
+        if(deferred == null)
+            return;
+        XUIDeferredContent content = deferred;
+        deferred = null;
+        XUINodeImpl holder;
+        try
+        {
+            holder = content.parse(level);
+        } catch(XUIParseException xpe)
+        {
+            deferred = content;
+            throw new XUIDisplayException("The content of " + name + " could not be parsed: "
+                + xpe.getMessage());
+        }
+        cdata = holder.flushCDATA();
+        appendedCDATA = null;
+        childNodes = holder.childNodes;
+        int n = childNodes.size();
+        for(int i = 0; i < n; i++)
+            ((XUINodeImpl)childNodes.get(i)).parent = this;
+        if(documentIndex != null)
+            documentIndex.materialized(this, content);
+    }
+
+    /**
+     * Trims the storage of the child nodes down to the number of children. Called by the
+     * builder once a node is complete.
+     */
+    void trimToSize()
+    {
+        if(childNodes.isEmpty())
+            childNodes = NO_CHILDREN;
+        else if(childNodes instanceof Vector)
+            ((Vector)childNodes).trimToSize();
+    }
+
+    /**
+     * Sets the index of the XUI document that this node belongs to. This method is
+     * called by the index itself as nodes are registered and unregistered.
+     *
+     * @param newIndex the document index or null to detach this node.
+     */
+    void setDocumentIndex(XUIDocumentIndex newIndex)
+    {
+        documentIndex = newIndex;
+    }
+
     /**
      * Returns this node as string data. The data is the entire node including markup,
      * attributes, character data but without any of its children. If the node is the root
@@ -677,6 +1143,7 @@ import org.purnamaproject.xui.component.XUIComponent;
      */
     public String toStringNoChildren()
     {
+        materialize();
         StringBuffer sb = new StringBuffer();
         String namespacePrefix = "";
         // insert indenting ... 2 spaces for now.
@@ -728,7 +1195,7 @@ import org.purnamaproject.xui.component.XUIComponent;
             }
         }
         sb.append(">");
-        sb.append(cdata);
+        sb.append(flushCDATA());
         int size = childNodes.size();
         if(size > 0)
         {
@@ -749,81 +1216,239 @@ import org.purnamaproject.xui.component.XUIComponent;
      * attributes, character data and all other child nodes. If the node is the root
      * it will print the XML processing instruction.
      *
+     * @see XUIMarshaller
      * @return the node and all it's children.
      */
     public String toString()
     {
-        StringBuffer sb = new StringBuffer();
-        String namespacePrefix = "";
-        // insert indenting ... 2 spaces for now.
-        if(isRoot)
+        StringWriter sw = new StringWriter();
+        try
         {
-            sb.append(XMLPI + "\n");
-            sb.append(API_COMMENT + "\n");
-        } else
+            XUIMarshaller.marshal(this, sw);
+        } catch(IOException ioe)
         {
-            sb.append("\n");
-            for(int s = 0; s < level; s++)
-            {
-                sb.append("  ");
-            }
+            // a StringWriter does not throw
         }
-        sb.append("<");
-        // get namespaces for this node
-        Enumeration keys = nameSpaces.keys();
+        return sw.toString();
+    }
 
-        String names = "";
-        while(keys.hasMoreElements())
+    /**
+     * A namespace table that is shared by nodes. It cannot be modified once created, so that
+     * a change made through one node does not show up in the others.
+     */
+    private static class SharedNamespaces extends Hashtable
+    {
+        /**
+         * Whether or not the table has been filled.
+         */
+        private boolean filled = false;
+
+        /**
+         * Creates a shared table holding the namespaces given.
+         *
+         * @param namespaces the namespaces, by URI.
+         */
+        SharedNamespaces(Hashtable namespaces)
         {
-            String uri = (String)keys.nextElement();
-            String prefix = (String)nameSpaces.get(uri);
-            /* if its the xsi namespace (XML Schema Instance),
-             * ignore it, we aren't part of that namespace but rather
-             * we need it for the XML Schema validator to work. */
-            if(!(prefix.equals("xsi")))
-            {
-                sb.append(prefix + ":");
-                namespacePrefix = prefix;
-            }
-            names += (" " + "xmlns:" + prefix + "=\"" + uri + "\"");
+            super(namespaces);
+            filled = true;
         }
-        if(beginOfNamespace)
-            sb.append(name + names);
-        else
-            sb.append(name);
 
-        // do attributes if there are any
-        if(attributes.getLength() > 0)
+        /**
+         * Only adds to the table while it is being filled.
+         *
+         * @param key the key.
+         * @param value the value.
+         * @return the previous value.
+         * @throws UnsupportedOperationException once the table is filled.
+         */
+        public synchronized Object put(Object key, Object value)
         {
-            int length = attributes.getLength();
-            for(int i = 0; i < length; i++)
-            {
-                String attributeValue = attributes.getValue(i);
-                String attributeQName = attributes.getQName(i);
-                sb.append(" " + attributeQName + "=\"" + attributeValue + "\"");
-            }
+            if(filled)
+                throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+            return super.put(key, value);
         }
-        sb.append(">");
-        sb.append(cdata);
-        int size = childNodes.size();
-        for(int i = 0; i < size; i++)
+
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object remove(Object key)
         {
-            XUINode e = (XUINode)childNodes.get(i);
-            sb.append(e.toString());
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
         }
-        if(size > 0)
+
+        /**
+         * Only adds to the table while it is being filled.
+         *
+         * @param map the entries to add.
+         * @throws UnsupportedOperationException once the table is filled.
+         */
+        public synchronized void putAll(Map map)
         {
-            sb.append("\n");
-            for(int s = 0; s < (level); s++)
-                sb.append("  ");
+            if(filled)
+                throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+            super.putAll(map);
         }
-        if(namespacePrefix.length() > 0)
-            sb.append("</" + namespacePrefix + ":" + name + ">");
-        else
-            sb.append("</" + name + ">");
 
-        return sb.toString();
-    }
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param value the value.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object putIfAbsent(Object key, Object value)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param value the value.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized boolean remove(Object key, Object value)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
 
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param value the value.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object replace(Object key, Object value)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param oldValue the value expected.
+         * @param newValue the value to replace it with.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized boolean replace(Object key, Object oldValue, Object newValue)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param function the function.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized void replaceAll(BiFunction function)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param function the function.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object compute(Object key, BiFunction function)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param function the function.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object computeIfAbsent(Object key, Function function)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
 
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param function the function.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object computeIfPresent(Object key, BiFunction function)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param key the key.
+         * @param value the value.
+         * @param function the function.
+         * @return nothing.
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized Object merge(Object key, Object value, BiFunction function)
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Not supported.
+         *
+         * @throws UnsupportedOperationException always.
+         */
+        public synchronized void clear()
+        {
+            throw new UnsupportedOperationException("Shared namespaces cannot be modified");
+        }
+
+        /**
+         * Returns the keys as a set that cannot be modified.
+         *
+         * @return the keys.
+         */
+        public Set keySet()
+        {
+            return Collections.unmodifiableSet(super.keySet());
+        }
+
+        /**
+         * Returns the entries as a set that cannot be modified.
+         *
+         * @return the entries.
+         */
+        public Set entrySet()
+        {
+            return Collections.unmodifiableSet(super.entrySet());
+        }
+
+        /**
+         * Returns the values as a collection that cannot be modified.
+         *
+         * @return the values.
+         */
+        public Collection values()
+        {
+            return Collections.unmodifiableCollection(super.values());
+        }
+    }
 }
@@ -44,6 +44,7 @@ import java.awt.Toolkit;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
@@ -127,6 +128,11 @@ public class XUIOpenFileDialogImpl implements XUIOpenFileDialog, ActionListener
      */
     private XUIWindow window;
 
+    /**
+     * The batch of changes in progress on this container, if any.
+     */
+    private XUIUpdateBatch batch = new XUIUpdateBatch();
+
     /**
      * The list of model objects that are ready to be listeners to any events generated by this
      * component.
@@ -154,10 +160,10 @@ public class XUIOpenFileDialogImpl implements XUIOpenFileDialog, ActionListener
      */
     public XUIOpenFileDialogImpl(XUINode node) throws XUIDisplayException
     {
-        int x = Integer.parseInt(node.getAttributeValue("x"));
-        int y = Integer.parseInt(node.getAttributeValue("y"));
-        int width = Integer.parseInt(node.getAttributeValue("width"));
-        int height = Integer.parseInt(node.getAttributeValue("height"));
+        int x = node.getAttributeIntValue("x");
+        int y = node.getAttributeIntValue("y");
+        int width = node.getAttributeIntValue("width");
+        int height = node.getAttributeIntValue("height");
 
         Dimension d = Toolkit.getDefaultToolkit().getScreenSize();
         if(!(node.getName().equals("OpenFileDialog")))
@@ -175,7 +181,7 @@ public class XUIOpenFileDialogImpl implements XUIOpenFileDialog, ActionListener
             window = (XUIWindow)dialogNode.getParent().getXUIComponent();
             filters = new XUIFilter();
             // need to instantiate the peer first
-            windowVisibility = Boolean.valueOf(node.getAttributeValue("visible")).booleanValue();
+            windowVisibility = node.getAttributeBooleanValue("visible");
 
             // get filters
             List filterList = dialogNode.getChildNodesByName("Filter");
@@ -298,11 +304,11 @@ public class XUIOpenFileDialogImpl implements XUIOpenFileDialog, ActionListener
      */
     public void visualize()
     {
-        dialog.setSize(Integer.parseInt(dialogNode.getAttributeValue("width")),
-            Integer.parseInt(dialogNode.getAttributeValue("height")));
-        dialog.setLocation(Integer.parseInt(dialogNode.getAttributeValue("x")),
-            Integer.parseInt(dialogNode.getAttributeValue("y")));
-        if(Boolean.valueOf(dialogNode.getAttributeValue("visible")).booleanValue())
+        dialog.setSize(dialogNode.getAttributeIntValue("width"),
+            dialogNode.getAttributeIntValue("height"));
+        dialog.setLocation(dialogNode.getAttributeIntValue("x"),
+            dialogNode.getAttributeIntValue("y"));
+        if(dialogNode.getAttributeBooleanValue("visible"))
             dialog.showOpenDialog(window.getPeer());
 
     }
@@ -745,6 +751,64 @@ public class XUIOpenFileDialogImpl implements XUIOpenFileDialog, ActionListener
         }
     }
 
+    /**
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
+     *
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     */
+    public void addComponents(Collection components) throws XUITypeFormatException
+    {
+        XUIUpdateBatch.addComponents(this, components);
+    }
+
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components)
+    {
+        XUIUpdateBatch.removeComponents(this, components);
+    }
+
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate()
+    {
+        batch.begin();
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate()
+    {
+        batch.end(this);
+    }
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating()
+    {
+        return batch.isActive();
+    }
+
     /**
      * <p>Gets the component based on its id. If no component found by that id, null is returned.</p>
      *
@@ -39,7 +39,7 @@ import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
@@ -68,6 +68,7 @@ import org.purnamaproject.xui.impl.XUINodeImpl;
 import org.purnamaproject.xui.XUIDisplayException;
 import org.purnamaproject.xui.component.XUIComponent;
 import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUINodeVisitor;
 import org.purnamaproject.xui.GridMapping;
 import org.purnamaproject.xui.XUITypeFormatException;
 import org.purnamaproject.xui.peer.GraphPaperLayout;
@@ -148,6 +149,11 @@ public class XUIPanelImpl implements XUIPanel
      */
     private Hashtable childComponentMappings = null;
 
+    /**
+     * The batch of changes in progress on this container, if any.
+     */
+    private XUIUpdateBatch batch = new XUIUpdateBatch();
+
     /**
      * The grid width of this component (in grid cells).
      */
@@ -189,10 +195,10 @@ public class XUIPanelImpl implements XUIPanel
      */
     public XUIPanelImpl(XUINode node)
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("Panel")))
             throw new XUIDisplayException("Node for XUIButton must be named 'Button' and conform to the XUI schema.");
@@ -204,7 +210,7 @@ public class XUIPanelImpl implements XUIPanel
             pan.setXUIComponent(this);
 
             // make the new mappings table
-            childComponentMappings = new Hashtable();
+            childComponentMappings = new XUIGridMapping(this);
             setComponentLocation(gridX, gridY);
 
             // get the layout for width and height
@@ -212,8 +218,8 @@ public class XUIPanelImpl implements XUIPanel
             // we know it's here so we can hard code this.
             XUINode layoutNode = (XUINode)layoutNodes.get(0);
             panel.setLayout(new GraphPaperLayout(new Dimension(
-                Integer.parseInt(layoutNode.getAttributeValue("width")),
-                Integer.parseInt(layoutNode.getAttributeValue("height")))));
+                layoutNode.getAttributeIntValue("width"),
+                layoutNode.getAttributeIntValue("height"))));
 
             panel.setName(node.getAttributeValue("name"));
         }
@@ -229,7 +235,7 @@ public class XUIPanelImpl implements XUIPanel
         panel = new JPanel();
         panel.setLayout(new GraphPaperLayout(new Dimension(1,1)));
         // make the new mappings table
-        childComponentMappings = new Hashtable();
+        childComponentMappings = new XUIGridMapping(this);
         // now create the XML version of this element
         pan = new XUINodeImpl("Panel");
         pan.setLevel(2);
@@ -503,10 +509,10 @@ public class XUIPanelImpl implements XUIPanel
             // get the node
             XUINode node = component.getNodeRepresentation();
 
-            int x = Integer.parseInt(node.getAttributeValue("x"));
-            int y = Integer.parseInt(node.getAttributeValue("y"));
-            int width = Integer.parseInt(node.getAttributeValue("width"));
-            int height = Integer.parseInt(node.getAttributeValue("height"));
+            int x = node.getAttributeIntValue("x");
+            int y = node.getAttributeIntValue("y");
+            int width = node.getAttributeIntValue("width");
+            int height = node.getAttributeIntValue("height");
 
             // check to make sure it fits within the grid.
             Dimension localGrid = this.getGrid();
@@ -520,7 +526,9 @@ public class XUIPanelImpl implements XUIPanel
 
             panel.add(component.getPeer(), rect);
             component.getPeer().invalidate();
-            panel.validate();
+            // laid out once the batch of changes in progress ends
+            if(!batch.isActive())
+                panel.validate();
 
             // for mapping components to the regions they occupy within the grid
             childComponentMappings.put(component, rect);
@@ -560,14 +568,14 @@ public class XUIPanelImpl implements XUIPanel
         panel.removeAll();
         childComponentMappings.clear();
         // and same for all the nodes in the tree:
-        List list = pan.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        List children = pan.getDirectChildren();
+        for(int i = children.size() - 1; i >= 0; i--)
         {
-            XUINode node = (XUINode)list.get(i);
+            XUINode node = (XUINode)children.get(i);
             if(node.getName().equals("GridLayout"))
                 ; // keep
             else
-                list.remove(node);
+                pan.removeChildNode(i);
         }
     }
 
@@ -577,68 +585,117 @@ public class XUIPanelImpl implements XUIPanel
      *
      * @param component the component to remove.
      */
-    public void removeComponent(XUIComponent component)
+    public void removeComponent(final XUIComponent component)
     {
-        // flattened list
-        List list = pan.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        // find the node belonging to the component
+        XUINode node = pan.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode child)
+                {
+                    return XUINodeImpl.peekXUIComponent(child) != component;
+                }
+        });
+        if(node != null)
+        {
+            XUIComponent c = node.getXUIComponent();
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            panel.remove(swingComponent);
+            panel.invalidate();
+            // force the GUI to repaint itself, unless a batch of changes is in progress
+            if(!batch.isActive() && panel.getParent() != null)
+                panel.getParent().validate();
+            // remove the node from the XUI document
+            pan.removeChildNode(node);
+        }
+    }
+
+    /**
+     * Removes the component based on its id. If no component found by that id, no action is taken.
+     *
+     * @param id the id of the component to remove.
+     */
+    public void removeComponent(String id)
+    {
+        XUINode node = pan.getChildNodeByID(id);
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
             XUIComponent c = node.getXUIComponent();
-            if(c == component)
+            childComponentMappings.remove(c);
+
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            panel.remove(swingComponent);
+            panel.invalidate();
+            // force the GUI to repaint itself, unless a batch of changes is in progress
+            if(!batch.isActive())
             {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                panel.remove(swingComponent);
-                panel.invalidate();
-                // force the GUI to repaint itself
+                panel.repaint();
                 if(panel.getParent() != null)
                     panel.getParent().validate();
-                // remove the node from the XUI document
-                pan.removeChildNode(node);
             }
+            // remove the node from the XUI document
+            pan.removeChildNode(node);
         }
     }
 
     /**
-     * Removes the component based on its id. If no component found by that id, no action is taken.
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
      *
-     * @param id the id of the component to remove.
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
      */
-    public void removeComponent(String id)
+    public void addComponents(Collection components) throws XUITypeFormatException
     {
+        XUIUpdateBatch.addComponents(this, components);
+    }
 
-        // flattened list
-        List list = pan.getAllChildNodes();
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components)
+    {
+        XUIUpdateBatch.removeComponents(this, components);
+    }
 
-        for(int i = 0; i < list.size(); i++)
-        {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate()
+    {
+        batch.begin();
+    }
 
-            // get the component
-            String nodeID = node.getAttributeID();
-            XUIComponent c = node.getXUIComponent();
-            if(nodeID != null)
-                if(nodeID.equals(id))
-                {
-                    childComponentMappings.remove(c);
-
-                    // same component so, remove it from the GUI
-                    Component swingComponent = c.getPeer();
-                    panel.remove(swingComponent);
-                    panel.invalidate();
-                    panel.repaint();
-                    // force the GUI to repaint itself
-                    if(panel.getParent() != null)
-                        panel.getParent().validate();
-                    // remove the node from the XUI document
-                    pan.removeChildNode(node);
-                }
-        }
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate()
+    {
+        batch.end(this);
+    }
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating()
+    {
+        return batch.isActive();
     }
 
     /**
@@ -648,19 +705,9 @@ public class XUIPanelImpl implements XUIPanel
      */
     public XUIComponent getComponent(String id)
     {
-        // flattened list
-        List list = pan.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
-            XUIComponent c = node.getXUIComponent();
-
-            if(nodeID.equals(id))
-                return c;
-        }
+        XUINode node = pan.getChildNodeByID(id);
+        if(node != null)
+            return node.getXUIComponent();
         return null;
     }
 
@@ -671,13 +718,15 @@ public class XUIPanelImpl implements XUIPanel
      */
     public List getChildrenComponents()
     {
-        List components = new LinkedList();
-        List list = pan.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            XUINode node = (XUINode)list.get(i);
-            components.add(node.getXUIComponent());
-        }
+        final List components = new LinkedList();
+        pan.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    components.add(XUINodeImpl.peekXUIComponent(node));
+                    return true;
+                }
+        });
         return components;
     }
 
@@ -793,25 +842,12 @@ public class XUIPanelImpl implements XUIPanel
                     if(parent != null)
                     {
 
-                        // collision detection
-                        Hashtable grid = parent.getGridMapping();
-                        Enumeration keys = grid.keys();
-
+                        // collision detection: the space must not be occupied by someone OTHER than the
+                        // current proposed component
+                        XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                         container = (Container)((XUIComponent)parent).getPeer();
 
-                        // need to check if the space is occupied AND if that space if occupied by
-                        // someone OTHER than the current proposed component
-                        while(keys.hasMoreElements())
-                        {
-                            XUIContainer someComponent = (XUIContainer)keys.nextElement();
-                            Rectangle region = (Rectangle)grid.get(someComponent);
-                            if(region.intersects(spaceToOccupy) && someComponent != this)
-                                throw new XUIDisplayException("Component:\n" + someComponent + " is already in the area x: "
-                                    + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                                    + gridHeight);
-                        }
-
                         // now check if the atomic falls within the grid as specified by the container.
                         Dimension d = parent.getGrid();
 
@@ -833,7 +869,10 @@ public class XUIPanelImpl implements XUIPanel
                             else
                                 container.add(panel, new Rectangle(gridY, gridX, gridWidth, gridHeight));
                             panel.invalidate();
-                            container.validate();
+                            // laid out once the batch of changes in progress on the parent ends
+                            if(!(parent instanceof XUIContainer && ((XUIContainer)parent).isUpdating()))
+                                container.validate();
+                            parent.getGridMapping().put(this, new Rectangle(gridY, gridX, gridWidth, gridHeight));
 
                             pan.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                                 String.valueOf(xCoordinate));
@@ -910,26 +949,12 @@ public class XUIPanelImpl implements XUIPanel
                     if(parent != null)
                     {
 
-                        // collision detection
-                        Hashtable grid = parent.getGridMapping();
-
-                        Enumeration keys = grid.keys();
-
+                        // collision detection: the space must not be occupied by someone OTHER than the
+                        // current proposed component
+                        XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                         container = (Container)((XUIComponent)parent).getPeer();
 
-                        // need to check if the space is occupied AND if that space if occupied by
-                        // someone OTHER than the current proposed component
-                        while(keys.hasMoreElements())
-                        {
-                            XUIContainer someComponent = (XUIContainer)keys.nextElement();
-                            Rectangle region = (Rectangle)grid.get(someComponent);
-                            if(region.intersects(spaceToOccupy) && someComponent != this)
-                                throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                                    + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                                    + height);
-                        }
-
 
                         // now check if the atomic falls within the grid as specified by the container.
                         Dimension d = parent.getGrid();
@@ -951,7 +976,10 @@ public class XUIPanelImpl implements XUIPanel
                                 container.add(panel, new Rectangle(gridY, gridX, gridWidth, gridHeight));
 
                             panel.invalidate();
-                            container.validate();
+                            // laid out once the batch of changes in progress on the parent ends
+                            if(!(parent instanceof XUIContainer && ((XUIContainer)parent).isUpdating()))
+                                container.validate();
+                            parent.getGridMapping().put(this, new Rectangle(gridY, gridX, gridWidth, gridHeight));
 
                             pan.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                                 String.valueOf(width));
@@ -41,8 +41,6 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.Rectangle;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.StringTokenizer;
 import javax.swing.JSlider;
@@ -123,10 +121,10 @@ public class XUISliderBarImpl implements XUISliderBar, ChangeListener
      */
     public XUISliderBarImpl(XUINode node) throws XUIDisplayException
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("SliderBar")))
             throw new XUIDisplayException("Node for XUISliderBar must be named 'SliderBar' and conform to the XUI schema.");
@@ -140,10 +138,10 @@ public class XUISliderBarImpl implements XUISliderBar, ChangeListener
             sliderNode = node;
             sliderNode.setXUIComponent(this);
             slider.setMinimum(0);
-            slider.setMaximum(Integer.parseInt(node.getAttributeValue("maxValue")));
-            slider.setEnabled(Boolean.valueOf(node.getAttributeValue("enabled")).booleanValue());
-            slider.setMajorTickSpacing(Integer.parseInt(node.getAttributeValue("visualMeasureIncrement")));
-            slider.setValue(Integer.parseInt(node.getAttributeValue("cursorPosition")));
+            slider.setMaximum(node.getAttributeIntValue("maxValue"));
+            slider.setEnabled(node.getAttributeBooleanValue("enabled"));
+            slider.setMajorTickSpacing(node.getAttributeIntValue("visualMeasureIncrement"));
+            slider.setValue(node.getAttributeIntValue("cursorPosition"));
 
 
             if(sliderNode.getAttributeValue("orientation").equals("vertical"))
@@ -422,25 +420,12 @@ public class XUISliderBarImpl implements XUISliderBar, ChangeListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -451,10 +436,14 @@ public class XUISliderBarImpl implements XUISliderBar, ChangeListener
                 {
                     gridX = xCoordinate;
                     gridY = yCoordinate;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(slider);
-                    container.add(slider, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(slider, region);
                     slider.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     sliderNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -517,25 +506,12 @@ public class XUISliderBarImpl implements XUISliderBar, ChangeListener
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)parent.getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIComponent someComponent = (XUIComponent)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -547,10 +523,14 @@ public class XUISliderBarImpl implements XUISliderBar, ChangeListener
                 {
                     gridWidth = width;
                     gridHeight = height;
+                    Rectangle region = new Rectangle(gridY, gridX, gridWidth, gridHeight);
                     container.remove(slider);
-                    container.add(slider, new Rectangle(gridY, gridX, gridWidth, gridHeight));
+                    container.add(slider, region);
                     slider.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!parent.isUpdating())
+                        container.validate();
+                    parent.getGridMapping().put(this, region);
 
                     sliderNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
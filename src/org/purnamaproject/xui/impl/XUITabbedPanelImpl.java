@@ -39,7 +39,7 @@ import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
@@ -55,6 +55,7 @@ import org.purnamaproject.xui.GridMapping;
 import org.purnamaproject.xui.impl.XUINodeImpl;
 import org.purnamaproject.xui.XUIDisplayException;
 import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUINodeVisitor;
 import org.purnamaproject.xui.XUITypeFormatException;
 
 /**
@@ -91,6 +92,11 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
      */
     private Hashtable childComponentMappings = null;
 
+    /**
+     * The batch of changes in progress on this container, if any.
+     */
+    private XUIUpdateBatch batch = new XUIUpdateBatch();
+
     /**
      * The grid width of this component (in grid cells).
      */
@@ -132,10 +138,10 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
      */
     public XUITabbedPanelImpl(XUINode node)
     {
-        gridX = Integer.parseInt(node.getAttributeValue("x"));
-        gridY = Integer.parseInt(node.getAttributeValue("y"));
-        gridWidth = Integer.parseInt(node.getAttributeValue("width"));
-        gridHeight = Integer.parseInt(node.getAttributeValue("height"));
+        gridX = node.getAttributeIntValue("x");
+        gridY = node.getAttributeIntValue("y");
+        gridWidth = node.getAttributeIntValue("width");
+        gridHeight = node.getAttributeIntValue("height");
 
         if(!(node.getName().equals("TabbedPanel")))
             throw new XUIDisplayException("Node for XUITabbedPanel must be named 'TabbedPanel' and conform to the XUI schema.");
@@ -310,14 +316,14 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
         panel.removeAll();
         childComponentMappings.clear();
         // and same for all the nodes in the tree:
-        List list = tabbedNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        List children = tabbedNode.getDirectChildren();
+        for(int i = children.size() - 1; i >= 0; i--)
         {
-            XUINode node = (XUINode)list.get(i);
+            XUINode node = (XUINode)children.get(i);
             if(node.getName().equals("GridLayout"))
                 ; // keep
             else
-                list.remove(node);
+                tabbedNode.removeChildNode(i);
         }
     }
 
@@ -354,29 +360,29 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
      *
      * @param component the component to remove.
      */
-    public void removeComponent(XUIComponent component)
+    public void removeComponent(final XUIComponent component)
     {
-        // flattened list
-        List list = tabbedNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        // find the node belonging to the component
+        XUINode node = tabbedNode.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode child)
+                {
+                    return XUINodeImpl.peekXUIComponent(child) != component;
+                }
+        });
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
             XUIComponent c = node.getXUIComponent();
-            if(c == component)
-            {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                panel.remove(swingComponent);
-                panel.invalidate();
-                // force the GUI to repaint itself
-                if(panel.getParent() != null)
-                    panel.getParent().validate();
-                // remove the node from the XUI document
-                tabbedNode.removeChildNode(node);
-            }
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            panel.remove(swingComponent);
+            panel.invalidate();
+            // force the GUI to repaint itself, unless a batch of changes is in progress
+            if(!batch.isActive() && panel.getParent() != null)
+                panel.getParent().validate();
+            // remove the node from the XUI document
+            tabbedNode.removeChildNode(node);
         }
     }
 
@@ -387,32 +393,81 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
      */
     public void removeComponent(String id)
     {
-        // flattened list
-        List list = tabbedNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        XUINode node = tabbedNode.getChildNodeByID(id);
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
             XUIComponent c = node.getXUIComponent();
-
-            if(nodeID.equals(id))
-            {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                panel.remove(swingComponent);
-                panel.invalidate();
-                // force the GUI to repaint itself
-                if(panel.getParent() != null)
-                    panel.getParent().validate();
-                // remove the node from the XUI document
-                tabbedNode.removeChildNode(node);
-            }
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            panel.remove(swingComponent);
+            panel.invalidate();
+            // force the GUI to repaint itself, unless a batch of changes is in progress
+            if(!batch.isActive() && panel.getParent() != null)
+                panel.getParent().validate();
+            // remove the node from the XUI document
+            tabbedNode.removeChildNode(node);
         }
     }
 
+    /**
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
+     *
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     */
+    public void addComponents(Collection components) throws XUITypeFormatException
+    {
+        XUIUpdateBatch.addComponents(this, components);
+    }
+
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components)
+    {
+        XUIUpdateBatch.removeComponents(this, components);
+    }
+
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate()
+    {
+        batch.begin();
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate()
+    {
+        batch.end(this);
+    }
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating()
+    {
+        return batch.isActive();
+    }
+
     /**
      * Gets the component based on its id. If no component found by that id, null is returned.
      *
@@ -420,19 +475,9 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
      */
     public XUIComponent getComponent(String id)
     {
-        // flattened list
-        List list = tabbedNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
-            XUIComponent c = node.getXUIComponent();
-
-            if(nodeID.equals(id))
-                return c;
-        }
+        XUINode node = tabbedNode.getChildNodeByID(id);
+        if(node != null)
+            return node.getXUIComponent();
         return null;
     }
 
@@ -443,13 +488,15 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
      */
     public List getChildrenComponents()
     {
-        List components = new LinkedList();
-        List list = tabbedNode.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            XUINode node = (XUINode)list.get(i);
-            components.add(node.getXUIComponent());
-        }
+        final List components = new LinkedList();
+        tabbedNode.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    components.add(XUINodeImpl.peekXUIComponent(node));
+                    return true;
+                }
+        });
         return components;
     }
 
@@ -548,25 +595,12 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)((XUIComponent)parent).getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIContainer someComponent = (XUIContainer)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + " is already in the area x: "
-                            + yCoordinate + ", y: " + xCoordinate + ", width: " + gridWidth + ", height: "
-                            + gridHeight);
-                }
-
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
                 if(yCoordinate < 0 || (yCoordinate + gridWidth) > (d.getWidth()))
@@ -586,7 +620,10 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
                     else
                         container.add(panel, new Rectangle(gridY, gridX, gridWidth, gridHeight));
                     panel.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!(parent instanceof XUIContainer && ((XUIContainer)parent).isUpdating()))
+                        container.validate();
+                    parent.getGridMapping().put(this, new Rectangle(gridY, gridX, gridWidth, gridHeight));
 
                     tabbedNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "x", "x", "xs:unsignedShort",
                         String.valueOf(xCoordinate));
@@ -648,25 +685,12 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
             if(parent != null)
             {
 
-                // collision detection
-                Hashtable grid = parent.getGridMapping();
-
-                Enumeration keys = grid.keys();
+                // collision detection: the space must not be occupied by someone OTHER than the
+                // current proposed component
+                XUIGridMapping.checkFree(parent.getGridMapping(), spaceToOccupy, this);
 
                 container = (Container)((XUIComponent)parent).getPeer();
 
-                // need to check if the space is occupied AND if that space if occupied by
-                // someone OTHER than the current proposed component
-                while(keys.hasMoreElements())
-                {
-                    XUIContainer someComponent = (XUIContainer)keys.nextElement();
-                    Rectangle region = (Rectangle)grid.get(someComponent);
-                    if(region.intersects(spaceToOccupy) && someComponent != this)
-                        throw new XUIDisplayException("Component:\n" + someComponent + "\nis already in the area x: "
-                            + gridY + ", y: " + gridX + ", width: " + width + ", height: "
-                            + height);
-                }
-
 
                 // now check if the atomic falls within the grid as specified by the container.
                 Dimension d = parent.getGrid();
@@ -688,7 +712,10 @@ public class XUITabbedPanelImpl implements XUITabbedPanel
                         container.add(panel, new Rectangle(gridY, gridX, gridWidth, gridHeight));
 
                     panel.invalidate();
-                    container.validate();
+                    // laid out once the batch of changes in progress on the parent ends
+                    if(!(parent instanceof XUIContainer && ((XUIContainer)parent).isUpdating()))
+                        container.validate();
+                    parent.getGridMapping().put(this, new Rectangle(gridY, gridX, gridWidth, gridHeight));
 
                     tabbedNode.addAttribute("http://xml.bcit.ca/PurnamaProject/2003/xui", "width", "width", "xs:unsignedShort",
                         String.valueOf(width));
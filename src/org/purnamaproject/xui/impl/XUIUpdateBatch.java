@@ -0,0 +1,178 @@
+package org.purnamaproject.xui.impl;
+
+/**
+ * @(#)XUIUpdateBatch.java 0.5 18/08/2003
+ *
+ * The Purnama Project XUI (XML-based User Interface) API is an set of program
+ * calls that utilize the XUI tagset and perform the task of creating a user
+ * interface. The Purnama version of this API is specific using Java as the platform
+ * but other XUI APIs may use other libraries and platforms. The Purnama XUI API
+ * supports the creation of Swing components, adding, deleting and laying out
+ * components. It also supports dynamic binding of business logic to the user
+ * interface.
+ *
+ * Copyright (c) 2003 Arron Ferguson
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ *
+ * For more information, please contact Arron Ferguson at:
+ * e-mail: arron_ferguson@bcit.ca
+ * snail-mail: SW2 - 124, 3700 Willingdon Avenue, Burnaby, British Columbia, Canada, V5G 3H2
+ * Web: http://xml.bcit.ca/PurnamaProject/
+ *
+ */
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.Collection;
+import java.util.Iterator;
+import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUITypeFormatException;
+import org.purnamaproject.xui.component.XUIComponent;
+import org.purnamaproject.xui.component.container.XUIContainer;
+
+/**
+ * Keeps track of a batch of changes to a container so that it is laid out and repainted once when
+ * the batch ends rather than once for every component added or removed. Batches may be nested.
+ *
+ * @see org.purnamaproject.xui.component.container.XUIContainer#beginUpdate()
+ * @version    0.5 18/08/2003
+ * @author     Arron Ferguson
+ */
+class XUIUpdateBatch
+{
+    /**
+     * The number of batches begun but not yet ended.
+     */
+    private int depth = 0;
+
+    /**
+     * Begins a batch, or a nested batch within one already in progress.
+     */
+    void begin()
+    {
+        depth++;
+    }
+
+    /**
+     * Ends a batch. When the outermost batch ends, the container is laid out and repainted. If no
+     * batch is in progress, no action is taken.
+     *
+     * @param container the container the batch belongs to.
+     */
+    void end(XUIContainer container)
+    {
+        if(depth == 0)
+            return;
+        depth--;
+        if(depth == 0)
+            layout(container);
+    }
+
+    /**
+     * Returns whether a batch is in progress.
+     *
+     * @return true if a batch has been begun and not yet ended.
+     */
+    boolean isActive()
+    {
+        return depth > 0;
+    }
+
+    /**
+     * Lays out and repaints a container. The parent of its native component is validated if there is
+     * one so that a change in the size the container wants is taken into account. If the container
+     * lies within another that has a batch of changes in progress, the native component is only
+     * invalidated: it is laid out along with the enclosing container when that batch ends.
+     *
+     * @param container the container to lay out.
+     */
+    static void layout(XUIContainer container)
+    {
+        Component component = container.getPeer();
+        if(component == null)
+            return;
+        component.invalidate();
+        if(isEnclosingUpdating(container))
+            return;
+        Container parent = component.getParent();
+        if(parent != null)
+            parent.validate();
+        else
+            component.validate();
+        component.repaint();
+    }
+
+    /**
+     * Returns whether the container enclosing a component in the XUI document has a batch of changes
+     * in progress.
+     *
+     * @param component the component.
+     * @return true if the component lies within a container that is being updated.
+     */
+    private static boolean isEnclosingUpdating(XUIComponent component)
+    {
+        XUINode node = component.getNodeRepresentation();
+        XUINode parentNode = (node != null) ? node.getParent() : null;
+        if(parentNode == null)
+            return false;
+        XUIComponent parent = parentNode.getXUIComponent();
+        return parent instanceof XUIContainer && ((XUIContainer)parent).isUpdating();
+    }
+
+    /**
+     * Adds each of the components in the collection to a container, in iteration order, within a
+     * single batch of changes.
+     *
+     * @param container the container.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     * @throws XUITypeFormatException if the container does not support one of the components. The
+     * components before it remain added.
+     */
+    static void addComponents(XUIContainer container, Collection components) throws XUITypeFormatException
+    {
+        container.beginUpdate();
+        try
+        {
+            Iterator it = components.iterator();
+            while(it.hasNext())
+                container.addComponent((XUIComponent)it.next());
+        } finally
+        {
+            container.endUpdate();
+        }
+    }
+
+    /**
+     * Removes each of the components in the collection from a container within a single batch of
+     * changes.
+     *
+     * @param container the container.
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    static void removeComponents(XUIContainer container, Collection components)
+    {
+        container.beginUpdate();
+        try
+        {
+            Iterator it = components.iterator();
+            while(it.hasNext())
+                container.removeComponent((XUIComponent)it.next());
+        } finally
+        {
+            container.endUpdate();
+        }
+    }
+}
@@ -46,6 +46,7 @@ import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.io.IOException;
 import java.lang.StringBuffer;
+import java.util.Collection;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
@@ -69,6 +70,7 @@ import org.purnamaproject.xui.impl.XUINodeImpl;
 import org.purnamaproject.xui.XUIDisplayException;
 import org.purnamaproject.xui.component.XUIComponent;
 import org.purnamaproject.xui.XUINode;
+import org.purnamaproject.xui.XUINodeVisitor;
 import org.purnamaproject.xui.GridMapping;
 import org.purnamaproject.xui.XUITypeFormatException;
 import org.purnamaproject.xui.binding.WindowModel;
@@ -116,6 +118,11 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      */
     private Hashtable childComponentMappings = null;
 
+    /**
+     * The batch of changes in progress on this container, if any.
+     */
+    private XUIUpdateBatch batch = new XUIUpdateBatch();
+
     /**
      * Node associated with this component.
      */
@@ -148,10 +155,10 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      */
     public XUIWindowImpl(XUINode node) throws XUIDisplayException
     {
-        int x = Integer.parseInt(node.getAttributeValue("x"));
-        int y = Integer.parseInt(node.getAttributeValue("y"));
-        int width = Integer.parseInt(node.getAttributeValue("width"));
-        int height = Integer.parseInt(node.getAttributeValue("height"));
+        int x = node.getAttributeIntValue("x");
+        int y = node.getAttributeIntValue("y");
+        int width = node.getAttributeIntValue("width");
+        int height = node.getAttributeIntValue("height");
 
         Dimension d = Toolkit.getDefaultToolkit().getScreenSize();
         if(!(node.getName().equals("Window")))
@@ -171,16 +178,16 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
             frame.setIconImage(frameIcon.getImage());
 
             // make the new mappings table
-            childComponentMappings = new Hashtable();
+            childComponentMappings = new XUIGridMapping(this);
 
             // get the layout for width and height
             List layoutNodes = win.getChildNodesByName("GridLayout");
             // we know it's here so we can hard code this.
             XUINode layoutNode = (XUINode)layoutNodes.get(0);
             frame.getContentPane().setLayout(new GraphPaperLayout(new Dimension(
-                Integer.parseInt(layoutNode.getAttributeValue("width")),
-                Integer.parseInt(layoutNode.getAttributeValue("height")))));
-            windowVisibility = Boolean.valueOf(node.getAttributeValue("visible")).booleanValue();
+                layoutNode.getAttributeIntValue("width"),
+                layoutNode.getAttributeIntValue("height"))));
+            windowVisibility = node.getAttributeBooleanValue("visible");
             frame.setSize(width, height);
             frame.setLocation(x, y);
 
@@ -217,7 +224,7 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
     public XUIWindowImpl() throws XUIDisplayException
     {
         // make the new mappings table
-        childComponentMappings = new Hashtable();
+        childComponentMappings = new XUIGridMapping(this);
 
         frame = new JFrame();
         frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -438,11 +445,11 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      */
     public void visualize()
     {
-        frame.setSize(Integer.parseInt(win.getAttributeValue("width")),
-            Integer.parseInt(win.getAttributeValue("height")));
-        frame.setLocation(Integer.parseInt(win.getAttributeValue("x")),
-            Integer.parseInt(win.getAttributeValue("y")));
-        frame.setVisible(Boolean.valueOf(win.getAttributeValue("visible")).booleanValue());
+        frame.setSize(win.getAttributeIntValue("width"),
+            win.getAttributeIntValue("height"));
+        frame.setLocation(win.getAttributeIntValue("x"),
+            win.getAttributeIntValue("y"));
+        frame.setVisible(win.getAttributeBooleanValue("visible"));
     }
 
     /**
@@ -684,10 +691,10 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
 
             if(!(component instanceof XUIMenuBar))
             {
-                int x = Integer.parseInt(node.getAttributeValue("x"));
-                int y = Integer.parseInt(node.getAttributeValue("y"));
-                int width = Integer.parseInt(node.getAttributeValue("width"));
-                int height = Integer.parseInt(node.getAttributeValue("height"));
+                int x = node.getAttributeIntValue("x");
+                int y = node.getAttributeIntValue("y");
+                int width = node.getAttributeIntValue("width");
+                int height = node.getAttributeIntValue("height");
 
 
                 // can't add dialogs so need to check for type here.
@@ -720,7 +727,9 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
             }
 
             frame.invalidate();
-            frame.validate();
+            // laid out once the batch of changes in progress ends
+            if(!batch.isActive())
+                frame.validate();
 
             // add the component's node
             int level = win.getLevel();
@@ -752,14 +761,14 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
         frame.removeAll();
         childComponentMappings.clear();
         // and same for all the nodes in the tree:
-        List list = win.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        List children = win.getDirectChildren();
+        for(int i = children.size() - 1; i >= 0; i--)
         {
-            XUINode node = (XUINode)list.get(i);
+            XUINode node = (XUINode)children.get(i);
             if(node.getName().equals("GridLayout"))
                 ; // keep
             else
-                list.remove(node);
+                win.removeChildNode(i);
         }
     }
 
@@ -769,25 +778,26 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      *
      * @param component the component to remove.
      */
-    public void removeComponent(XUIComponent component)
+    public void removeComponent(final XUIComponent component)
     {
-        // flattened list
-        List list = win.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        // find the node belonging to the component
+        XUINode node = win.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode child)
+                {
+                    return XUINodeImpl.peekXUIComponent(child) != component;
+                }
+        });
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
             XUIComponent c = node.getXUIComponent();
-            if(c == component)
-            {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                frame.remove(swingComponent);
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            frame.remove(swingComponent);
+            if(!batch.isActive())
                 frame.repaint();
-                win.removeChildNode(node);
-            }
+            win.removeChildNode(node);
         }
     }
 
@@ -798,30 +808,79 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      */
     public void removeComponent(String id)
     {
-        // flattened list
-        List list = win.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
+        XUINode node = win.getChildNodeByID(id);
+        if(node != null)
         {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
             XUIComponent c = node.getXUIComponent();
-            if(nodeID == null)
-                return;
-            if(nodeID.equals(id))
-            {
-                childComponentMappings.remove(c);
-                // same component so, remove it from the GUI
-                Component swingComponent = c.getPeer();
-                frame.remove(swingComponent);
+            childComponentMappings.remove(c);
+            // same component so, remove it from the GUI
+            Component swingComponent = c.getPeer();
+            frame.remove(swingComponent);
+            if(!batch.isActive())
                 frame.repaint();
-                // remove the node from the XUI document
-                win.removeChildNode(node);
-            }
+            // remove the node from the XUI document
+            win.removeChildNode(node);
         }
     }
 
+    /**
+     * Adds each of the components in the collection to this container, in iteration order. The components
+     * are added within a single update (see {@link #beginUpdate()}) so that the container is laid out and
+     * repainted once rather than once per component. If a component is not supported by this container,
+     * the components before it remain added and an exception is generated.
+     *
+     * @throws org.purnamaproject.xui.XUITypeFormatException if any of the types do not conform to the
+     * <a href="http://geekkit.bcit.ca/xui/docs/specification/xuiSpecification0.5.0.html">Purnama Project XUI Specification</a>.
+     * @param components the collection of <code>XUIComponent</code>s to add.
+     */
+    public void addComponents(Collection components) throws XUITypeFormatException
+    {
+        XUIUpdateBatch.addComponents(this, components);
+    }
+
+    /**
+     * Removes each of the components in the collection from this container within a single update (see
+     * {@link #beginUpdate()}). Components that are not children of this container are ignored.
+     *
+     * @param components the collection of <code>XUIComponent</code>s to remove.
+     */
+    public void removeComponents(Collection components)
+    {
+        XUIUpdateBatch.removeComponents(this, components);
+    }
+
+    /**
+     * <p>Begins a batch of changes to this container. Until the matching call to {@link #endUpdate()},
+     * adding and removing components does not lay out or repaint the container. Calls may be nested; the
+     * container is laid out once when the outermost batch ends.</p>
+     *
+     * <p>Every call to this method must be matched by a call to <code>endUpdate</code>, typically within
+     * a <code>finally</code> block.</p>
+     */
+    public void beginUpdate()
+    {
+        batch.begin();
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the outermost batch ends, the
+     * container is laid out and repainted. If no batch is in progress, no action is taken.
+     */
+    public void endUpdate()
+    {
+        batch.end(this);
+    }
+
+    /**
+     * Returns whether a batch of changes is in progress on this container.
+     *
+     * @return true if {@link #beginUpdate()} has been called more times than {@link #endUpdate()}.
+     */
+    public boolean isUpdating()
+    {
+        return batch.isActive();
+    }
+
     /**
      * Gets the component based on its id. If no component found by that id, null is returned.
      *
@@ -829,19 +888,9 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      */
     public XUIComponent getComponent(String id)
     {
-        // flattened list
-        List list = win.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            // get the node
-            XUINode node = (XUINode)list.get(i);
-            // get the component
-            String nodeID = node.getAttributeID();
-            XUIComponent c = node.getXUIComponent();
-
-            if(nodeID.equals(id))
-                return c;
-        }
+        XUINode node = win.getChildNodeByID(id);
+        if(node != null)
+            return node.getXUIComponent();
         return null;
     }
 
@@ -852,13 +901,15 @@ public class XUIWindowImpl implements XUIWindow, WindowListener
      */
     public List getChildrenComponents()
     {
-        List components = new LinkedList();
-        List list = win.getAllChildNodes();
-        for(int i = 0; i < list.size(); i++)
-        {
-            XUINode node = (XUINode)list.get(i);
-            components.add(node.getXUIComponent());
-        }
+        final List components = new LinkedList();
+        win.visitAllChildNodes(new XUINodeVisitor()
+            {
+                public boolean visit(XUINode node)
+                {
+                    components.add(XUINodeImpl.peekXUIComponent(node));
+                    return true;
+                }
+        });
         return components;
     }
 
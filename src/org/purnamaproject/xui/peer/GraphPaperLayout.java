@@ -41,7 +41,11 @@ public class GraphPaperLayout implements LayoutManager2 {
     int vgap;            //vertical gap
     Dimension gridSize;  //grid size in logical units (n x m)
     Hashtable compTable; //constraints (Rectangles)
-    
+    Component[] compArray;       //components in container order, null when stale
+    Rectangle[] rectArray;       //constraints of compArray, same order
+    Dimension preferredCellSize; //largest preferred cell size, null when stale
+    Dimension minimumCellSize;   //largest minimum cell size, null when stale
+
     /**
      * Creates a graph paper layout with a default of a 1 x 1 graph, with no
      * vertical or horizontal padding.
@@ -98,6 +102,8 @@ public class GraphPaperLayout implements LayoutManager2 {
     
     public void setConstraints(Component comp, Rectangle constraints) {
         compTable.put(comp, new Rectangle(constraints));
+        compArray = null;
+        invalidateCellSizes();
     }
     
     /**
@@ -114,6 +120,8 @@ public class GraphPaperLayout implements LayoutManager2 {
      */
     public void removeLayoutComponent(Component comp) {
         compTable.remove(comp);
+        compArray = null;
+        invalidateCellSizes();
     }
 
     /**
@@ -174,7 +182,11 @@ public class GraphPaperLayout implements LayoutManager2 {
      * component and keeping the maximum value, dividing the component's width
      * by the number of columns it is specified to occupy and dividing the
      * component's height by the number of rows it is specified to occupy.
-     * 
+     * <p>
+     * The result is remembered until the layout is invalidated, which happens
+     * whenever one of the components is invalidated, or the components or
+     * their constraints change.
+     *
      * @param parent the container in which to do the layout.
      * @param isPreferred true for calculating preferred size, false for
      *                    calculating minimum size.
@@ -182,11 +194,15 @@ public class GraphPaperLayout implements LayoutManager2 {
      */
     protected Dimension getLargestCellSize(Container parent,
                                            boolean isPreferred) {
-        int ncomponents = parent.getComponentCount();
-        Dimension maxCellSize = new Dimension(0,0);
-        for ( int i = 0; i < ncomponents; i++ ) {
-            Component c = parent.getComponent(i);
-            Rectangle rect = (Rectangle)compTable.get(c);
+        Rectangle[] rects = getConstraints(parent);
+        Dimension maxCellSize = isPreferred ? preferredCellSize : minimumCellSize;
+        if ( maxCellSize != null ) {
+            return new Dimension(maxCellSize);
+        }
+        maxCellSize = new Dimension(0,0);
+        for ( int i = 0; i < rects.length; i++ ) {
+            Component c = compArray[i];
+            Rectangle rect = rects[i];
             if ( c != null && rect != null ) {
                 Dimension componentSize;
                 if ( isPreferred ) {
@@ -202,17 +218,59 @@ public class GraphPaperLayout implements LayoutManager2 {
                     componentSize.height / rect.height);
             }
         }
-        return maxCellSize;
+        if ( isPreferred ) {
+            preferredCellSize = maxCellSize;
+        } else {
+            minimumCellSize = maxCellSize;
+        }
+        return new Dimension(maxCellSize);
     }
 
-    /** 
-     * Lays out the container in the specified container.
-     * @param parent the component which needs to be laid out 
+    /**
+     * Returns the constraints of the components of the container, in the
+     * order of the components.  The components and their constraints are
+     * kept in arrays, which are only filled again when the components of the
+     * container or their constraints have changed.
+     *
+     * @param parent the container in which to do the layout.
+     * @return the constraints, null for components added without any.
+     */
+    private Rectangle[] getConstraints(Container parent) {
+        int ncomponents = parent.getComponentCount();
+        boolean stale = compArray == null || compArray.length != ncomponents;
+        for ( int i = 0; !stale && i < ncomponents; i++ ) {
+            stale = compArray[i] != parent.getComponent(i);
+        }
+        if ( stale ) {
+            compArray = parent.getComponents();
+            rectArray = new Rectangle[compArray.length];
+            for ( int i = 0; i < compArray.length; i++ ) {
+                rectArray[i] = (Rectangle)compTable.get(compArray[i]);
+            }
+            invalidateCellSizes();
+        }
+        return rectArray;
+    }
+
+    /**
+     * Forgets the largest cell sizes so they are calculated again.
+     */
+    private void invalidateCellSizes() {
+        preferredCellSize = null;
+        minimumCellSize = null;
+    }
+
+    /**
+     * Lays out the container in the specified container.  Components that
+     * are already where their constraints and the cell size put them are
+     * left alone.
+     * @param parent the component which needs to be laid out
      */
     public void layoutContainer(Container parent) {
         synchronized (parent.getTreeLock()) {
             Insets insets = parent.getInsets();
-            int ncomponents = parent.getComponentCount();
+            Rectangle[] rects = getConstraints(parent);
+            int ncomponents = rects.length;
 
             if (ncomponents == 0) {
                 return;
@@ -234,14 +292,17 @@ public class GraphPaperLayout implements LayoutManager2 {
                     / gridSize.height;
                 
             for ( int i = 0; i < ncomponents; i++ ) {
-                Component c = parent.getComponent(i);
-                Rectangle rect = (Rectangle)compTable.get(c);
+                Component c = compArray[i];
+                Rectangle rect = rects[i];
                 if ( rect != null ) {
                     int x = insets.left + ( totalCellW * rect.x ) + hgap;
                     int y = insets.top + ( totalCellH * rect.y ) + vgap;
                     int w = ( cellW * rect.width ) - hgap;
                     int h = ( cellH * rect.height ) - vgap;
-                    c.setBounds(x, y, w, h);
+                    if ( c.getX() != x || c.getY() != y
+                            || c.getWidth() != w || c.getHeight() != h ) {
+                        c.setBounds(x, y, w, h);
+                    }
                 }
             }
         }
@@ -310,6 +371,6 @@ public class GraphPaperLayout implements LayoutManager2 {
      * has cached information it should be discarded.
      */
     public void invalidateLayout(Container target) {
-        // Do nothing
+        invalidateCellSizes();
     }
 }